@@ -0,0 +1,44 @@
+package com.foxminded.tasks.car_rest_service.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tags catalog reads with the node's catalog version they were served at and answers a
+ * matching If-None-Match with 304 before the handler runs, so nothing is loaded or serialized.
+ * The version moves on every write here and every change the invalidation bus hears of from
+ * other nodes, so the tag changes whenever any resource may have. Versions are counted per
+ * node, so the tag carries the node id and a tag from another node simply does not match.
+ * While the bus is not listening changes from other nodes go unnoticed, so reads are not tagged.
+ * Resources with a row version tag themselves and are not routed through here.
+ */
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+	private final CatalogVersion catalogVersion;
+
+	public CatalogETagInterceptor(CatalogVersion catalogVersion) {
+		this.catalogVersion = catalogVersion;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+		if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+			return true;
+		}
+
+		if (!catalogVersion.isSynced()) {
+			return true;
+		}
+
+		String etag = "\"catalog-" + catalogVersion.getNodeId() + "-" + catalogVersion.current() + "\"";
+
+		return !new ServletWebRequest(request, response).checkNotModified(etag);
+	}
+}
@@ -0,0 +1,47 @@
+package com.foxminded.tasks.car_rest_service.config;
+
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class ImportExecutorConfig {
+
+	@Bean
+	public ThreadPoolTaskExecutor importExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setThreadNamePrefix("data-import-");
+		executor.initialize();
+		return executor;
+	}
+
+	/*
+	 * Uploads get a thread of their own, since the initial import may hold importExecutor for
+	 * as long as it waits for another node to finish.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor uploadImportExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setThreadNamePrefix("upload-import-");
+		executor.initialize();
+		return executor;
+	}
+
+	/*
+	 * Spring Boot backs off its own task executor as soon as any Executor bean exists,
+	 * so it is declared here to keep serving MVC async requests.
+	 */
+	@Lazy
+	@Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+	public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+		return builder.build();
+	}
+}
@@ -0,0 +1,16 @@
+package com.foxminded.tasks.car_rest_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.foxminded.tasks.car_rest_service.repository.ListingRepositoryImpl;
+
+/*
+ * Kept apart from the application class so that web slice tests do not try to build
+ * repositories without a persistence unit.
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "com.foxminded.tasks.car_rest_service.repository",
+		repositoryBaseClass = ListingRepositoryImpl.class)
+public class JpaRepositoryConfig {
+}
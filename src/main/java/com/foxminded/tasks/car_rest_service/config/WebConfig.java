@@ -0,0 +1,88 @@
+package com.foxminded.tasks.car_rest_service.config;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
+import com.foxminded.tasks.car_rest_service.service.ExportFormat;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+	private final CatalogVersion catalogVersion;
+	private final String carsCacheControl;
+	private final String makesCacheControl;
+	private final String modelsCacheControl;
+	private final String categoriesCacheControl;
+
+	@Autowired
+	public WebConfig(CatalogVersion catalogVersion,
+			@Value("${car-service.cache-control.cars:no-cache}") String carsCacheControl,
+			@Value("${car-service.cache-control.makes:no-cache}") String makesCacheControl,
+			@Value("${car-service.cache-control.models:no-cache}") String modelsCacheControl,
+			@Value("${car-service.cache-control.categories:no-cache}") String categoriesCacheControl) {
+		this.catalogVersion = catalogVersion;
+		this.carsCacheControl = carsCacheControl;
+		this.makesCacheControl = makesCacheControl;
+		this.modelsCacheControl = modelsCacheControl;
+		this.categoriesCacheControl = categoriesCacheControl;
+	}
+
+	@Override
+	public void addFormatters(FormatterRegistry registry) {
+		registry.addConverter(String.class, CountMode.class,
+				value -> CountMode.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+		registry.addConverter(String.class, ExportFormat.class,
+				value -> ExportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+	}
+
+	/*
+	 * The export is left out since its body differs with Accept-Encoding, which a strong tag
+	 * must not hide. Single cars and makes are tagged with their row version by the controller,
+	 * so the tag a client reads is the one it sends back in If-Match.
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(cacheControl(carsCacheControl))
+				.addPathPatterns("/api/v1/cars", "/api/v1/cars/**")
+				.excludePathPatterns("/api/v1/cars/export");
+		registry.addInterceptor(cacheControl(makesCacheControl))
+				.addPathPatterns("/api/v1/makes", "/api/v1/makes/**");
+		registry.addInterceptor(cacheControl(modelsCacheControl))
+				.addPathPatterns("/api/v1/models", "/api/v1/models/**");
+		registry.addInterceptor(cacheControl(categoriesCacheControl))
+				.addPathPatterns("/api/v1/categories", "/api/v1/categories/**");
+		registry.addInterceptor(new CatalogETagInterceptor(catalogVersion))
+				.addPathPatterns("/api/v1/cars", "/api/v1/cars/**", "/api/v1/makes", "/api/v1/makes/**",
+						"/api/v1/models", "/api/v1/models/**", "/api/v1/categories", "/api/v1/categories/**")
+				.excludePathPatterns("/api/v1/cars/export", "/api/v1/cars/{id}", "/api/v1/makes/{id}");
+	}
+
+	private static HandlerInterceptor cacheControl(String cacheControl) {
+
+		return new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+				if (!cacheControl.isEmpty() && (HttpMethod.GET.matches(request.getMethod())
+						|| HttpMethod.HEAD.matches(request.getMethod()))) {
+					response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+				}
+				return true;
+			}
+		};
+	}
+}
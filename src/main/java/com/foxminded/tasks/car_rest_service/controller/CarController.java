@@ -1,43 +1,82 @@
 package com.foxminded.tasks.car_rest_service.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBulkResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarCursorPageDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.PatchCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.UpdateCarDTO;
+import com.foxminded.tasks.car_rest_service.service.CarBatchService;
+import com.foxminded.tasks.car_rest_service.service.CarExportService;
 import com.foxminded.tasks.car_rest_service.service.CarService;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
+import com.foxminded.tasks.car_rest_service.service.ExportFormat;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.*;
 import io.swagger.v3.oas.annotations.responses.*;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement; 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/v1")
 public class CarController {
 
+    public static final String CARS_DELETED_HEADER = "X-Cars-Deleted";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final CarService service;
+    private final CarBatchService batchService;
+    private final CarExportService exportService;
+    private final ObjectMapper objectMapper;
+    private final int batchMaxSize;
 
     @Autowired
-    public CarController(CarService service) {
+    public CarController(CarService service, CarBatchService batchService, CarExportService exportService,
+    		ObjectMapper objectMapper, @Value("${car-service.batch.max-size:10000}") int batchMaxSize) {
         this.service = service;
+        this.batchService = batchService;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.batchMaxSize = batchMaxSize;
     }
 
     @Operation(summary = "List Cars with filtering options for make, model, category, and year")
@@ -47,18 +86,77 @@ public class CarController {
     		      schema = @Schema(implementation = CarListItemDTO.class)) })
     		  })
     @GetMapping("/cars")
-    public Page<CarListItemDTO> getFilteredCars(
+    public Slice<CarListItemDTO> getFilteredCars(
             @RequestParam(required = false) String makeName,
             @RequestParam(required = false) String modelName,
             @RequestParam(required = false) String categoryName,
             @RequestParam(required = false) Integer year,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "How the total is counted: exact, estimated or none")
+            @RequestParam(defaultValue = "exact") CountMode count) {
         
     	Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("id")));
-        return service.filterCars(makeName, modelName, categoryName, year, pageable);
+        return service.filterCars(makeName, modelName, categoryName, year, pageable, count);
+    }
+
+    @Operation(summary = "List Cars page by page with a cursor, filtering by make, model, category, and year")
+    @ApiResponses(value = {
+    		  @ApiResponse(responseCode = "200", description = "Page of Cars successfully fetched",
+    		    content = { @Content(mediaType = "application/json",
+    		      schema = @Schema(implementation = CarCursorPageDTO.class)) }),
+    		  @ApiResponse(responseCode = "400", description = "Cursor or page size is not valid", content = @Content)
+    		  })
+    @GetMapping(value = "/cars", params = "after")
+    public CarCursorPageDTO getFilteredCarsAfter(
+            @RequestParam(required = false) String makeName,
+            @RequestParam(required = false) String modelName,
+            @RequestParam(required = false) String categoryName,
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "nextCursor of the previous page, empty for the first page")
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+
+        return service.filterCarsAfter(makeName, modelName, categoryName, year, after, size);
     }
     
+    @Operation(summary = "Stream all Cars matching the filters as NDJSON or CSV, gzipped when the client accepts it")
+    @ApiResponses(value = {
+    		  @ApiResponse(responseCode = "200", description = "Cars streamed",
+    		    content = { @Content(mediaType = NDJSON_VALUE), @Content(mediaType = "text/csv") }),
+    		  @ApiResponse(responseCode = "400", description = "Format is not valid", content = @Content)
+    		  })
+    @GetMapping("/cars/export")
+    public void exportCars(
+            @RequestParam(required = false) String makeName,
+            @RequestParam(required = false) String modelName,
+            @RequestParam(required = false) String categoryName,
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") ExportFormat format,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+    	String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    	boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+    	response.setContentType(format.getContentType());
+    	response.setCharacterEncoding("UTF-8");
+    	response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+    			"attachment; filename=\"cars." + format.getExtension() + "\"");
+    	response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    	if (gzip) {
+    		response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+    		try (OutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+    			exportService.exportCars(makeName, modelName, categoryName, year, format, out);
+    		}
+    	} else {
+    		exportService.exportCars(makeName, modelName, categoryName, year, format, response.getOutputStream());
+    	}
+    }
+
     @Operation(summary = "Find a Car with given id")
     @ApiResponses(value = {
     		@ApiResponse(responseCode = "200", description = "Car found", 
@@ -69,10 +167,23 @@ public class CarController {
     })
     @GetMapping("/cars/{id}")
     public ResponseEntity<CarDTO> getCar(@Parameter(description = "ID of Car to be searched")
-    									 @PathVariable Long id) {
+    									 @PathVariable Long id,
+    									 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+    	/*
+    	 * A revalidation is answered from the row versions alone, the car with its make, model
+    	 * and category is loaded only when the client's copy is stale.
+    	 */
+    	if (ifNoneMatch != null) {
+    		Optional<CarVersionDTO> versions = service.findCarVersion(id);
+
+    		if (versions.isPresent() && IfMatch.matches(ifNoneMatch, IfMatch.etag(versions.get()))) {
+    			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(IfMatch.etag(versions.get())).build();
+    		}
+    	}
 
     	CarDTO carDto = service.findCarById(id);
-    	return new ResponseEntity<>(carDto, HttpStatus.OK);
+    	return ResponseEntity.ok().eTag(IfMatch.etag(carDto.getVersions())).body(carDto);
     }
     
     @Operation(summary = "Create a new Car", security = @SecurityRequirement(name = "bearerAuth"))
@@ -97,6 +208,48 @@ public class CarController {
 		return new ResponseEntity<>(carDto, HttpStatus.CREATED);
 	}
 	
+    @Operation(summary = "Create a batch of Cars from a JSON array", security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "201", description = "All Cars created",
+    					 content = { @Content(mediaType = "application/json",
+    					 schema = @Schema(implementation = CarBatchResultDTO.class))
+    					 }),
+    		@ApiResponse(responseCode = "200", description = "Some Cars created, the failed items carry an error"),
+    		@ApiResponse(responseCode = "400", description = "Batch is empty, too large or malformed", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
+    		@ApiResponse(responseCode = "422", description = "Atomic batch rolled back, the failed items carry an error")
+    })
+	@PostMapping(value = "/cars/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<CarBatchResultDTO> createCars(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+			description = "Cars to create", required = true,
+			content = @Content(mediaType = "application/json",
+			array = @ArraySchema(schema = @Schema(implementation = CreateCarDTO.class))))
+			HttpServletRequest request,
+			@Parameter(description = "Create all Cars or none of them")
+			@RequestParam(defaultValue = "true") boolean atomic) throws IOException {
+
+		return batchResponse(batchService.createCars(readBatch(request, "a JSON array"), atomic));
+	}
+
+    @Operation(summary = "Create a batch of Cars from newline-delimited JSON", security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "201", description = "All Cars created",
+    					 content = { @Content(mediaType = "application/json",
+    					 schema = @Schema(implementation = CarBatchResultDTO.class))
+    					 }),
+    		@ApiResponse(responseCode = "200", description = "Some Cars created, the failed items carry an error"),
+    		@ApiResponse(responseCode = "400", description = "Batch is empty, too large or malformed", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
+    		@ApiResponse(responseCode = "422", description = "Atomic batch rolled back, the failed items carry an error")
+    })
+	@PostMapping(value = "/cars/batch", consumes = NDJSON_VALUE)
+	public ResponseEntity<CarBatchResultDTO> createCarsFromNdjson(HttpServletRequest request,
+			@Parameter(description = "Create all Cars or none of them")
+			@RequestParam(defaultValue = "true") boolean atomic) throws IOException {
+
+		return batchResponse(batchService.createCars(readBatch(request, "newline-delimited JSON"), atomic));
+	}
+	
     @Operation(summary = "Update an existing Car", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
     		@ApiResponse(responseCode = "200", description = "Car updated",
@@ -105,10 +258,13 @@ public class CarController {
     				}),
     		@ApiResponse(responseCode = "400", description = "Car data is not valid"),
     		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
-    		@ApiResponse(responseCode = "404", description = "Unable to update. Car not found", content = @Content)
+    		@ApiResponse(responseCode = "404", description = "Unable to update. Car not found", content = @Content),
+    		@ApiResponse(responseCode = "412", description = "Car has changed since the version in If-Match", content = @Content)
     })
 	@PutMapping("/cars/{id}")
 	public ResponseEntity<CarDTO> updateCar(@Parameter(description = "ID of Car to be updated") @PathVariable Long id, 
+			@Parameter(description = "ETag of the Car the update is based on, e.g. \"3\"")
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@io.swagger.v3.oas.annotations.parameters.RequestBody(
 				description = "Car data to update", required = true, 
 				content = @Content(mediaType = "application/json", 
@@ -117,8 +273,8 @@ public class CarController {
 					"{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": \"2026\"}")))
 				@RequestBody UpdateCarDTO updateCarDto) {
 
-		CarDTO carDto = service.updateCar(id, updateCarDto);
-		return new ResponseEntity<>(carDto, HttpStatus.OK);
+		CarDTO carDto = service.updateCar(id, updateCarDto, IfMatch.version(ifMatch));
+		return ResponseEntity.ok().eTag(IfMatch.etag(carDto.getVersions())).body(carDto);
 	}
 	
     @Operation(summary = "Delete an existing Car", security = @SecurityRequirement(name = "bearerAuth"))
@@ -134,4 +290,87 @@ public class CarController {
 		service.delete(id);
 		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 	}
+
+    @Operation(summary = "Update all Cars matching the filter", security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "200", description = "Cars updated, or counted on a dry run",
+    				content = { @Content(mediaType = "application/json",
+    				schema = @Schema(implementation = CarBulkResultDTO.class))
+    				}),
+    		@ApiResponse(responseCode = "400", description = "Filter or patch is empty", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access")
+    })
+	@PatchMapping("/cars")
+	public ResponseEntity<CarBulkResultDTO> updateFilteredCars(
+			@RequestParam(required = false) String makeName,
+			@RequestParam(required = false) String modelName,
+			@RequestParam(required = false) String categoryName,
+			@RequestParam(required = false) Integer year,
+			@Parameter(description = "Only count the matching Cars")
+			@RequestParam(defaultValue = "false") boolean dryRun,
+			@io.swagger.v3.oas.annotations.parameters.RequestBody(
+				description = "Fields to set on every matching Car, null fields are left unchanged", required = true,
+				content = @Content(mediaType = "application/json",
+				schema = @Schema(implementation = PatchCarDTO.class),
+				examples = @ExampleObject(value = "{\"category\": \"Sedan\"}")))
+				@RequestBody PatchCarDTO patchCarDto) {
+
+		CarBulkResultDTO result = service.updateCars(makeName, modelName, categoryName, year, patchCarDto, dryRun);
+		return new ResponseEntity<>(result, HttpStatus.OK);
+	}
+
+    @Operation(summary = "Delete all Cars matching the filter", security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "200", description = "Cars deleted, or counted on a dry run",
+    				content = { @Content(mediaType = "application/json",
+    				schema = @Schema(implementation = CarBulkResultDTO.class))
+    				}),
+    		@ApiResponse(responseCode = "400", description = "Filter is empty", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access")
+    })
+	@DeleteMapping("/cars")
+	public ResponseEntity<CarBulkResultDTO> deleteFilteredCars(
+			@RequestParam(required = false) String makeName,
+			@RequestParam(required = false) String modelName,
+			@RequestParam(required = false) String categoryName,
+			@RequestParam(required = false) Integer year,
+			@Parameter(description = "Only count the matching Cars")
+			@RequestParam(defaultValue = "false") boolean dryRun) {
+
+		CarBulkResultDTO result = service.deleteCars(makeName, modelName, categoryName, year, dryRun);
+		return new ResponseEntity<>(result, HttpStatus.OK);
+	}
+
+	/*
+	 * Reads the items of a JSON array or of newline-delimited JSON one at a time. One item past
+	 * the limit is enough for the batch service to reject an oversized batch, so the rest of the
+	 * body is never parsed or held in memory.
+	 */
+	private List<CreateCarDTO> readBatch(HttpServletRequest request, String format) throws IOException {
+
+		List<CreateCarDTO> createCarDtos = new ArrayList<>();
+
+		try (MappingIterator<CreateCarDTO> items = objectMapper.readerFor(CreateCarDTO.class)
+				.readValues(request.getInputStream())) {
+			while (createCarDtos.size() <= batchMaxSize && items.hasNextValue()) {
+				createCarDtos.add(items.nextValue());
+			}
+
+		} catch (JsonProcessingException | RuntimeJsonMappingException e) {
+			throw new IllegalArgumentException("Batch is not valid " + format + ": " + e.getMessage());
+		}
+
+		return createCarDtos;
+	}
+
+	private ResponseEntity<CarBatchResultDTO> batchResponse(CarBatchResultDTO result) {
+
+		HttpStatus status = HttpStatus.CREATED;
+
+		if (result.getFailed() > 0) {
+			status = result.isAtomic() ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+		}
+
+		return new ResponseEntity<>(result, status);
+	}
 }
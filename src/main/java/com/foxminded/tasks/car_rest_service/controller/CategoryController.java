@@ -1,9 +1,9 @@
 package com.foxminded.tasks.car_rest_service.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +21,7 @@ import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.UpsertCategoryDTO;
 import com.foxminded.tasks.car_rest_service.service.CarService;
 import com.foxminded.tasks.car_rest_service.service.CategoryService;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -52,12 +53,14 @@ public class CategoryController {
     		      schema = @Schema(implementation = CategoryDTO.class)) })
     		  })
 	@GetMapping("/categories")
-	public Page<CategoryDTO> getFilteredCategories(@RequestParam(required = false) String name,
+	public Slice<CategoryDTO> getFilteredCategories(@RequestParam(required = false) String name,
 								 				@RequestParam(defaultValue = "0") int page,
-								 				@RequestParam(defaultValue = "10") int size) {
+								 				@RequestParam(defaultValue = "10") int size,
+								 				@Parameter(description = "How the total is counted: exact, estimated or none")
+								 				@RequestParam(defaultValue = "exact") CountMode count) {
 		
     	Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("id")));
-        return service.filterCategories(name, pageable);
+        return service.filterCategories(name, pageable, count);
 	}
 	
     @Operation(summary = "Find a Category with given id")
@@ -123,7 +126,8 @@ public class CategoryController {
 	
     @Operation(summary = "Delete an existing Category", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
-    		@ApiResponse(responseCode = "204", description = "Category deleted"),
+    		@ApiResponse(responseCode = "204", description = "Category deleted, the number of deleted Cars is in the "
+    				+ CarController.CARS_DELETED_HEADER + " header"),
     		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
     		@ApiResponse(responseCode = "404", description = "Unable to delete. Category not found")
     })
@@ -131,8 +135,10 @@ public class CategoryController {
 	public ResponseEntity<Void> deleteCategory(@Parameter(description = "ID of Category to be deleted")
 											   @PathVariable Long id) {
 
-		carService.deleteCategoryAndAssociations(id);
-		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		int carsDeleted = carService.deleteCategoryAndAssociations(id);
+		return ResponseEntity.noContent()
+				.header(CarController.CARS_DELETED_HEADER, String.valueOf(carsDeleted))
+				.build();
 	}
 	
 }
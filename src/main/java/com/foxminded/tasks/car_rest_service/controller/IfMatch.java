@@ -0,0 +1,73 @@
+package com.foxminded.tasks.car_rest_service.controller;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO;
+
+/**
+ * Row versions as entity tags. A single resource is served with its version field quoted as
+ * its ETag, and a conditional update sends that tag back in If-Match: {@code If-Match: "3"}.
+ * A car is shown with the names of its make, model and category, so its tag carries their
+ * versions after its own, {@code "3.1.0.2"}, and a rename changes the tag without touching
+ * the car rows. Only the car's own version is compared on update.
+ */
+final class IfMatch {
+
+	private IfMatch() {
+	}
+
+	static String etag(long version) {
+
+		return "\"" + version + "\"";
+	}
+
+	static String etag(CarVersionDTO versions) {
+
+		return "\"" + versions.getVersion() + "." + versions.getMakeVersion() + "." + versions.getModelVersion()
+				+ "." + versions.getCategoryVersion() + "\"";
+	}
+
+	/*
+	 * If-None-Match is compared weakly, so a W/ prefix does not keep a tag from matching.
+	 */
+	static boolean matches(String ifNoneMatch, String etag) {
+
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.strip();
+
+			if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/*
+	 * Returns null when the update is unconditional. A header holding only weak or unknown
+	 * tags can never match, so it fails as a stale version would.
+	 */
+	static Long version(String ifMatch) {
+
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+			return null;
+		}
+
+		for (String tag : ifMatch.split(",")) {
+			tag = tag.strip();
+
+			if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+				String version = tag.substring(1, tag.length() - 1);
+				int dot = version.indexOf('.');
+
+				try {
+					return Long.valueOf(dot < 0 ? version : version.substring(0, dot));
+				} catch (NumberFormatException e) {
+					// not a row version, try the next tag
+				}
+			}
+		}
+
+		throw new OptimisticLockingFailureException("If-Match: " + ifMatch + " does not match any version");
+	}
+}
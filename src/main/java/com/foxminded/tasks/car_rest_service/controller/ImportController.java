@@ -0,0 +1,112 @@
+package com.foxminded.tasks.car_rest_service.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.service.ImportJobService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ImportController {
+
+	private final ImportJobService service;
+
+	@Autowired
+	public ImportController(ImportJobService service) {
+		this.service = service;
+	}
+
+    @Operation(summary = "Upload a CSV catalog file (optionally gzip-compressed) for import",
+    		   security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "202", description = "Import job accepted",
+    					 content = { @Content(mediaType = "application/json",
+    					 schema = @Schema(implementation = ImportJobDTO.class))
+    					 }),
+    		@ApiResponse(responseCode = "400", description = "Import parameters are not valid", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
+    		@ApiResponse(responseCode = "413", description = "Upload is larger than the import limit", content = @Content)
+    })
+	@PostMapping(value = "/imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<ImportJobDTO> uploadCsvFile(@RequestParam("file") MultipartFile file,
+													  @Parameter(description = "APPEND adds new cars, SYNC diffs the file against existing cars by objectId")
+													  @RequestParam(defaultValue = "APPEND") ImportMode mode,
+													  @Parameter(description = "In SYNC mode, delete cars missing from the file")
+													  @RequestParam(defaultValue = "false") boolean deleteMissing) throws IOException {
+
+		return accepted(service.submit(file, mode, deleteMissing));
+	}
+
+    @Operation(summary = "Stream a CSV catalog (optionally gzip-compressed) as request body for import",
+    		   security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "202", description = "Import job accepted",
+    					 content = { @Content(mediaType = "application/json",
+    					 schema = @Schema(implementation = ImportJobDTO.class))
+    					 }),
+    		@ApiResponse(responseCode = "400", description = "Import parameters are not valid", content = @Content),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
+    		@ApiResponse(responseCode = "413", description = "Upload is larger than the import limit", content = @Content)
+    })
+	@PostMapping(value = "/imports", consumes = { "text/csv", "application/gzip",
+			MediaType.APPLICATION_OCTET_STREAM_VALUE })
+	public ResponseEntity<ImportJobDTO> uploadCsvStream(HttpServletRequest request,
+														@Parameter(description = "APPEND adds new cars, SYNC diffs the file against existing cars by objectId")
+														@RequestParam(defaultValue = "APPEND") ImportMode mode,
+														@Parameter(description = "In SYNC mode, delete cars missing from the file")
+														@RequestParam(defaultValue = "false") boolean deleteMissing) throws IOException {
+
+		try (InputStream inputStream = request.getInputStream()) {
+			return accepted(service.submit(inputStream, mode, deleteMissing));
+		}
+	}
+
+    @Operation(summary = "Find an import job with given id",
+    		   security = @SecurityRequirement(name = "bearerAuth"))
+    @ApiResponses(value = {
+    		@ApiResponse(responseCode = "200", description = "Import job found",
+    					 content = { @Content(mediaType = "application/json",
+    					 schema = @Schema(implementation = ImportJobDTO.class))
+    		}),
+    		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
+    		@ApiResponse(responseCode = "404", description = "Import job not found", content = @Content)
+    })
+	@GetMapping("/imports/{id}")
+	public ResponseEntity<ImportJobDTO> getImportJob(@Parameter(description = "ID of import job to be searched")
+													 @PathVariable String id) {
+
+		ImportJobDTO importJobDto = service.findById(id);
+		return new ResponseEntity<>(importJobDto, HttpStatus.OK);
+	}
+
+	private ResponseEntity<ImportJobDTO> accepted(ImportJobDTO importJobDto) {
+
+		return ResponseEntity.accepted()
+				.location(URI.create("/api/v1/imports/" + importJobDto.getId()))
+				.body(importJobDto);
+	}
+}
@@ -1,10 +1,13 @@
 package com.foxminded.tasks.car_rest_service.controller;
 
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,6 +24,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.foxminded.tasks.car_rest_service.dto.make.UpsertMakeDTO;
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
 import com.foxminded.tasks.car_rest_service.service.CarService;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
 import com.foxminded.tasks.car_rest_service.service.MakeService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -52,12 +57,14 @@ public class MakeController {
     		      schema = @Schema(implementation = MakeDTO.class)) })
     		  })
 	@GetMapping("/makes")
-	public Page<MakeDTO> getFilteredMakes(@RequestParam(required = false) String name,
+	public Slice<MakeDTO> getFilteredMakes(@RequestParam(required = false) String name,
 									   	  @RequestParam(defaultValue = "0") int page,
-									   	  @RequestParam(defaultValue = "10") int size) {
+									   	  @RequestParam(defaultValue = "10") int size,
+									   	  @Parameter(description = "How the total is counted: exact, estimated or none")
+									   	  @RequestParam(defaultValue = "exact") CountMode count) {
 		
     	Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("id")));
-        return service.filterMakes(name, pageable);
+        return service.filterMakes(name, pageable, count);
 	}
 	
     @Operation(summary = "Find a Make with given id")
@@ -70,10 +77,19 @@ public class MakeController {
     })
 	@GetMapping("/makes/{id}")
 	public ResponseEntity<MakeDTO> getMake(@Parameter(description = "ID of Make to be searched")
-										   @PathVariable Long id) {
+										   @PathVariable Long id,
+										   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+		if (ifNoneMatch != null) {
+			Optional<Long> version = service.findVersion(id);
+
+			if (version.isPresent() && IfMatch.matches(ifNoneMatch, IfMatch.etag(version.get()))) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(IfMatch.etag(version.get())).build();
+			}
+		}
 
 		MakeDTO makeDto = service.findById(id);
-		return new ResponseEntity<>(makeDto, HttpStatus.OK);
+		return ResponseEntity.ok().eTag(IfMatch.etag(makeDto.getVersion())).body(makeDto);
 	}
 	
     @Operation(summary = "Create a new Make", security = @SecurityRequirement(name = "bearerAuth"))
@@ -105,11 +121,14 @@ public class MakeController {
     				}),
     		@ApiResponse(responseCode = "400", description = "Make data is not valid"),
     		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
-    		@ApiResponse(responseCode = "404", description = "Unable to update. Make not found", content = @Content)
+    		@ApiResponse(responseCode = "404", description = "Unable to update. Make not found", content = @Content),
+    		@ApiResponse(responseCode = "412", description = "Make has changed since the version in If-Match", content = @Content)
     })
 	@PutMapping("/makes/{id}")
 	public ResponseEntity<MakeDTO> updateMake(@Parameter(description = "ID of Make to be updated")
 											  @PathVariable Long id, 
+											  @Parameter(description = "ETag of the Make the update is based on, e.g. \"3\"")
+											  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 											  @io.swagger.v3.oas.annotations.parameters.RequestBody(
 														description = "Make data to update", required = true, 
 														content = @Content(mediaType = "application/json", 
@@ -117,13 +136,14 @@ public class MakeController {
 														examples = @ExampleObject(value = "{\"name\": \"LADA\"}")))
 											  @RequestBody UpsertMakeDTO updateMakeDto) {
 
-		MakeDTO makeDto = service.updateMake(id, updateMakeDto);
-		return new ResponseEntity<>(makeDto, HttpStatus.OK);
+		MakeDTO makeDto = service.updateMake(id, updateMakeDto, IfMatch.version(ifMatch));
+		return ResponseEntity.ok().eTag(IfMatch.etag(makeDto.getVersion())).body(makeDto);
 	}
 	
     @Operation(summary = "Delete an existing Make", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
-    		@ApiResponse(responseCode = "204", description = "Make deleted"),
+    		@ApiResponse(responseCode = "204", description = "Make deleted, the number of deleted Cars is in the "
+    				+ CarController.CARS_DELETED_HEADER + " header"),
     		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
     		@ApiResponse(responseCode = "404", description = "Unable to delete. Make not found")
     })
@@ -131,8 +151,10 @@ public class MakeController {
 	public ResponseEntity<Void> deleteMake(@Parameter(description = "ID of Make to be deleted")
 										   @PathVariable Long id) {
 
-		carService.deleteMakeAndAssociations(id);
-		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		int carsDeleted = carService.deleteMakeAndAssociations(id);
+		return ResponseEntity.noContent()
+				.header(CarController.CARS_DELETED_HEADER, String.valueOf(carsDeleted))
+				.build();
 	}
 }
 
@@ -1,9 +1,9 @@
 package com.foxminded.tasks.car_rest_service.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.foxminded.tasks.car_rest_service.dto.model.UpsertModelDTO;
 import com.foxminded.tasks.car_rest_service.dto.model.ModelDTO;
 import com.foxminded.tasks.car_rest_service.service.CarService;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
 import com.foxminded.tasks.car_rest_service.service.ModelService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -52,12 +53,14 @@ public class ModelController {
     		      schema = @Schema(implementation = ModelDTO.class)) })
     		  })
 	@GetMapping("/models")
-	public Page<ModelDTO> getFilteredModels(@RequestParam(required = false) String name,
+	public Slice<ModelDTO> getFilteredModels(@RequestParam(required = false) String name,
 										    @RequestParam(defaultValue = "0") int page,
-										    @RequestParam(defaultValue = "10") int size) {
+										    @RequestParam(defaultValue = "10") int size,
+										    @Parameter(description = "How the total is counted: exact, estimated or none")
+										    @RequestParam(defaultValue = "exact") CountMode count) {
 		
     	Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("id")));
-        return service.filterModels(name, pageable);
+        return service.filterModels(name, pageable, count);
 	}	
 	
     @Operation(summary = "Find a Model with given id")
@@ -123,7 +126,8 @@ public class ModelController {
 	
     @Operation(summary = "Delete an existing Model", security = @SecurityRequirement(name = "bearerAuth"))
     @ApiResponses(value = {
-    		@ApiResponse(responseCode = "204", description = "Model deleted"),
+    		@ApiResponse(responseCode = "204", description = "Model deleted, the number of deleted Cars is in the "
+    				+ CarController.CARS_DELETED_HEADER + " header"),
     		@ApiResponse(responseCode = "401", description = "Unauthorized access"),
     		@ApiResponse(responseCode = "404", description = "Unable to delete. Model not found")
     })
@@ -131,8 +135,10 @@ public class ModelController {
 	public ResponseEntity<Void> deleteModel(@Parameter(description = "ID of Model to be deleted")
 											@PathVariable Long id) {
 
-		carService.deleteModelAndAssociations(id);
-		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		int carsDeleted = carService.deleteModelAndAssociations(id);
+		return ResponseEntity.noContent()
+				.header(CarController.CARS_DELETED_HEADER, String.valueOf(carsDeleted))
+				.build();
 	}
 
 }
@@ -0,0 +1,18 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarBatchItemDTO {
+
+	private int index;
+	private Long id;
+	private String objectId;
+	private String error;
+}
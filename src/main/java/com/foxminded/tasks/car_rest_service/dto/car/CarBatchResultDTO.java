@@ -0,0 +1,20 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarBatchResultDTO {
+
+	private boolean atomic;
+	private int created;
+	private int failed;
+	private List<CarBatchItemDTO> items;
+}
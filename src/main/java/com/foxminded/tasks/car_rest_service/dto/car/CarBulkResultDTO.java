@@ -0,0 +1,16 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarBulkResultDTO {
+
+	private long affected;
+	private boolean dryRun;
+}
@@ -0,0 +1,19 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarCursorPageDTO {
+
+	private List<CarListItemDTO> content;
+	private int size;
+	private String nextCursor;
+}
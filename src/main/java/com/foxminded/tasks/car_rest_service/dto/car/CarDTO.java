@@ -1,5 +1,7 @@
 package com.foxminded.tasks.car_rest_service.dto.car;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,4 +19,31 @@ public class CarDTO {
 	private String category;
 	private int year;
 	private String objectId;
+	private long version;
+	@JsonIgnore
+	private long makeVersion;
+	@JsonIgnore
+	private long modelVersion;
+	@JsonIgnore
+	private long categoryVersion;
+
+	public CarDTO(Long id, String make, String model, String category, int year, String objectId) {
+		this.id = id;
+		this.make = make;
+		this.model = model;
+		this.category = category;
+		this.year = year;
+		this.objectId = objectId;
+	}
+
+	public CarDTO(Long id, String make, String model, String category, int year, String objectId, long version) {
+		this(id, make, model, category, year, objectId);
+		this.version = version;
+	}
+
+	@JsonIgnore
+	public CarVersionDTO getVersions() {
+
+		return new CarVersionDTO(version, makeVersion, modelVersion, categoryVersion);
+	}
 }
@@ -0,0 +1,21 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Row versions of a car and of the make, model and category it is shown with.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarVersionDTO {
+
+	private long version;
+	private long makeVersion;
+	private long modelVersion;
+	private long categoryVersion;
+}
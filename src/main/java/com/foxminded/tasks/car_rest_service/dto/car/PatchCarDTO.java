@@ -0,0 +1,21 @@
+package com.foxminded.tasks.car_rest_service.dto.car;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/*
+ * Fields left null are not changed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatchCarDTO {
+
+	private String make;
+	private String model;
+	private String category;
+	private Integer year;
+}
@@ -13,4 +13,10 @@ public class CategoryDTO {
 
 	private Long id;
 	private String name;
+	private long version;
+
+	public CategoryDTO(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
 }
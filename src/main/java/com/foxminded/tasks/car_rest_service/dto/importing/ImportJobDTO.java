@@ -0,0 +1,31 @@
+package com.foxminded.tasks.car_rest_service.dto.importing;
+
+import java.time.Instant;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+
+	private String id;
+	private ImportState state;
+	private ImportMode mode;
+	private long rowsImported;
+	private long rowsUpdated;
+	private long rowsDeleted;
+	private long rowsUnchanged;
+	private long rowsRejected;
+	private double rowsPerSecond;
+	private Instant startedAt;
+	private Instant finishedAt;
+	private String error;
+}
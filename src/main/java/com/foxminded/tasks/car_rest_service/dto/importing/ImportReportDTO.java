@@ -0,0 +1,18 @@
+package com.foxminded.tasks.car_rest_service.dto.importing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDTO {
+
+	private long rowsImported;
+	private long rowsRejected;
+	private long elapsedMillis;
+	private double rowsPerSecond;
+}
@@ -0,0 +1,20 @@
+package com.foxminded.tasks.car_rest_service.dto.importing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncReportDTO {
+
+	private long rowsInserted;
+	private long rowsUpdated;
+	private long rowsDeleted;
+	private long rowsUnchanged;
+	private long rowsRejected;
+	private long elapsedMillis;
+}
@@ -13,4 +13,10 @@ public class MakeDTO {
 
 	private Long id;
 	private String name;
+	private long version;
+
+	public MakeDTO(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
 }
@@ -13,4 +13,10 @@ public class ModelDTO {
 
 	private Long id;
 	private String name;
+	private long version;
+
+	public ModelDTO(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
 }
@@ -11,7 +11,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -25,8 +27,13 @@ import lombok.Setter;
 @AllArgsConstructor
 public class Car {
 
+	/*
+	 * A pooled sequence hands out 50 ids per round trip and, unlike IDENTITY, lets Hibernate
+	 * batch inserts since ids are known before the rows are written.
+	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_id_seq")
+	@SequenceGenerator(name = "car_id_seq", schema = "car_service", sequenceName = "car_id_seq", allocationSize = 50)
 	private Long id;
 	
 	@ManyToOne
@@ -51,6 +58,14 @@ public class Car {
 	@Column(name = "objectId", nullable = false)
 	@JsonProperty("objectId")
 	private String objectId;
+
+	/*
+	 * Checked and incremented by every update, so a write based on a stale read fails
+	 * instead of overwriting the newer one.
+	 */
+	@Version
+	@Column(name = "version", nullable = false)
+	private long version;
 	
 	public Car(Make make, Model model, Category category, Year year, String objectId) {
 		this.make = make;
@@ -59,4 +74,9 @@ public class Car {
 		this.year = year;
 		this.objectId = objectId;
 	}
+
+	public Car(Long id, Make make, Model model, Category category, Year year, String objectId) {
+		this(make, model, category, year, objectId);
+		this.id = id;
+	}
 }
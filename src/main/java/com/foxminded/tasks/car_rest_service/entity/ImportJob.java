@@ -0,0 +1,76 @@
+package com.foxminded.tasks.car_rest_service.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "import_job", schema = "car_service")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJob {
+
+	@Id
+	private String id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "state", nullable = false)
+	private ImportState state;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "mode", nullable = false)
+	private ImportMode mode;
+
+	@Column(name = "owner")
+	private String owner;
+
+	@Column(name = "lease_until")
+	private Instant leaseUntil;
+
+	@Column(name = "rows_total")
+	private Long rowsTotal;
+
+	@Column(name = "rows_imported", nullable = false)
+	private long rowsImported;
+
+	@Column(name = "rows_updated", nullable = false)
+	private long rowsUpdated;
+
+	@Column(name = "rows_deleted", nullable = false)
+	private long rowsDeleted;
+
+	@Column(name = "rows_unchanged", nullable = false)
+	private long rowsUnchanged;
+
+	@Column(name = "rows_rejected", nullable = false)
+	private long rowsRejected;
+
+	@Column(name = "checkpoint", nullable = false)
+	private long checkpoint;
+
+	@Column(name = "source")
+	private String source;
+
+	@Column(name = "error")
+	private String error;
+
+	@Column(name = "started_at")
+	private Instant startedAt;
+
+	@Column(name = "updated_at")
+	private Instant updatedAt;
+
+	@Column(name = "finished_at")
+	private Instant finishedAt;
+}
@@ -0,0 +1,6 @@
+package com.foxminded.tasks.car_rest_service.entity;
+
+public enum ImportMode {
+	APPEND,
+	SYNC
+}
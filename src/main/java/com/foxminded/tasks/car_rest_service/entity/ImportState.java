@@ -0,0 +1,10 @@
+package com.foxminded.tasks.car_rest_service.entity;
+
+public enum ImportState {
+
+	PENDING,
+	IMPORTING,
+	COMPLETED,
+	SKIPPED,
+	FAILED
+}
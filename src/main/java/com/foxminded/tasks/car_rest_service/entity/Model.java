@@ -7,7 +7,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,14 +24,24 @@ import lombok.Setter;
 public class Model {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "model_id_seq")
+	@SequenceGenerator(name = "model_id_seq", schema = "car_service", sequenceName = "model_id_seq", allocationSize = 50)
 	private Long id;
 	
 	@Column(name = "name", nullable = false)
 	@JsonProperty("name")
 	private String name;
+
+	@Version
+	@Column(name = "version", nullable = false)
+	private long version;
 	
 	public Model(String name) {
 		this.name = name;
 	}
+
+	public Model(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
 }
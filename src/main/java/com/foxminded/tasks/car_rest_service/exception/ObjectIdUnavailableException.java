@@ -0,0 +1,12 @@
+package com.foxminded.tasks.car_rest_service.exception;
+
+/**
+ * Thrown when no objectId can be generated because this node holds no node id lease. The
+ * condition is temporary: the lease is taken again once a node id is free.
+ */
+public class ObjectIdUnavailableException extends IllegalStateException {
+
+	public ObjectIdUnavailableException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,46 @@
+package com.foxminded.tasks.car_rest_service.health;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import com.foxminded.tasks.car_rest_service.service.DataImportService;
+import com.foxminded.tasks.car_rest_service.service.ImportProgress;
+
+@Component("dataImport")
+public class DataImportHealthIndicator implements HealthIndicator {
+
+	public static final Status IMPORTING = new Status("IMPORTING", "Initial data import is in progress");
+
+	private final DataImportService dataImportService;
+
+	@Autowired
+	public DataImportHealthIndicator(DataImportService dataImportService) {
+		this.dataImportService = dataImportService;
+	}
+
+	/*
+	 * A failed import leaves the catalog as it was before it started, which the service can
+	 * still serve, so the replica stays ready and the failure is only reported in the details.
+	 */
+	@Override
+	public Health health() {
+
+		ImportProgress progress = dataImportService.getProgress();
+
+		Health.Builder builder = switch (progress.getState()) {
+			case PENDING, IMPORTING -> Health.status(IMPORTING);
+			case COMPLETED, SKIPPED -> Health.up();
+			case FAILED -> Health.up().withDetail("error", String.valueOf(progress.getError()));
+		};
+
+		return builder
+				.withDetail("state", progress.getState())
+				.withDetail("rowsDone", progress.getRowsDone())
+				.withDetail("rowsTotal", progress.getRowsTotal())
+				.withDetail("rowsRejected", progress.getRowsRejected())
+				.build();
+	}
+}
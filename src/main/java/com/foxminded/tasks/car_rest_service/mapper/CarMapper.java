@@ -22,7 +22,11 @@ public class CarMapper {
 				car.getModel().getName(),
 				car.getCategory().getName(),
 				car.getYear().getValue(),
-				car.getObjectId());
+				car.getObjectId(),
+				car.getVersion(),
+				car.getMake().getVersion(),
+				car.getModel().getVersion(),
+				car.getCategory().getVersion());
 	}
 	
 	public CarListItemDTO carToCarListItemDto(Car car) {
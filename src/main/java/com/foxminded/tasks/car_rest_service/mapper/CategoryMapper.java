@@ -10,11 +10,11 @@ public class CategoryMapper {
 
 	public CategoryDTO categoryToDto(Category category) {
 		
-		return new CategoryDTO(category.getId(), category.getName());
+		return new CategoryDTO(category.getId(), category.getName(), category.getVersion());
 	}
 	
 	public Category dtoToCategory(CategoryDTO categoryDto) {
 		
-		return new Category(categoryDto.getId(), categoryDto.getName());
+		return new Category(categoryDto.getId(), categoryDto.getName(), categoryDto.getVersion());
 	}
 }
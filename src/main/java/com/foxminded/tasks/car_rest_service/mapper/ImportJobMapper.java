@@ -0,0 +1,45 @@
+package com.foxminded.tasks.car_rest_service.mapper;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.stereotype.Component;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+
+@Component
+public class ImportJobMapper {
+
+	public ImportJobDTO importJobToDto(ImportJob job) {
+
+		return new ImportJobDTO(
+				job.getId(),
+				job.getState(),
+				job.getMode(),
+				job.getRowsImported(),
+				job.getRowsUpdated(),
+				job.getRowsDeleted(),
+				job.getRowsUnchanged(),
+				job.getRowsRejected(),
+				rowsPerSecond(job),
+				job.getStartedAt(),
+				job.getFinishedAt(),
+				job.getError());
+	}
+
+	private double rowsPerSecond(ImportJob job) {
+
+		Instant lastUpdate = job.getFinishedAt() != null ? job.getFinishedAt() : job.getUpdatedAt();
+
+		if (job.getStartedAt() == null || lastUpdate == null) {
+			return 0;
+		}
+
+		long elapsedMillis = Duration.between(job.getStartedAt(), lastUpdate).toMillis();
+
+		long rows = job.getRowsImported() + job.getRowsUpdated() + job.getRowsUnchanged();
+
+		return elapsedMillis <= 0 ? 0 : rows * 1000.0 / elapsedMillis;
+	}
+}
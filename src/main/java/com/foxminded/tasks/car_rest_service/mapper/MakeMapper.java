@@ -10,11 +10,11 @@ public class MakeMapper {
 	
 	public MakeDTO makeToDto(Make make) {
 		
-		return new MakeDTO(make.getId(), make.getName());
+		return new MakeDTO(make.getId(), make.getName(), make.getVersion());
 	}
 	
 	public Make dtoToMake(MakeDTO makeDto) {
 		
-		return new Make(makeDto.getId(), makeDto.getName());
+		return new Make(makeDto.getId(), makeDto.getName(), makeDto.getVersion());
 	}
 }
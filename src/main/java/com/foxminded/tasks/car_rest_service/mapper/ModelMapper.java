@@ -10,11 +10,11 @@ public class ModelMapper {
 
 	public ModelDTO modelToDto(Model model) {
 		
-		return new ModelDTO(model.getId(), model.getName());
+		return new ModelDTO(model.getId(), model.getName(), model.getVersion());
 	}
 	
 	public Model dtoToModel(ModelDTO modelDto) {
 		
-		return new Model(modelDto.getId(), modelDto.getName());
+		return new Model(modelDto.getId(), modelDto.getName(), modelDto.getVersion());
 	}
 }
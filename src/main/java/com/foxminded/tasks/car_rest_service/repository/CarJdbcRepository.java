@@ -0,0 +1,278 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+
+@Repository
+public class CarJdbcRepository {
+
+	private static final String RESOLVE_NAMES_SQL = """
+			insert into car_service.%1$s (name)
+			select distinct n from unnest(?::varchar[]) n
+			where not exists (select 1 from car_service.%1$s t where t.name = n)
+			order by n
+			on conflict (name) do nothing
+			returning id, name
+			""";
+
+	private static final String FIND_NAMES_SQL = """
+			select id, name from car_service.%1$s where name = any(?::varchar[])
+			""";
+
+	private static final String INSERT_CARS_SQL = """
+			insert into car_service.car (make_id, model_id, category_id, year, object_id)
+			select * from unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::integer[], ?::varchar[])
+			on conflict (object_id) do nothing
+			""";
+
+	private static final String INSERT_CARS_RETURNING_IDS_SQL = INSERT_CARS_SQL + "returning id, object_id\n";
+
+	private static final String PURGE_SYNC_STAGES_SQL = """
+			delete from car_service.car_sync_stage s
+			where s.job_id = ?
+			or not exists (select 1 from car_service.import_job j where j.id = s.job_id and j.state = 'IMPORTING')
+			""";
+
+	private static final String CLEAR_SYNC_STAGE_SQL = """
+			delete from car_service.car_sync_stage where job_id = ?
+			""";
+
+	private static final String STAGE_CARS_SQL = """
+			insert into car_service.car_sync_stage (job_id, make, model, category, year, object_id)
+			select ?::varchar, s.* from unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::integer[], ?::varchar[]) s
+			on conflict (job_id, object_id) do nothing
+			""";
+
+	private static final String RESOLVE_STAGED_NAMES_SQL = """
+			insert into car_service.%1$s (name)
+			select distinct s.%1$s from car_service.car_sync_stage s
+			where s.job_id = ?
+			and not exists (select 1 from car_service.%1$s t where t.name = s.%1$s)
+			on conflict (name) do nothing
+			""";
+
+	private static final String STAGED_CARS_SQL = """
+			select s.object_id, mk.id as make_id, md.id as model_id, ct.id as category_id, s.year
+			from car_service.car_sync_stage s
+			join car_service.make mk on mk.name = s.make
+			join car_service.model md on md.name = s.model
+			join car_service.category ct on ct.name = s.category
+			where s.job_id = ?
+			""";
+
+	private static final String UPDATE_CHANGED_CARS_SQL = """
+			update car_service.car c
+			set make_id = s.make_id, model_id = s.model_id, category_id = s.category_id, year = s.year,
+				version = c.version + 1
+			from (%s) s
+			where c.object_id = s.object_id
+			and (c.make_id, c.model_id, c.category_id, c.year)
+				is distinct from (s.make_id, s.model_id, s.category_id, s.year)
+			""".formatted(STAGED_CARS_SQL);
+
+	private static final String INSERT_NEW_CARS_SQL = """
+			insert into car_service.car (make_id, model_id, category_id, year, object_id)
+			select s.make_id, s.model_id, s.category_id, s.year, s.object_id
+			from (%s) s
+			where not exists (select 1 from car_service.car c where c.object_id = s.object_id)
+			on conflict (object_id) do nothing
+			""".formatted(STAGED_CARS_SQL);
+
+	private static final String DELETE_MISSING_CARS_SQL = """
+			delete from car_service.car c
+			where not exists (
+				select 1 from car_service.car_sync_stage s where s.job_id = ? and s.object_id = c.object_id)
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public CarJdbcRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public Map<String, Long> resolveMakeIds(Collection<String> names) {
+
+		return resolveNames("make", names);
+	}
+
+	public Map<String, Long> resolveModelIds(Collection<String> names) {
+
+		return resolveNames("model", names);
+	}
+
+	public Map<String, Long> resolveCategoryIds(Collection<String> names) {
+
+		return resolveNames("category", names);
+	}
+
+	public int insertCars(List<CreateCarDTO> cars, Map<String, Long> makeIds, Map<String, Long> modelIds,
+			Map<String, Long> categoryIds) {
+
+		return jdbcTemplate.update(
+				connection -> prepareInsert(connection, INSERT_CARS_SQL, cars, makeIds, modelIds, categoryIds));
+	}
+
+	/*
+	 * Returns the ids of the inserted cars by objectId; cars whose objectId already exists are
+	 * skipped and missing from the result.
+	 */
+	public Map<String, Long> insertCarsReturningIds(List<CreateCarDTO> cars, Map<String, Long> makeIds,
+			Map<String, Long> modelIds, Map<String, Long> categoryIds) {
+
+		Map<String, Long> ids = new HashMap<>();
+
+		jdbcTemplate.query(
+				connection -> prepareInsert(connection, INSERT_CARS_RETURNING_IDS_SQL, cars, makeIds, modelIds,
+						categoryIds),
+				rs -> {
+					ids.put(rs.getString("object_id"), rs.getLong("id"));
+				});
+
+		return ids;
+	}
+
+	/*
+	 * A sync stages its file in committed chunks into an unlogged table shared by all jobs and
+	 * keyed by job id, so no transaction stays open while the file is read. Starting a sync also
+	 * drops what earlier runs of the job and jobs that are no longer importing left behind.
+	 */
+	public void purgeSyncStages(String jobId) {
+
+		jdbcTemplate.update(PURGE_SYNC_STAGES_SQL, jobId);
+	}
+
+	public void clearSyncStage(String jobId) {
+
+		jdbcTemplate.update(CLEAR_SYNC_STAGE_SQL, jobId);
+	}
+
+	public int stageCars(String jobId, List<CreateCarDTO> cars) {
+
+		int size = cars.size();
+		String[] makeColumn = new String[size];
+		String[] modelColumn = new String[size];
+		String[] categoryColumn = new String[size];
+		Integer[] yearColumn = new Integer[size];
+		String[] objectIdColumn = new String[size];
+
+		for (int i = 0; i < size; i++) {
+			CreateCarDTO car = cars.get(i);
+			makeColumn[i] = car.getMake();
+			modelColumn[i] = car.getModel();
+			categoryColumn[i] = car.getCategory();
+			yearColumn[i] = car.getYear();
+			objectIdColumn[i] = car.getObjectId();
+		}
+
+		return jdbcTemplate.update(connection -> {
+			PreparedStatement ps = connection.prepareStatement(STAGE_CARS_SQL);
+			ps.setString(1, jobId);
+			ps.setArray(2, connection.createArrayOf("varchar", makeColumn));
+			ps.setArray(3, connection.createArrayOf("varchar", modelColumn));
+			ps.setArray(4, connection.createArrayOf("varchar", categoryColumn));
+			ps.setArray(5, connection.createArrayOf("integer", yearColumn));
+			ps.setArray(6, connection.createArrayOf("varchar", objectIdColumn));
+			return ps;
+		});
+	}
+
+	public void resolveStagedNames(String jobId) {
+
+		jdbcTemplate.execute("analyze car_service.car_sync_stage");
+
+		for (String table : List.of("make", "model", "category")) {
+			jdbcTemplate.update(RESOLVE_STAGED_NAMES_SQL.formatted(table), jobId);
+		}
+	}
+
+	public int updateChangedCars(String jobId) {
+
+		return jdbcTemplate.update(UPDATE_CHANGED_CARS_SQL, jobId);
+	}
+
+	public int insertNewCars(String jobId) {
+
+		return jdbcTemplate.update(INSERT_NEW_CARS_SQL, jobId);
+	}
+
+	public int deleteMissingCars(String jobId) {
+
+		return jdbcTemplate.update(DELETE_MISSING_CARS_SQL, jobId);
+	}
+
+	private PreparedStatement prepareInsert(Connection connection, String sql, List<CreateCarDTO> cars,
+			Map<String, Long> makeIds, Map<String, Long> modelIds, Map<String, Long> categoryIds) throws SQLException {
+
+		int size = cars.size();
+		Long[] makeColumn = new Long[size];
+		Long[] modelColumn = new Long[size];
+		Long[] categoryColumn = new Long[size];
+		Integer[] yearColumn = new Integer[size];
+		String[] objectIdColumn = new String[size];
+
+		for (int i = 0; i < size; i++) {
+			CreateCarDTO car = cars.get(i);
+			makeColumn[i] = makeIds.get(car.getMake());
+			modelColumn[i] = modelIds.get(car.getModel());
+			categoryColumn[i] = categoryIds.get(car.getCategory());
+			yearColumn[i] = car.getYear();
+			objectIdColumn[i] = car.getObjectId();
+		}
+
+		PreparedStatement ps = connection.prepareStatement(sql);
+		ps.setArray(1, connection.createArrayOf("bigint", makeColumn));
+		ps.setArray(2, connection.createArrayOf("bigint", modelColumn));
+		ps.setArray(3, connection.createArrayOf("bigint", categoryColumn));
+		ps.setArray(4, connection.createArrayOf("integer", yearColumn));
+		ps.setArray(5, connection.createArrayOf("varchar", objectIdColumn));
+		return ps;
+	}
+
+	/*
+	 * Names that already exist are not written to, so resolving them locks nothing. The insert
+	 * only returns the rows it created; the other names are read by a second statement, which
+	 * also sees rows that a concurrent import committed while the insert waited on them.
+	 */
+	private Map<String, Long> resolveNames(String table, Collection<String> names) {
+
+		Map<String, Long> ids = new HashMap<>();
+
+		if (names.isEmpty()) {
+			return ids;
+		}
+
+		queryNames(RESOLVE_NAMES_SQL.formatted(table), names, ids);
+
+		if (ids.size() < names.size()) {
+			List<String> missing = names.stream().filter(name -> !ids.containsKey(name)).toList();
+			queryNames(FIND_NAMES_SQL.formatted(table), missing, ids);
+		}
+
+		return ids;
+	}
+
+	private void queryNames(String sql, Collection<String> names, Map<String, Long> ids) {
+
+		jdbcTemplate.query(connection -> {
+			PreparedStatement ps = connection.prepareStatement(sql);
+			Array array = connection.createArrayOf("varchar", names.toArray());
+			ps.setArray(1, array);
+			return ps;
+		}, rs -> {
+			ids.putIfAbsent(rs.getString("name"), rs.getLong("id"));
+		});
+	}
+}
@@ -1,22 +1,53 @@
 package com.foxminded.tasks.car_rest_service.repository;
 
-import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO;
 import com.foxminded.tasks.car_rest_service.entity.Car;
 import com.foxminded.tasks.car_rest_service.entity.Category;
 import com.foxminded.tasks.car_rest_service.entity.Make;
 import com.foxminded.tasks.car_rest_service.entity.Model;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car>, CarRepositoryCustom {
 
-	boolean existsByObjectId(String objectId);
+	/*
+	 * Cars are always mapped together with their make, model and category, so they are
+	 * fetch-joined instead of loading every association with a select of its own.
+	 */
+	@Override
+	@EntityGraph(attributePaths = { "make", "model", "category" })
+	Optional<Car> findById(Long id);
 
-	List<Car> findByMake_Id(Long id);
-	List<Car> findByModel_Id(Long id);
-	List<Car> findByCategory_Id(Long id);
+	@Query("""
+			select new com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO(c.version, mk.version,
+				md.version, ct.version)
+			from Car c join c.make mk join c.model md join c.category ct
+			where c.id = :id
+			""")
+	Optional<CarVersionDTO> findVersionById(@Param("id") Long id);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from car_service.car where make_id = :id", nativeQuery = true)
+	int deleteAllByMakeId(@Param("id") Long id);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from car_service.car where model_id = :id", nativeQuery = true)
+	int deleteAllByModelId(@Param("id") Long id);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from car_service.car where category_id = :id", nativeQuery = true)
+	int deleteAllByCategoryId(@Param("id") Long id);
 }
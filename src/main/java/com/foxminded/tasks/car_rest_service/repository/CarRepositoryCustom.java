@@ -0,0 +1,32 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.time.Year;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.entity.Car;
+import com.foxminded.tasks.car_rest_service.entity.Category;
+import com.foxminded.tasks.car_rest_service.entity.Make;
+import com.foxminded.tasks.car_rest_service.entity.Model;
+
+public interface CarRepositoryCustom {
+
+	Page<CarListItemDTO> findListItems(Specification<Car> specification, Pageable pageable);
+
+	Slice<CarListItemDTO> findListItemSlice(Specification<Car> specification, Pageable pageable);
+
+	Window<CarListItemDTO> findListItemsAfter(Specification<Car> specification, long afterId, int size);
+
+	Stream<CarDTO> streamCars(Specification<Car> specification, int fetchSize);
+
+	int updateMatching(Specification<Car> specification, Make make, Model model, Category category, Year year);
+
+	int deleteMatching(Specification<Car> specification);
+}
@@ -0,0 +1,271 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.entity.Car;
+import com.foxminded.tasks.car_rest_service.entity.Category;
+import com.foxminded.tasks.car_rest_service.entity.Make;
+import com.foxminded.tasks.car_rest_service.entity.Model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/*
+ * Selects the listed columns as tuples instead of entities, so rows never enter the
+ * persistence context and nothing is hydrated, tracked or dirty checked.
+ */
+public class CarRepositoryCustomImpl implements CarRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<CarListItemDTO> findListItems(Specification<Car> specification, Pageable pageable) {
+
+		List<CarListItemDTO> content = queryListItems(specification, pageable, 0);
+
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+	}
+
+	@Override
+	public Slice<CarListItemDTO> findListItemSlice(Specification<Car> specification, Pageable pageable) {
+
+		List<CarListItemDTO> content = queryListItems(specification, pageable, 1);
+
+		if (pageable.isUnpaged()) {
+			return new SliceImpl<>(content);
+		}
+
+		boolean hasNext = content.size() > pageable.getPageSize();
+
+		return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+	}
+
+	/*
+	 * Keyset variant of the listing: seeks past the last seen id instead of skipping an offset,
+	 * so every page costs the same however deep into the catalog it is.
+	 */
+	@Override
+	public Window<CarListItemDTO> findListItemsAfter(Specification<Car> specification, long afterId, int size) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+		Root<Car> root = query.from(Car.class);
+		Path<Long> id = root.get("id");
+		Path<String> make = root.get("make").get("name");
+		Path<String> model = root.get("model").get("name");
+		Path<String> category = root.get("category").get("name");
+		Path<Year> year = root.get("year");
+
+		query.multiselect(id, make, model, category, year);
+		Specification<Car> seek = (seekRoot, seekQuery, builder) -> builder.greaterThan(seekRoot.get("id"), afterId);
+		applySpecification(seek.and(specification), root, query, criteriaBuilder);
+		query.orderBy(criteriaBuilder.asc(id));
+
+		List<Tuple> rows = entityManager.createQuery(query)
+				.setMaxResults(size + 1)
+				.getResultList();
+		boolean hasNext = rows.size() > size;
+		List<Tuple> page = hasNext ? rows.subList(0, size) : rows;
+
+		List<CarListItemDTO> content = page.stream()
+				.map(tuple -> new CarListItemDTO(
+						tuple.get(make),
+						tuple.get(model),
+						tuple.get(category),
+						tuple.get(year).getValue()))
+				.toList();
+
+		return Window.from(content, index -> ScrollPosition.forward(Map.of("id", page.get(index).get(id))), hasNext);
+	}
+
+	/*
+	 * Rows are pulled from a server-side cursor fetchSize at a time and, being tuples, are
+	 * never kept by the persistence context, so memory stays flat however many cars match.
+	 * PostgreSQL only honours the fetch size inside a transaction, and the stream has to be
+	 * closed by the caller.
+	 */
+	@Override
+	public Stream<CarDTO> streamCars(Specification<Car> specification, int fetchSize) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+		Root<Car> root = query.from(Car.class);
+		Path<Long> id = root.get("id");
+		Path<String> make = root.get("make").get("name");
+		Path<String> model = root.get("model").get("name");
+		Path<String> category = root.get("category").get("name");
+		Path<Year> year = root.get("year");
+		Path<String> objectId = root.get("objectId");
+		Path<Long> version = root.get("version");
+
+		query.multiselect(id, make, model, category, year, objectId, version);
+		applySpecification(specification, root, query, criteriaBuilder);
+		query.orderBy(criteriaBuilder.asc(id));
+
+		return entityManager.createQuery(query)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream()
+				.map(tuple -> new CarDTO(
+						tuple.get(id),
+						tuple.get(make),
+						tuple.get(model),
+						tuple.get(category),
+						tuple.get(year).getValue(),
+						tuple.get(objectId),
+						tuple.get(version)));
+	}
+
+	/*
+	 * Bulk statements bypass the persistence context, so cars already loaded in the current
+	 * transaction keep their old state. Null arguments leave the column unchanged, and the
+	 * version of every matching car is incremented.
+	 */
+	@Override
+	@Transactional
+	public int updateMatching(Specification<Car> specification, Make make, Model model, Category category,
+			Year year) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Car> update = criteriaBuilder.createCriteriaUpdate(Car.class);
+		Root<Car> root = update.from(Car.class);
+
+		if (make != null) {
+			update.set(root.<Make>get("make"), entityManager.getReference(Make.class, make.getId()));
+		}
+		if (model != null) {
+			update.set(root.<Model>get("model"), entityManager.getReference(Model.class, model.getId()));
+		}
+		if (category != null) {
+			update.set(root.<Category>get("category"), entityManager.getReference(Category.class, category.getId()));
+		}
+		if (year != null) {
+			update.set(root.<Year>get("year"), year);
+		}
+
+		Path<Long> version = root.get("version");
+		update.set(version, criteriaBuilder.sum(version, 1L));
+		update.where(root.get("id").in(matchingIds(specification, update, criteriaBuilder)));
+
+		return entityManager.createQuery(update).executeUpdate();
+	}
+
+	@Override
+	@Transactional
+	public int deleteMatching(Specification<Car> specification) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaDelete<Car> delete = criteriaBuilder.createCriteriaDelete(Car.class);
+		Root<Car> root = delete.from(Car.class);
+
+		delete.where(root.get("id").in(matchingIds(specification, delete, criteriaBuilder)));
+
+		return entityManager.createQuery(delete).executeUpdate();
+	}
+
+	/*
+	 * The filters navigate to make, model and category names, which a bulk statement cannot
+	 * join directly, so the matching ids are selected in a subquery instead.
+	 */
+	private Subquery<Long> matchingIds(Specification<Car> specification, CommonAbstractCriteria statement,
+			CriteriaBuilder criteriaBuilder) {
+
+		Subquery<Long> subquery = statement.subquery(Long.class);
+		Root<Car> candidate = subquery.from(Car.class);
+		subquery.select(candidate.get("id"));
+
+		Predicate predicate = specification == null ? null : specification.toPredicate(candidate, null, criteriaBuilder);
+
+		if (predicate != null) {
+			subquery.where(predicate);
+		}
+
+		return subquery;
+	}
+
+	private List<CarListItemDTO> queryListItems(Specification<Car> specification, Pageable pageable,
+			int extraRows) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+		Root<Car> root = query.from(Car.class);
+		Path<String> make = root.get("make").get("name");
+		Path<String> model = root.get("model").get("name");
+		Path<String> category = root.get("category").get("name");
+		Path<Year> year = root.get("year");
+
+		query.multiselect(make, model, category, year);
+		applySpecification(specification, root, query, criteriaBuilder);
+
+		if (pageable.getSort().isSorted()) {
+			query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+		}
+
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+
+		if (pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize() + extraRows);
+		}
+
+		return typedQuery.getResultList().stream()
+				.map(tuple -> new CarListItemDTO(
+						tuple.get(make),
+						tuple.get(model),
+						tuple.get(category),
+						tuple.get(year).getValue()))
+				.toList();
+	}
+
+	private long count(Specification<Car> specification) {
+
+		CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+		Root<Car> root = query.from(Car.class);
+
+		query.select(criteriaBuilder.count(root));
+		applySpecification(specification, root, query, criteriaBuilder);
+
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	private void applySpecification(Specification<Car> specification, Root<Car> root, CriteriaQuery<?> query,
+			CriteriaBuilder criteriaBuilder) {
+
+		Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+
+		if (predicate != null) {
+			query.where(predicate);
+		}
+	}
+}
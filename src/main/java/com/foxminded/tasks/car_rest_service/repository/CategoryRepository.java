@@ -2,16 +2,45 @@ package com.foxminded.tasks.car_rest_service.repository;
 
 import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.foxminded.tasks.car_rest_service.entity.Category;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category> {
+public interface CategoryRepository extends ListingRepository<Category, Long> {
 	
-	Optional<Category> findByName(String name);
 	boolean existsByName(String name);
 
+	@Query("select c.version from Category c where c.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+
+	@Transactional
+	default Long upsertByName(String name) {
+
+		Long id = insertIfAbsent(name);
+
+		return id != null ? id : findIdByName(name);
+	}
+
+	@Transactional
+	@Query(value = """
+			insert into car_service.category (name)
+			select :name where not exists (select 1 from car_service.category where name = :name)
+			on conflict (name) do nothing
+			returning id
+			""", nativeQuery = true)
+	Long insertIfAbsent(@Param("name") String name);
+
+	@Query(value = "select id from car_service.category where name = :name", nativeQuery = true)
+	Long findIdByName(@Param("name") String name);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from car_service.category where id = :id", nativeQuery = true)
+	int deleteOneById(@Param("id") Long id);
+
 }
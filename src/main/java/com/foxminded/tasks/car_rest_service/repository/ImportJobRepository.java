@@ -0,0 +1,103 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			insert into car_service.import_job (id, state, mode, rows_imported, rows_rejected, updated_at)
+			values (:id, 'PENDING', :mode, 0, 0, now())
+			on conflict (id) do nothing
+			""", nativeQuery = true)
+	int createIfAbsent(@Param("id") String id, @Param("mode") String mode);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			insert into car_service.import_job (id, state, mode, owner, lease_until, rows_imported, rows_rejected,
+				updated_at)
+			values (:id, 'PENDING', :mode, :owner, now() + :leaseSeconds * interval '1 second', 0, 0, now())
+			""", nativeQuery = true)
+	int createLeased(@Param("id") String id, @Param("mode") String mode, @Param("owner") String owner,
+			@Param("leaseSeconds") long leaseSeconds);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set lease_until = now() + :leaseSeconds * interval '1 second', updated_at = now()
+			where id in (:ids) and owner = :owner and state in ('PENDING', 'IMPORTING')
+			""", nativeQuery = true)
+	int extendLeases(@Param("ids") Collection<String> ids, @Param("owner") String owner,
+			@Param("leaseSeconds") long leaseSeconds);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set state = 'FAILED', error = 'Node ' || owner || ' went away before the job finished',
+				lease_until = null, finished_at = now(), updated_at = now()
+			where id <> :excludedId and state in ('PENDING', 'IMPORTING') and lease_until < now()
+			""", nativeQuery = true)
+	int failExpired(@Param("excludedId") String excludedId);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set state = 'IMPORTING', owner = :owner, error = null, finished_at = null,
+				lease_until = now() + :leaseSeconds * interval '1 second',
+				started_at = coalesce(started_at, now()), updated_at = now()
+			where id = :id
+			and (state in ('PENDING', 'FAILED') or (state = 'IMPORTING' and lease_until < now()))
+			""", nativeQuery = true)
+	int acquireLease(@Param("id") String id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set rows_total = :rowsTotal, rows_imported = :rowsImported, rows_rejected = :rowsRejected,
+				checkpoint = :checkpoint, lease_until = now() + :leaseSeconds * interval '1 second', updated_at = now()
+			where id = :id and owner = :owner and state = 'IMPORTING'
+			""", nativeQuery = true)
+	int renewLease(@Param("id") String id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds,
+			@Param("rowsTotal") long rowsTotal, @Param("rowsImported") long rowsImported,
+			@Param("rowsRejected") long rowsRejected, @Param("checkpoint") long checkpoint);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set source = :source, checkpoint = 0, rows_imported = 0, rows_rejected = 0, updated_at = now()
+			where id = :id and owner = :owner
+			""", nativeQuery = true)
+	int resetCheckpoint(@Param("id") String id, @Param("owner") String owner, @Param("source") String source);
+
+	@Transactional
+	@Modifying
+	@Query(value = """
+			update car_service.import_job
+			set state = :state, error = :error, rows_imported = :rowsImported, rows_rejected = :rowsRejected,
+				rows_updated = :rowsUpdated, rows_deleted = :rowsDeleted, rows_unchanged = :rowsUnchanged,
+				lease_until = null, finished_at = now(), updated_at = now()
+			where id = :id and owner = :owner
+			""", nativeQuery = true)
+	int releaseLease(@Param("id") String id, @Param("owner") String owner, @Param("state") String state,
+			@Param("error") String error, @Param("rowsImported") long rowsImported,
+			@Param("rowsRejected") long rowsRejected, @Param("rowsUpdated") long rowsUpdated,
+			@Param("rowsDeleted") long rowsDeleted, @Param("rowsUnchanged") long rowsUnchanged);
+}
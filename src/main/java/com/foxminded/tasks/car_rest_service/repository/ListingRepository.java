@@ -0,0 +1,14 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+@NoRepositoryBean
+public interface ListingRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+	Slice<T> findSlice(Specification<T> specification, Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+/*
+ * Repository base class adding slices to specification queries: one row more than the page
+ * is fetched to tell whether a next page exists, and no count query is run.
+ */
+public class ListingRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements ListingRepository<T, ID> {
+
+	public ListingRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+		super(entityInformation, entityManager);
+	}
+
+	@Override
+	public Slice<T> findSlice(Specification<T> specification, Pageable pageable) {
+
+		TypedQuery<T> query = getQuery(specification, pageable.getSort());
+
+		if (pageable.isUnpaged()) {
+			return new SliceImpl<>(query.getResultList());
+		}
+
+		query.setFirstResult((int) pageable.getOffset());
+		query.setMaxResults(pageable.getPageSize() + 1);
+
+		List<T> content = query.getResultList();
+		boolean hasNext = content.size() > pageable.getPageSize();
+
+		return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+	}
+}
@@ -2,16 +2,50 @@ package com.foxminded.tasks.car_rest_service.repository;
 
 import java.util.Optional;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.foxminded.tasks.car_rest_service.entity.Make;
 
 @Repository
-public interface MakeRepository extends JpaRepository<Make, Long>, JpaSpecificationExecutor<Make> {
+public interface MakeRepository extends ListingRepository<Make, Long> {
 	
-	Optional<Make> findByName(String name);
 	boolean existsByName(String name);
 
+	@Query("select m.version from Make m where m.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+
+	/*
+	 * Existing names are not written to, so resolving them locks nothing. The insert returns no
+	 * row when the name exists, and the select that follows also sees a row that a concurrent
+	 * transaction committed while the insert waited on it.
+	 */
+	@Transactional
+	default Long upsertByName(String name) {
+
+		Long id = insertIfAbsent(name);
+
+		return id != null ? id : findIdByName(name);
+	}
+
+	@Transactional
+	@Query(value = """
+			insert into car_service.make (name)
+			select :name where not exists (select 1 from car_service.make where name = :name)
+			on conflict (name) do nothing
+			returning id
+			""", nativeQuery = true)
+	Long insertIfAbsent(@Param("name") String name);
+
+	@Query(value = "select id from car_service.make where name = :name", nativeQuery = true)
+	Long findIdByName(@Param("name") String name);
+
+	@Transactional
+	@Modifying
+	@Query(value = "delete from car_service.make where id = :id", nativeQuery = true)
+	int deleteOneById(@Param("id") Long id);
+
 }
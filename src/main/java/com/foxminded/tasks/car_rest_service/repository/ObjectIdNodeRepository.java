@@ -0,0 +1,51 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ObjectIdNodeRepository {
+
+	/*
+	 * A free id is picked at random so nodes starting together rarely race for the same one.
+	 * The loser of a race finds the lease taken when the conflict is re-checked and gets no row.
+	 */
+	private static final String LEASE_SQL = """
+			insert into car_service.object_id_node (node_id, owner, lease_until)
+			select n, ?, now() + ? * interval '1 second'
+			from generate_series(0, ?) n
+			where not exists (
+				select 1 from car_service.object_id_node o where o.node_id = n and o.lease_until >= now())
+			order by random()
+			limit 1
+			on conflict (node_id) do update set owner = excluded.owner, lease_until = excluded.lease_until
+			where car_service.object_id_node.lease_until < now()
+			returning node_id
+			""";
+
+	private static final String RENEW_SQL = """
+			update car_service.object_id_node set lease_until = now() + ? * interval '1 second'
+			where node_id = ? and owner = ?
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public ObjectIdNodeRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public Optional<Long> lease(String owner, long leaseSeconds, long maxNodeId) {
+
+		return jdbcTemplate.query(LEASE_SQL, rs -> rs.next() ? Optional.of(rs.getLong(1)) : Optional.empty(),
+				owner, leaseSeconds, maxNodeId);
+	}
+
+	public int renew(long nodeId, String owner, long leaseSeconds) {
+
+		return jdbcTemplate.update(RENEW_SQL, leaseSeconds, nodeId, owner);
+	}
+}
@@ -40,9 +40,11 @@ public class SecurityConfig {
 		http
 			.csrf(csrf -> csrf.disable())
 			.authorizeHttpRequests(authorizeRequests -> authorizeRequests
+				.requestMatchers(HttpMethod.GET, "/api/v1/imports/**").authenticated()
 				.requestMatchers(HttpMethod.GET, "/**").permitAll()
 				.requestMatchers(HttpMethod.POST, "/**").authenticated()
 				.requestMatchers(HttpMethod.PUT, "/**").authenticated()
+				.requestMatchers(HttpMethod.PATCH, "/**").authenticated()
 				.requestMatchers(HttpMethod.DELETE, "/**").authenticated())
 				.oauth2ResourceServer(oauth2 -> oauth2
 						.jwt(jwt -> jwt.decoder(jwtDecoder())));
@@ -56,6 +58,7 @@ public class SecurityConfig {
                 HttpMethod.GET.name(),
                 HttpMethod.PUT.name(),
                 HttpMethod.POST.name(),
+                HttpMethod.PATCH.name(),
                 HttpMethod.DELETE.name()
         ));
 
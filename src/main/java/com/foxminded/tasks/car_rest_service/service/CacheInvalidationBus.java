@@ -0,0 +1,300 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+/**
+ * Keeps the in-process caches of all nodes in step over PostgreSQL LISTEN/NOTIFY. Catalog
+ * version bumps and dictionary invalidations are sent as notifications, which PostgreSQL only
+ * delivers once the surrounding transaction commits. Each node listens on a dedicated
+ * connection and applies what the other nodes sent. Notifications sent while a node is not
+ * listening are lost, so every time it starts listening it flushes its caches.
+ * <p>
+ * LISTEN needs a session of its own, so the listener opens a direct connection outside the
+ * pool ({@code car-service.cache-bus.url}). Behind a transaction pooler, as the render profile
+ * suggests, that url has to point at the database itself. A pooler accepts LISTEN but never
+ * delivers the notifications, so the bus checks delivery with a probe. Until the probe comes
+ * back, and whenever the listener loses its connection, the caches are bypassed and the
+ * listener keeps retrying.
+ */
+@Component
+public class CacheInvalidationBus implements SmartLifecycle, DictionaryCache.InvalidationListener {
+
+	static final String CHANNEL = "car_service_cache";
+
+	private static final String NOTIFY_SQL = "select pg_notify(?, ?)";
+	private static final String CATALOG = "catalog";
+	private static final String NAME = "name";
+	private static final String ID = "id";
+	private static final String PROBE = "probe";
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final JdbcTemplate jdbcTemplate;
+	private final CatalogVersion catalogVersion;
+	private final DictionaryCache dictionaryCache;
+	private final boolean enabled;
+	private final int pollMillis;
+	private final long reconnectMillis;
+	private volatile boolean running;
+	private volatile Connection connection;
+	private Thread listener;
+	Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+	@Autowired
+	public CacheInvalidationBus(JdbcTemplate jdbcTemplate, CatalogVersion catalogVersion,
+			DictionaryCache dictionaryCache,
+			@Value("${car-service.cache-bus.enabled:true}") boolean enabled,
+			@Value("${car-service.cache-bus.url:${spring.datasource.url:}}") String url,
+			@Value("${car-service.cache-bus.username:${spring.datasource.username:}}") String username,
+			@Value("${car-service.cache-bus.password:${spring.datasource.password:}}") String password,
+			@Value("${car-service.cache-bus.poll-ms:10000}") int pollMillis,
+			@Value("${car-service.cache-bus.reconnect-ms:5000}") long reconnectMillis) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.jdbcTemplate = jdbcTemplate;
+		this.catalogVersion = catalogVersion;
+		this.dictionaryCache = dictionaryCache;
+		this.enabled = enabled;
+		this.pollMillis = pollMillis;
+		this.reconnectMillis = reconnectMillis;
+
+		if (enabled) {
+			markUnsynced();
+			catalogVersion.addBumpListener(() -> publish(CATALOG));
+			dictionaryCache.addInvalidationListener(this);
+
+		} else {
+			catalogVersion.setSynced(true);
+		}
+	}
+
+	@Override
+	public void nameInvalidated(Dictionary dictionary, String name) {
+
+		publish(NAME + ";" + dictionary + ";" + name);
+	}
+
+	@Override
+	public void idInvalidated(Dictionary dictionary, Long id) {
+
+		publish(ID + ";" + dictionary + ";" + id);
+	}
+
+	/*
+	 * The connection is opened and probed on the listener thread, so a database that is slow
+	 * to answer does not hold up the start of the context. The caches stay bypassed meanwhile.
+	 */
+	@Override
+	public void start() {
+
+		if (!enabled) {
+			return;
+		}
+
+		running = true;
+		listener = new Thread(this::listen, "cache-invalidation-listener");
+		listener.setDaemon(true);
+		listener.start();
+	}
+
+	/*
+	 * Closing the connection wakes a listener that is waiting for notifications on it.
+	 */
+	@Override
+	public void stop() {
+
+		running = false;
+
+		if (listener != null) {
+			listener.interrupt();
+		}
+
+		closeQuietly(connection);
+	}
+
+	@Override
+	public boolean isRunning() {
+
+		return running;
+	}
+
+	/*
+	 * Runs on the caller's connection, so inside a transaction the notification goes out on
+	 * commit and is dropped on rollback.
+	 */
+	private void publish(String message) {
+
+		jdbcTemplate.query(NOTIFY_SQL, rs -> {}, CHANNEL, catalogVersion.getNodeId() + ";" + message);
+	}
+
+	private void listen() {
+
+		boolean listened = false;
+
+		while (running) {
+			try (Connection connection = openListener()) {
+
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				flushAll();
+				catalogVersion.setSynced(true);
+				dictionaryCache.resume();
+				listened = true;
+				logger.info("Node {} is listening for cache invalidations.", catalogVersion.getNodeId());
+
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+
+					if (notifications == null || notifications.length == 0) {
+						if (!connection.isValid(5)) {
+							throw new SQLException("Cache invalidation connection is no longer valid");
+						}
+						continue;
+					}
+
+					for (PGNotification notification : notifications) {
+						apply(notification.getParameter());
+					}
+				}
+
+			} catch (SQLException | RuntimeException e) {
+				if (!running) {
+					return;
+				}
+				markUnsynced();
+
+				if (listened) {
+					logger.error("Cache invalidation listener failed, caches are bypassed, reconnecting in {} ms.",
+							reconnectMillis, e);
+				} else {
+					logger.error("Cache invalidation bus cannot listen on {}, caches are bypassed until it can. It "
+							+ "needs a session-level connection, set car-service.cache-bus.url to one.", url, e);
+				}
+
+				try {
+					Thread.sleep(reconnectMillis);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/*
+	 * The connection is published before it is probed, so stop() can close it at any point, and
+	 * a stop that came before it was published is seen here.
+	 */
+	private Connection openListener() throws SQLException {
+
+		Connection opened = DriverManager.getConnection(url, username, password);
+		connection = opened;
+
+		try (Statement statement = opened.createStatement()) {
+			if (!running) {
+				throw new SQLException("Cache invalidation bus is stopping");
+			}
+			statement.execute("listen " + CHANNEL);
+			awaitProbe(opened.unwrap(PGConnection.class));
+			return opened;
+
+		} catch (SQLException | RuntimeException e) {
+			opened.close();
+			throw e;
+		}
+	}
+
+	/*
+	 * The probe goes out through the pool like every other notification, so it only comes back
+	 * when the listener really receives what the application publishes.
+	 */
+	private void awaitProbe(PGConnection pgConnection) throws SQLException {
+
+		String probe = catalogVersion.getNodeId() + ";" + PROBE + ";" + UUID.randomUUID();
+		jdbcTemplate.query(NOTIFY_SQL, rs -> {}, CHANNEL, probe);
+		long deadline = System.currentTimeMillis() + pollMillis;
+
+		for (long wait = pollMillis; wait > 0; wait = deadline - System.currentTimeMillis()) {
+			PGNotification[] notifications = pgConnection.getNotifications((int) wait);
+
+			if (notifications == null) {
+				continue;
+			}
+
+			for (PGNotification notification : notifications) {
+				if (probe.equals(notification.getParameter())) {
+					return;
+				}
+				apply(notification.getParameter());
+			}
+		}
+
+		throw new SQLException("LISTEN on " + url + " did not receive a probe notification within " + pollMillis
+				+ " ms, the connection is probably transaction-pooled");
+	}
+
+	void apply(String payload) {
+
+		String[] parts = payload.split(";", 4);
+
+		if (parts[0].equals(catalogVersion.getNodeId())) {
+			return;
+		}
+
+		try {
+			switch (parts[1]) {
+				case CATALOG -> catalogVersion.advance();
+				case NAME -> dictionaryCache.evict(Dictionary.valueOf(parts[2]), parts[3]);
+				case ID -> dictionaryCache.evictId(Dictionary.valueOf(parts[2]), Long.valueOf(parts[3]));
+				case PROBE -> {
+				}
+				default -> logger.warn("Ignoring unknown cache invalidation {}.", payload);
+			}
+		} catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+			logger.warn("Ignoring malformed cache invalidation {}.", payload);
+		}
+	}
+
+	private void markUnsynced() {
+
+		catalogVersion.setSynced(false);
+		dictionaryCache.suspend();
+	}
+
+	private void flushAll() {
+
+		catalogVersion.advance();
+		dictionaryCache.evictAll();
+	}
+
+	private void closeQuietly(Connection connection) {
+
+		if (connection == null) {
+			return;
+		}
+
+		try {
+			connection.close();
+
+		} catch (SQLException e) {
+			logger.warn("Unable to close the cache invalidation connection.", e);
+		}
+	}
+}
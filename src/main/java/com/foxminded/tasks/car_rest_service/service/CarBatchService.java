@@ -0,0 +1,215 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarJdbcRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+/**
+ * Creates many cars per request: dictionary names are resolved once for the whole batch and
+ * the cars are inserted with one statement. In atomic mode any failed item rolls the batch
+ * back, otherwise the valid items are created and the failed ones are reported.
+ */
+@Service
+public class CarBatchService {
+
+	static final String ROLLED_BACK = "Not created, another item of the atomic batch failed";
+
+	/* Length of the varchar columns the names and the objectId are stored in. */
+	static final int MAX_LENGTH = 255;
+
+	private CarJdbcRepository carJdbcRepository;
+	private TransactionTemplate transactionTemplate;
+	private DictionaryCache dictionaryCache;
+	private ObjectIdGenerator objectIdGenerator;
+	private CatalogVersion catalogVersion;
+	private final int maxSize;
+	Logger logger = LoggerFactory.getLogger(CarBatchService.class);
+
+	@Autowired
+	public CarBatchService(CarJdbcRepository carJdbcRepository, TransactionTemplate transactionTemplate,
+			DictionaryCache dictionaryCache, ObjectIdGenerator objectIdGenerator, CatalogVersion catalogVersion,
+			@Value("${car-service.batch.max-size:10000}") int maxSize) {
+		this.carJdbcRepository = carJdbcRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.dictionaryCache = dictionaryCache;
+		this.objectIdGenerator = objectIdGenerator;
+		this.catalogVersion = catalogVersion;
+		this.maxSize = maxSize;
+	}
+
+	public CarBatchResultDTO createCars(List<CreateCarDTO> cars, boolean atomic) {
+
+		if (cars.isEmpty() || cars.size() > maxSize) {
+			logger.error("Batch of {} cars is not valid.", cars.size());
+			throw new IllegalArgumentException("Batch must contain from 1 to " + maxSize + " cars");
+		}
+
+		CarBatchItemDTO[] items = new CarBatchItemDTO[cars.size()];
+		List<Integer> pendingIndexes = new ArrayList<>();
+		List<CreateCarDTO> pendingCars = new ArrayList<>();
+		Set<String> objectIds = new HashSet<>();
+
+		for (int i = 0; i < cars.size(); i++) {
+			CreateCarDTO car = cars.get(i);
+			String error = validate(car);
+
+			if (error == null) {
+				String objectId = car.getObjectId() == null || car.getObjectId().isBlank()
+						? objectIdGenerator.next()
+						: car.getObjectId();
+
+				if (objectIds.add(objectId)) {
+					pendingIndexes.add(i);
+					pendingCars.add(new CreateCarDTO(DictionaryCache.normalize(car.getMake()),
+							DictionaryCache.normalize(car.getModel()), DictionaryCache.normalize(car.getCategory()),
+							car.getYear(), objectId));
+					continue;
+				}
+				error = "objectId " + objectId + " is repeated in the batch";
+			}
+
+			items[i] = new CarBatchItemDTO(i, null, car == null ? null : car.getObjectId(), error);
+		}
+
+		if (atomic && pendingCars.size() < cars.size()) {
+			pendingIndexes.forEach(i -> items[i] = new CarBatchItemDTO(i, null, cars.get(i).getObjectId(), ROLLED_BACK));
+			return result(atomic, items);
+		}
+
+		if (!pendingCars.isEmpty()) {
+			insert(pendingIndexes, pendingCars, atomic, items);
+		}
+
+		return result(atomic, items);
+	}
+
+	private void insert(List<Integer> pendingIndexes, List<CreateCarDTO> pendingCars, boolean atomic,
+			CarBatchItemDTO[] items) {
+
+		Map<Dictionary, Map<String, Long>> resolved = new HashMap<>();
+
+		Map<String, Long> carIds = transactionTemplate.execute(status -> {
+			Map<String, Long> makeIds = resolveIds(Dictionary.MAKE, pendingCars, CreateCarDTO::getMake,
+					carJdbcRepository::resolveMakeIds, resolved);
+			Map<String, Long> modelIds = resolveIds(Dictionary.MODEL, pendingCars, CreateCarDTO::getModel,
+					carJdbcRepository::resolveModelIds, resolved);
+			Map<String, Long> categoryIds = resolveIds(Dictionary.CATEGORY, pendingCars, CreateCarDTO::getCategory,
+					carJdbcRepository::resolveCategoryIds, resolved);
+
+			Map<String, Long> inserted = carJdbcRepository.insertCarsReturningIds(pendingCars, makeIds, modelIds,
+					categoryIds);
+
+			if (atomic && inserted.size() < pendingCars.size()) {
+				status.setRollbackOnly();
+			}
+			return inserted;
+		});
+
+		boolean rolledBack = atomic && carIds.size() < pendingCars.size();
+
+		for (int p = 0; p < pendingCars.size(); p++) {
+			int i = pendingIndexes.get(p);
+			String objectId = pendingCars.get(p).getObjectId();
+			Long id = carIds.get(objectId);
+
+			if (id == null) {
+				items[i] = new CarBatchItemDTO(i, null, objectId, "Car with objectId " + objectId + " already exists");
+			} else if (rolledBack) {
+				items[i] = new CarBatchItemDTO(i, null, objectId, ROLLED_BACK);
+			} else {
+				items[i] = new CarBatchItemDTO(i, id, objectId, null);
+			}
+		}
+
+		if (!rolledBack) {
+			resolved.forEach(dictionaryCache::putAll);
+			catalogVersion.bump();
+		}
+	}
+
+	/*
+	 * Names already in the dictionary cache are not looked up again. Ids resolved in the batch
+	 * transaction are collected in resolved and cached only after it commits, since a rollback
+	 * may remove the rows they point to.
+	 */
+	private Map<String, Long> resolveIds(Dictionary dictionary, List<CreateCarDTO> cars,
+			Function<CreateCarDTO, String> nameGetter, Function<Collection<String>, Map<String, Long>> resolver,
+			Map<Dictionary, Map<String, Long>> resolved) {
+
+		Set<String> names = new HashSet<>();
+		cars.forEach(car -> names.add(nameGetter.apply(car)));
+
+		Map<String, Long> ids = new HashMap<>(dictionaryCache.getAllPresent(dictionary, names));
+		names.removeAll(ids.keySet());
+
+		if (!names.isEmpty()) {
+			Map<String, Long> resolvedIds = resolver.apply(names);
+			ids.putAll(resolvedIds);
+			resolved.put(dictionary, resolvedIds);
+		}
+
+		return ids;
+	}
+
+	private String validate(CreateCarDTO car) {
+
+		if (car == null) {
+			return "Car is missing";
+		}
+		if (car.getMake() == null || car.getMake().isBlank()) {
+			return "make is required";
+		}
+		if (car.getModel() == null || car.getModel().isBlank()) {
+			return "model is required";
+		}
+		if (car.getCategory() == null || car.getCategory().isBlank()) {
+			return "category is required";
+		}
+		if (car.getYear() <= 0) {
+			return "year is required";
+		}
+		if (tooLong(DictionaryCache.normalize(car.getMake()))) {
+			return "make is longer than " + MAX_LENGTH + " characters";
+		}
+		if (tooLong(DictionaryCache.normalize(car.getModel()))) {
+			return "model is longer than " + MAX_LENGTH + " characters";
+		}
+		if (tooLong(DictionaryCache.normalize(car.getCategory()))) {
+			return "category is longer than " + MAX_LENGTH + " characters";
+		}
+		if (car.getObjectId() != null && tooLong(car.getObjectId())) {
+			return "objectId is longer than " + MAX_LENGTH + " characters";
+		}
+		return null;
+	}
+
+	private boolean tooLong(String value) {
+		return value.length() > MAX_LENGTH;
+	}
+
+	private CarBatchResultDTO result(boolean atomic, CarBatchItemDTO[] items) {
+
+		int created = (int) Arrays.stream(items).filter(item -> item.getError() == null).count();
+
+		return new CarBatchResultDTO(atomic, created, items.length - created, List.of(items));
+	}
+}
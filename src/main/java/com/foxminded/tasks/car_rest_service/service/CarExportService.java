@@ -0,0 +1,88 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarRepository;
+import com.foxminded.tasks.car_rest_service.specification.CarSpecification;
+
+/**
+ * Writes every car matching the listing filters to a stream, one row at a time, so the whole
+ * catalog can be pulled in a single request without holding it in memory.
+ */
+@Service
+public class CarExportService {
+
+	private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+			.setHeader("objectId", "Make", "Year", "Model", "Category")
+			.build();
+
+	private final CarRepository carRepository;
+	private final ObjectWriter carWriter;
+	private final int fetchSize;
+	Logger logger = LoggerFactory.getLogger(CarExportService.class);
+
+	@Autowired
+	public CarExportService(CarRepository carRepository, ObjectMapper objectMapper,
+			@Value("${car-service.export.fetch-size:1000}") int fetchSize) {
+		this.carRepository = carRepository;
+		this.carWriter = objectMapper.writerFor(CarDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		this.fetchSize = fetchSize;
+	}
+
+	/*
+	 * Read only and in one transaction, which keeps the server-side cursor open for the
+	 * duration of the export. The output stream is flushed but not closed.
+	 */
+	@Transactional(readOnly = true)
+	public long exportCars(String makeName, String modelName, String categoryName, Integer year,
+			ExportFormat format, OutputStream out) throws IOException {
+
+		long started = System.nanoTime();
+		long rows = 0;
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+		try (Stream<CarDTO> cars = carRepository.streamCars(
+				CarSpecification.filter(makeName, modelName, categoryName, year), fetchSize)) {
+
+			if (format == ExportFormat.CSV) {
+				CSVPrinter printer = new CSVPrinter(writer, CSV_FORMAT);
+
+				for (CarDTO car : (Iterable<CarDTO>) cars::iterator) {
+					printer.printRecord(car.getObjectId(), car.getMake(), car.getYear(), car.getModel(),
+							car.getCategory());
+					rows++;
+				}
+			} else {
+				for (CarDTO car : (Iterable<CarDTO>) cars::iterator) {
+					carWriter.writeValue(writer, car);
+					writer.write('\n');
+					rows++;
+				}
+			}
+		}
+
+		writer.flush();
+		logger.info("Exported {} cars as {} in {} ms.", rows, format, (System.nanoTime() - started) / 1_000_000);
+
+		return rows;
+	}
+}
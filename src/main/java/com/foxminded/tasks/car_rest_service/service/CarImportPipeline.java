@@ -0,0 +1,559 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportReportDTO;
+import com.foxminded.tasks.car_rest_service.dto.importing.SyncReportDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarJdbcRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+/**
+ * Imports a CSV catalog through three stages connected by bounded queues: the calling thread
+ * cuts the raw text into chunks at record boundaries, parser workers run the CSV parser over
+ * the chunks and convert the records, and writer workers insert them, each chunk in its own
+ * transaction. Since writers commit out
+ * of order, the checkpoint only advances over the contiguous run of committed chunks.
+ */
+@Component
+public class CarImportPipeline {
+
+	private static final long POLL_MILLIS = 100;
+	private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.builder()
+			.setHeader()
+			.setSkipHeaderRecord(true)
+			.build();
+
+	private CarJdbcRepository carJdbcRepository;
+	private TransactionTemplate transactionTemplate;
+	private CatalogVersion catalogVersion;
+	private DictionaryCache dictionaryCache;
+	private final int batchSize;
+	private final int parserThreads;
+	private final int writerThreads;
+	private final int queueCapacity;
+	Logger logger = LoggerFactory.getLogger(CarImportPipeline.class);
+
+	@Autowired
+	public CarImportPipeline(CarJdbcRepository carJdbcRepository, TransactionTemplate transactionTemplate,
+			CatalogVersion catalogVersion, DictionaryCache dictionaryCache,
+			@Value("${car-service.import.batch-size:1000}") int batchSize,
+			@Value("${car-service.import.parser-threads:2}") int parserThreads,
+			@Value("${car-service.import.writer-threads:4}") int writerThreads,
+			@Value("${car-service.import.queue-capacity:8}") int queueCapacity) {
+		this.carJdbcRepository = carJdbcRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.catalogVersion = catalogVersion;
+		this.dictionaryCache = dictionaryCache;
+		this.batchSize = Math.max(batchSize, 1);
+		this.parserThreads = Math.max(parserThreads, 1);
+		this.writerThreads = Math.max(writerThreads, 1);
+		this.queueCapacity = Math.max(queueCapacity, 1);
+	}
+
+	/*
+	 * The catalog version moves once, after the writers are done, rather than with every chunk.
+	 * An import that fails after committing some chunks moves it as well.
+	 */
+	public ImportReportDTO run(Reader reader, ImportProgress progress, Consumer<ImportProgress> onChunkCommit)
+			throws Exception {
+
+		long startedAt = System.nanoTime();
+		Run run = new Run(progress, onChunkCommit);
+		ExecutorService parsers = Executors.newFixedThreadPool(parserThreads,
+				new CustomizableThreadFactory("import-parser-"));
+		ExecutorService writers = Executors.newFixedThreadPool(writerThreads,
+				new CustomizableThreadFactory("import-writer-"));
+
+		try {
+			for (int i = 0; i < parserThreads; i++) {
+				parsers.execute(run::parse);
+			}
+			for (int i = 0; i < writerThreads; i++) {
+				writers.execute(run::write);
+			}
+
+			run.read(reader);
+
+			parsers.shutdown();
+			writers.shutdown();
+			parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			writers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			run.fail(e);
+
+		} finally {
+			parsers.shutdownNow();
+			writers.shutdownNow();
+		}
+
+		if (run.imported.get() > 0) {
+			catalogVersion.bump();
+		}
+
+		if (run.failure.get() != null) {
+			throw run.failure.get();
+		}
+
+		long imported = run.imported.get();
+		long rejected = run.rejected.get();
+		long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+		double rowsPerSecond = elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+
+		logger.info("Imported {} cars ({} rejected) in {} ms, {} rows/s.", imported, rejected, elapsedMillis,
+				Math.round(rowsPerSecond));
+
+		return new ImportReportDTO(imported, rejected, elapsedMillis, rowsPerSecond);
+	}
+
+	/**
+	 * Diffs the file against existing cars by objectId instead of appending it. Records are staged
+	 * under the job's id, each chunk committed by its own statement, so no transaction stays open
+	 * while the file is read. Only the reconcile runs in one final transaction: new cars are
+	 * inserted, changed cars updated and, if requested, cars missing from the file deleted, each
+	 * with one set-based statement. When an objectId occurs more than once, its first record wins
+	 * and the later ones are reported as rejected.
+	 */
+	public SyncReportDTO sync(String jobId, Reader reader, ImportProgress progress, boolean deleteMissing,
+			Consumer<ImportProgress> onChunkStaged) throws IOException {
+
+		long startedAt = System.nanoTime();
+		Iterable<CSVRecord> records = CSV_FORMAT.parse(reader);
+		SyncReportDTO report;
+
+		carJdbcRepository.purgeSyncStages(jobId);
+
+		try {
+			long staged = 0;
+			List<CreateCarDTO> chunk = new ArrayList<>(batchSize);
+
+			for (CSVRecord rec : records) {
+				CreateCarDTO car = toCar(rec);
+
+				if (car == null) {
+					progress.addRejected(1);
+					continue;
+				}
+
+				chunk.add(car);
+
+				if (chunk.size() >= batchSize) {
+					staged += stage(jobId, chunk, progress);
+					chunk.clear();
+					onChunkStaged.accept(progress);
+				}
+			}
+
+			if (!chunk.isEmpty()) {
+				staged += stage(jobId, chunk, progress);
+				onChunkStaged.accept(progress);
+			}
+
+			if (staged == 0 && deleteMissing) {
+				throw new IllegalArgumentException("Sync file has no valid records, refusing to delete all cars");
+			}
+
+			long stagedCars = staged;
+
+			report = transactionTemplate.execute(status -> {
+
+				carJdbcRepository.resolveStagedNames(jobId);
+				long updated = carJdbcRepository.updateChangedCars(jobId);
+				long inserted = carJdbcRepository.insertNewCars(jobId);
+				long deleted = deleteMissing ? carJdbcRepository.deleteMissingCars(jobId) : 0;
+
+				return new SyncReportDTO(inserted, updated, deleted, stagedCars - inserted - updated,
+						progress.getRowsRejected(), 0);
+			});
+
+		} finally {
+			carJdbcRepository.clearSyncStage(jobId);
+		}
+
+		catalogVersion.bump();
+		report.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+		progress.setRowsImported(report.getRowsInserted());
+		progress.setRowsUpdated(report.getRowsUpdated());
+		progress.setRowsDeleted(report.getRowsDeleted());
+		progress.setRowsUnchanged(report.getRowsUnchanged());
+
+		logger.info("Synced cars in {} ms: {} inserted, {} updated, {} deleted, {} unchanged, {} rejected.",
+				report.getElapsedMillis(), report.getRowsInserted(), report.getRowsUpdated(),
+				report.getRowsDeleted(), report.getRowsUnchanged(), report.getRowsRejected());
+
+		return report;
+	}
+
+	private int stage(String jobId, List<CreateCarDTO> chunk, ImportProgress progress) {
+
+		int staged = carJdbcRepository.stageCars(jobId, chunk);
+		int duplicates = chunk.size() - staged;
+
+		if (duplicates > 0) {
+			logger.warn("Skipping {} records whose objectId is already in the sync file.", duplicates);
+			progress.addRejected(duplicates);
+		}
+		return staged;
+	}
+
+	private CreateCarDTO toCar(CSVRecord rec) {
+
+		if (isEmptyRecord(rec) || !rec.isConsistent()) {
+			logger.warn("Skipping empty or malformed record: {} ", rec);
+			return null;
+		}
+
+		try {
+			String objectId = rec.get("objectId");
+
+			if (objectId.isBlank()) {
+				logger.warn("Skipping record without objectId: {} ", rec);
+				return null;
+			}
+
+			return new CreateCarDTO(DictionaryCache.normalize(rec.get("Make")),
+					DictionaryCache.normalize(rec.get("Model")), DictionaryCache.normalize(rec.get("Category")),
+					Integer.parseInt(rec.get("Year")), objectId);
+
+		} catch (IllegalArgumentException e) {
+			logger.warn("Skipping malformed record: {} ", rec);
+			return null;
+		}
+	}
+
+	private boolean isEmptyRecord(CSVRecord rec) {
+
+		return rec.size() == 0 || rec.stream().allMatch(String::isEmpty);
+	}
+
+	private final class Run {
+
+		private final ImportProgress progress;
+		private final Consumer<ImportProgress> onChunkCommit;
+		private final BlockingQueue<RawChunk> rawChunks = new ArrayBlockingQueue<>(queueCapacity);
+		private final BlockingQueue<ParsedChunk> parsedChunks = new ArrayBlockingQueue<>(queueCapacity);
+		private final AtomicInteger runningParsers = new AtomicInteger(parserThreads);
+		private final Map<String, Long> makeIds = new ConcurrentHashMap<>();
+		private final Map<String, Long> modelIds = new ConcurrentHashMap<>();
+		private final Map<String, Long> categoryIds = new ConcurrentHashMap<>();
+		private final AtomicLong imported = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicReference<Exception> failure = new AtomicReference<>();
+		private final AtomicBoolean reporting = new AtomicBoolean();
+		private final Map<Long, ParsedChunk> committed = new HashMap<>();
+		private long nextSequence;
+
+		private Run(ImportProgress progress, Consumer<ImportProgress> onChunkCommit) {
+			this.progress = progress;
+			this.onChunkCommit = onChunkCommit;
+		}
+
+		/*
+		 * Only scans for line breaks outside quoted fields, which is all it takes to find where a
+		 * record ends, and leaves the tokenizing to the parser workers. The checkpoint counts
+		 * records, so committed ones are skipped without being parsed again.
+		 */
+		private void read(Reader reader) throws InterruptedException {
+
+			long skip = progress.getCheckpoint();
+			long position = 0;
+			long sequence = 0;
+			int records = 0;
+			int recordEnd = 0;
+			boolean quoted = false;
+			CSVFormat chunkFormat = null;
+			StringBuilder text = new StringBuilder();
+			char[] buffer = new char[64 * 1024];
+			int read;
+
+			try {
+				while ((read = reader.read(buffer)) != -1) {
+					int start = 0;
+
+					for (int i = 0; i < read; i++) {
+
+						if (buffer[i] == '"') {
+							quoted = !quoted;
+							continue;
+						}
+
+						if (buffer[i] != '\n' || quoted) {
+							continue;
+						}
+
+						text.append(buffer, start, i + 1 - start);
+						recordEnd = text.length();
+						start = i + 1;
+
+						if (chunkFormat == null) {
+							chunkFormat = chunkFormat(text);
+							text.setLength(0);
+							recordEnd = 0;
+
+						} else if (++position <= skip) {
+							text.setLength(0);
+							recordEnd = 0;
+
+						} else if (++records >= batchSize) {
+							if (!put(rawChunks, new RawChunk(sequence++, position, text.toString(), chunkFormat))) {
+								return;
+							}
+							text.setLength(0);
+							recordEnd = 0;
+							records = 0;
+						}
+					}
+
+					text.append(buffer, start, read - start);
+				}
+
+				if (chunkFormat != null && !text.substring(recordEnd).isBlank() && ++position > skip) {
+					records++;
+				}
+
+				if (records > 0) {
+					put(rawChunks, new RawChunk(sequence, position, text.toString(), chunkFormat));
+				}
+
+			} catch (Exception e) {
+				fail(e);
+
+			} finally {
+				for (int i = 0; i < parserThreads; i++) {
+					put(rawChunks, RawChunk.END);
+				}
+			}
+		}
+
+		private void parse() {
+
+			try {
+				RawChunk chunk;
+
+				while ((chunk = take(rawChunks)) != null && chunk != RawChunk.END) {
+
+					List<CreateCarDTO> cars = new ArrayList<>(batchSize);
+					int records = 0;
+
+					try (CSVParser parser = chunk.format().parse(new StringReader(chunk.text()))) {
+						for (CSVRecord rec : parser) {
+							CreateCarDTO car = toCar(rec);
+							records++;
+
+							if (car != null) {
+								cars.add(car);
+							}
+						}
+					}
+
+					if (!put(parsedChunks, new ParsedChunk(chunk.sequence(), chunk.position(), cars,
+							records - cars.size()))) {
+						return;
+					}
+				}
+
+			} catch (Exception e) {
+				fail(e);
+
+			} finally {
+				if (runningParsers.decrementAndGet() == 0) {
+					endWriters();
+				}
+			}
+		}
+
+		private void write() {
+
+			try {
+				ParsedChunk chunk;
+
+				while ((chunk = take(parsedChunks)) != null && chunk != ParsedChunk.END) {
+
+					List<CreateCarDTO> cars = chunk.cars();
+					int written = 0;
+
+					if (!cars.isEmpty()) {
+						resolveMissing(cars, CreateCarDTO::getMake, Dictionary.MAKE, makeIds,
+								carJdbcRepository::resolveMakeIds);
+						resolveMissing(cars, CreateCarDTO::getModel, Dictionary.MODEL, modelIds,
+								carJdbcRepository::resolveModelIds);
+						resolveMissing(cars, CreateCarDTO::getCategory, Dictionary.CATEGORY, categoryIds,
+								carJdbcRepository::resolveCategoryIds);
+
+						written = transactionTemplate.execute(
+								status -> carJdbcRepository.insertCars(cars, makeIds, modelIds, categoryIds));
+					}
+
+					commit(chunk, written);
+				}
+
+			} catch (Exception e) {
+				fail(e);
+			}
+		}
+
+		/*
+		 * Missing names are resolved and committed in a short transaction of their own under the
+		 * dictionary lock, so other writers never insert the same name twice and never reference
+		 * a row that is not yet visible to them. Names the application already knows are taken from
+		 * the shared dictionary cache first.
+		 */
+		private void resolveMissing(List<CreateCarDTO> cars, Function<CreateCarDTO, String> nameGetter,
+				Dictionary dictionary, Map<String, Long> ids,
+				Function<Collection<String>, Map<String, Long>> resolver) {
+
+			Set<String> missing = new HashSet<>();
+
+			for (CreateCarDTO car : cars) {
+				String name = nameGetter.apply(car);
+
+				if (!ids.containsKey(name)) {
+					missing.add(name);
+				}
+			}
+
+			if (missing.isEmpty()) {
+				return;
+			}
+
+			synchronized (ids) {
+				missing.removeIf(ids::containsKey);
+
+				ids.putAll(dictionaryCache.getAllPresent(dictionary, missing));
+				missing.removeIf(ids::containsKey);
+
+				if (!missing.isEmpty()) {
+					Map<String, Long> resolved = transactionTemplate.execute(status -> resolver.apply(missing));
+					ids.putAll(resolved);
+					dictionaryCache.putAll(dictionary, resolved);
+				}
+			}
+		}
+
+		/*
+		 * Only the checkpoint bookkeeping is done under the lock. The progress is reported by one
+		 * writer at a time, and a writer that finds a report running leaves it to that one, which
+		 * reads the progress as it writes it, so writers never wait on each other's round trip.
+		 */
+		private void commit(ParsedChunk chunk, int written) {
+
+			imported.addAndGet(written);
+			progress.addImported(written);
+
+			boolean advanced = false;
+
+			synchronized (committed) {
+				committed.put(chunk.sequence(), chunk);
+
+				while (committed.containsKey(nextSequence)) {
+					ParsedChunk last = committed.remove(nextSequence++);
+					rejected.addAndGet(last.rejected());
+					progress.addRejected(last.rejected());
+					progress.setCheckpoint(last.position());
+					advanced = true;
+				}
+			}
+
+			if (advanced && reporting.compareAndSet(false, true)) {
+				try {
+					onChunkCommit.accept(progress);
+
+				} finally {
+					reporting.set(false);
+				}
+			}
+		}
+
+		private void endWriters() {
+
+			try {
+				for (int i = 0; i < writerThreads; i++) {
+					put(parsedChunks, ParsedChunk.END);
+				}
+
+			} catch (InterruptedException e) {
+				fail(e);
+			}
+		}
+
+		private void fail(Exception e) {
+
+			if (!failure.compareAndSet(null, e) && failure.get() != e) {
+				failure.get().addSuppressed(e);
+			}
+		}
+
+		private <T> boolean put(BlockingQueue<T> queue, T item) throws InterruptedException {
+
+			while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (failure.get() != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+
+			T item = null;
+
+			while (item == null && failure.get() == null) {
+				item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			return item;
+		}
+	}
+
+	private static CSVFormat chunkFormat(CharSequence header) throws IOException {
+
+		try (CSVParser parser = CSV_FORMAT.parse(new StringReader(header.toString()))) {
+			return CSVFormat.DEFAULT.builder()
+					.setHeader(parser.getHeaderNames().toArray(String[]::new))
+					.build();
+		}
+	}
+
+	private record RawChunk(long sequence, long position, String text, CSVFormat format) {
+
+		private static final RawChunk END = new RawChunk(-1, -1, "", CSVFormat.DEFAULT);
+	}
+
+	private record ParsedChunk(long sequence, long position, List<CreateCarDTO> cars, int rejected) {
+
+		private static final ParsedChunk END = new ParsedChunk(-1, -1, List.of(), 0);
+	}
+}
@@ -1,24 +1,33 @@
 package com.foxminded.tasks.car_rest_service.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Year;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Random;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBulkResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarCursorPageDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.PatchCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.UpdateCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
@@ -39,6 +48,8 @@ import jakarta.persistence.EntityNotFoundException;
 @Service
 public class CarService {
 
+	private static final int OBJECT_ID_ATTEMPTS = 3;
+
 	private final CarRepository carRepository;
 	private MakeService makeService;
 	private ModelService modelService;
@@ -47,6 +58,10 @@ public class CarService {
 	private final MakeMapper makeMapper;
 	private final ModelMapper modelMapper;
 	private final CategoryMapper categoryMapper;
+	private final CatalogVersion catalogVersion;
+	private final CountEstimator countEstimator;
+	private final ObjectIdGenerator objectIdGenerator;
+	private final ListingCache listingCache;
 	Logger logger = LoggerFactory.getLogger(CarService.class);
 
 	@Autowired
@@ -57,7 +72,11 @@ public class CarService {
 					  CarMapper mapper,
 					  MakeMapper makeMapper,
 					  ModelMapper modelMapper,
-					  CategoryMapper categoryMapper) {
+					  CategoryMapper categoryMapper,
+					  CatalogVersion catalogVersion,
+					  CountEstimator countEstimator,
+					  ObjectIdGenerator objectIdGenerator,
+					  ListingCache listingCache) {
 		this.carRepository = carRepository;
 		this.makeService = makeService;
 		this.modelService = modelService;
@@ -66,8 +85,17 @@ public class CarService {
 		this.makeMapper = makeMapper;
 		this.modelMapper = modelMapper;
 		this.categoryMapper = categoryMapper;
+		this.catalogVersion = catalogVersion;
+		this.countEstimator = countEstimator;
+		this.objectIdGenerator = objectIdGenerator;
+		this.listingCache = listingCache;
 	}
 	
+	public Optional<CarVersionDTO> findCarVersion(Long id) {
+
+		return carRepository.findVersionById(id);
+	}
+
 	public CarDTO findCarById(Long id) {
 		
 		Optional<Car> optCar = carRepository.findById(id);
@@ -92,38 +120,71 @@ public class CarService {
 		Category category = categoryMapper.dtoToCategory(categoryDto);
 		Year year = Year.of(createCarDto.getYear());
 		String objectId = createCarDto.getObjectId();
+		Car newCar;
 		
 		if(objectId == null || objectId.isEmpty()) {
-			objectId = generateObjectId();
+			newCar = saveWithGeneratedObjectId(make, model, category, year);
+		} else {
+			newCar = carRepository.save(new Car(make, model, category, year, objectId));
 		}
 		
-		Car newCar = carRepository.save(new Car(make, model, category, year, objectId));
+		catalogVersion.bump();
 		
 		return mapper.carToCarDto(newCar);		
 	}
 	
-	public CarDTO updateCar(Long id, UpdateCarDTO updateCarDto) {
+	/*
+	 * A non-null expectedVersion makes the update conditional: it fails unless the car is
+	 * still at that version, both here and in the versioned UPDATE itself. The car is pointed
+	 * at the dictionary entries for the new names instead of renaming the shared ones, and
+	 * nothing is written when no value changes.
+	 */
+	public CarDTO updateCar(Long id, UpdateCarDTO updateCarDto, Long expectedVersion) {
 		
 		Optional<Car> optCarToUpdate = carRepository.findById(id);
 		
 		if(!optCarToUpdate.isEmpty()) {
 			
 			Car carToUpdate = optCarToUpdate.get();
-			Make makeToUpdate = carToUpdate.getMake();
-			Model modelToUpdate = carToUpdate.getModel();
-			Category categoryToUpdate = carToUpdate.getCategory();
-			
-			makeToUpdate.setName(updateCarDto.getMake());
-			modelToUpdate.setName(updateCarDto.getModel());
-			categoryToUpdate.setName(updateCarDto.getCategory());
-			Year updatedYear = Year.of(updateCarDto.getYear());
+
+			if (expectedVersion != null && expectedVersion != carToUpdate.getVersion()) {
+				logger.error("Car with id {} is at version {}, not {}.", id, carToUpdate.getVersion(), expectedVersion);
+				throw new OptimisticLockingFailureException("ID: " + id + " Car has changed since version "
+						+ expectedVersion);
+			}
+
+			String makeName = DictionaryCache.normalize(updateCarDto.getMake());
+			String modelName = DictionaryCache.normalize(updateCarDto.getModel());
+			String categoryName = DictionaryCache.normalize(updateCarDto.getCategory());
+			Make make = carToUpdate.getMake();
+			Model model = carToUpdate.getModel();
+			Category category = carToUpdate.getCategory();
+			Year year = Year.of(updateCarDto.getYear());
+
+			if (!Objects.equals(makeName, make.getName())) {
+				make = makeMapper.dtoToMake(makeService.findByNameOrSaveNew(makeName));
+			}
+			if (!Objects.equals(modelName, model.getName())) {
+				model = modelMapper.dtoToModel(modelService.findByNameOrSaveNew(modelName));
+			}
+			if (!Objects.equals(categoryName, category.getName())) {
+				category = categoryMapper.dtoToCategory(categoryService.findByNameOrSaveNew(categoryName));
+			}
+
+			if (Objects.equals(make.getId(), carToUpdate.getMake().getId())
+					&& Objects.equals(model.getId(), carToUpdate.getModel().getId())
+					&& Objects.equals(category.getId(), carToUpdate.getCategory().getId())
+					&& year.equals(carToUpdate.getYear())) {
+				return mapper.carToCarDto(carToUpdate);
+			}
 			
-			carToUpdate.setMake(makeToUpdate);
-			carToUpdate.setModel(modelToUpdate);
-			carToUpdate.setCategory(categoryToUpdate);
-			carToUpdate.setYear(updatedYear);
+			carToUpdate.setMake(make);
+			carToUpdate.setModel(model);
+			carToUpdate.setCategory(category);
+			carToUpdate.setYear(year);
 			
 			Car updatedCar = carRepository.save(carToUpdate);
+			catalogVersion.bump();
 			
 			return mapper.carToCarDto(updatedCar);
 			
@@ -140,6 +201,7 @@ public class CarService {
 		
 		if(!optCar.isEmpty()) {
 			carRepository.delete(optCar.get());
+			catalogVersion.bump();
 			
 		} else {
 			logger.error("Car with id {} is not found.", id);
@@ -147,77 +209,198 @@ public class CarService {
 		}	
 	}
 
-	public Page<CarListItemDTO> filterCars(String makeName, String modelName, String categoryName, Integer year,
-			Pageable pageable) {
+	public Slice<CarListItemDTO> filterCars(String makeName, String modelName, String categoryName, Integer year,
+			Pageable pageable, CountMode countMode) {
 
-		if (makeName == null || makeName.isEmpty()) {
-			makeName = null;
+		return listingCache.get(makeName, modelName, categoryName, year, pageable, countMode,
+				() -> loadCars(makeName, modelName, categoryName, year, pageable, countMode));
+	}
+
+	private Slice<CarListItemDTO> loadCars(String makeName, String modelName, String categoryName, Integer year,
+			Pageable pageable, CountMode countMode) {
+
+		Specification<Car> specification = CarSpecification.filter(makeName, modelName, categoryName, year);
+
+		if (countMode == CountMode.EXACT) {
+			return carRepository.findListItems(specification, pageable);
+		}
+
+		Slice<CarListItemDTO> carsSlice = carRepository.findListItemSlice(specification, pageable);
+
+		if (countMode == CountMode.NONE) {
+			return carsSlice;
 		}
-		if (modelName == null || modelName.isEmpty()) {
-			modelName = null;
+
+		return countEstimator.estimatedPage(carsSlice, pageable, "car",
+				Arrays.asList(makeName, modelName, categoryName, year),
+				() -> carRepository.count(specification));
+	}
+
+	public CarCursorPageDTO filterCarsAfter(String makeName, String modelName, String categoryName, Integer year,
+			String after, int size) {
+
+		if (size < 1) {
+			logger.error("Page size {} is not valid.", size);
+			throw new IllegalArgumentException("Page size must not be less than one");
 		}
-		if (categoryName == null || categoryName.isEmpty()) {
-			categoryName = null;
+
+		Window<CarListItemDTO> window = carRepository.findListItemsAfter(
+				CarSpecification.filter(makeName, modelName, categoryName, year), decodeCursor(after), size);
+		String nextCursor = null;
+
+		if (window.hasNext()) {
+			KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+			nextCursor = encodeCursor((Long) position.getKeys().get("id"));
 		}
 
-		Specification<Car> specification = Specification.where(CarSpecification.filterByMake(makeName))
-														.and(CarSpecification.filterByModel(modelName))
-														.and(CarSpecification.filterByCategory(categoryName))
-														.and(CarSpecification.filterByYear(year));
-		Page<Car> carsPage = carRepository.findAll(specification, pageable);
-		
-		List<CarListItemDTO> carsListDto = carsPage.getContent().stream()
-				.map(mapper :: carToCarListItemDto)
-				.collect(Collectors.toList());
-		
-		return new PageImpl<>(carsListDto, pageable, carsPage.getTotalElements());
+		return new CarCursorPageDTO(window.getContent(), window.size(), nextCursor);
 	}
-	
-	public void deleteMakeAndAssociations(Long id) {
 
-		List<Car> cars = carRepository.findByMake_Id(id);
-		
-		for (Car c : cars) {
-			carRepository.delete(c);
+	/*
+	 * Applies the patch to every car matching the filter in a single statement. A dry run only
+	 * counts the matching cars and creates no make, model or category.
+	 */
+	@Transactional
+	public CarBulkResultDTO updateCars(String makeName, String modelName, String categoryName, Integer year,
+			PatchCarDTO patch, boolean dryRun) {
+
+		requireFilter(makeName, modelName, categoryName, year);
+
+		if (patch == null || (isNullOrEmpty(patch.getMake()) && isNullOrEmpty(patch.getModel())
+				&& isNullOrEmpty(patch.getCategory()) && patch.getYear() == null)) {
+			logger.error("Bulk update of cars has nothing to change.");
+			throw new IllegalArgumentException("Patch must set at least one of make, model, category or year");
 		}
-		
-		makeService.delete(id);
+
+		Specification<Car> specification = CarSpecification.filter(makeName, modelName, categoryName, year);
+
+		if (dryRun) {
+			return new CarBulkResultDTO(carRepository.count(specification), true);
+		}
+
+		Make make = isNullOrEmpty(patch.getMake()) ? null
+				: makeMapper.dtoToMake(makeService.findByNameOrSaveNew(patch.getMake()));
+		Model model = isNullOrEmpty(patch.getModel()) ? null
+				: modelMapper.dtoToModel(modelService.findByNameOrSaveNew(patch.getModel()));
+		Category category = isNullOrEmpty(patch.getCategory()) ? null
+				: categoryMapper.dtoToCategory(categoryService.findByNameOrSaveNew(patch.getCategory()));
+		Year patchYear = patch.getYear() == null ? null : Year.of(patch.getYear());
+
+		int updated = carRepository.updateMatching(specification, make, model, category, patchYear);
+		catalogVersion.bump();
+		logger.info("Bulk update changed {} cars.", updated);
+
+		return new CarBulkResultDTO(updated, false);
 	}
-	
-	public void deleteModelAndAssociations(Long id) {
 
-		List<Car> cars = carRepository.findByModel_Id(id);
-		
-		for (Car c : cars) {
-			carRepository.delete(c);
+	@Transactional
+	public CarBulkResultDTO deleteCars(String makeName, String modelName, String categoryName, Integer year,
+			boolean dryRun) {
+
+		requireFilter(makeName, modelName, categoryName, year);
+		Specification<Car> specification = CarSpecification.filter(makeName, modelName, categoryName, year);
+
+		if (dryRun) {
+			return new CarBulkResultDTO(carRepository.count(specification), true);
 		}
-		
-		modelService.delete(id);
+
+		int deleted = carRepository.deleteMatching(specification);
+		catalogVersion.bump();
+		logger.info("Bulk delete removed {} cars.", deleted);
+
+		return new CarBulkResultDTO(deleted, false);
 	}
-	
-	public void deleteCategoryAndAssociations(Long id) {
 
-		List<Car> cars = carRepository.findByCategory_Id(id);
-		
-		for (Car c : cars) {
-			carRepository.delete(c);
+	/*
+	 * A bulk statement without a filter would touch the whole catalog, which is never what a
+	 * fleet correction means.
+	 */
+	private void requireFilter(String makeName, String modelName, String categoryName, Integer year) {
+
+		if (isNullOrEmpty(makeName) && isNullOrEmpty(modelName) && isNullOrEmpty(categoryName) && year == null) {
+			logger.error("Bulk change of cars has no filter.");
+			throw new IllegalArgumentException("At least one of makeName, modelName, categoryName or year is required");
+		}
+	}
+
+	private boolean isNullOrEmpty(String value) {
+
+		return value == null || value.isEmpty();
+	}
+
+	private String encodeCursor(long id) {
+
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(("id:" + id).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private long decodeCursor(String cursor) {
+
+		if (cursor == null || cursor.isEmpty()) {
+			return 0;
 		}
+
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+			if (!decoded.startsWith("id:")) {
+				throw new IllegalArgumentException("Cursor: " + cursor + " is not valid");
+			}
+
+			return Long.parseLong(decoded.substring(3));
+
+		} catch (IllegalArgumentException e) {
+			logger.error("Cursor {} is not valid.", cursor);
+			throw new IllegalArgumentException("Cursor: " + cursor + " is not valid");
+		}
+	}
+	
+	@Transactional
+	public int deleteMakeAndAssociations(Long id) {
+
+		int carsDeleted = carRepository.deleteAllByMakeId(id);
+		makeService.delete(id);
+		catalogVersion.bump();
 		
-		categoryService.delete(id);
+		return carsDeleted;
 	}
 	
-	public String generateObjectId() {
+	@Transactional
+	public int deleteModelAndAssociations(Long id) {
+
+		int carsDeleted = carRepository.deleteAllByModelId(id);
+		modelService.delete(id);
+		catalogVersion.bump();
 		
-		String objectId;
-		String customAlphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-		char[] alphabet = customAlphabet.toCharArray();
-		Random random = new Random();
+		return carsDeleted;
+	}
+	
+	@Transactional
+	public int deleteCategoryAndAssociations(Long id) {
+
+		int carsDeleted = carRepository.deleteAllByCategoryId(id);
+		categoryService.delete(id);
+		catalogVersion.bump();
 		
-        do {
-            objectId = NanoIdUtils.randomNanoId(random, alphabet, 11);
-            
-        } while (carRepository.existsByObjectId(objectId));
-        
-        return objectId;
+		return carsDeleted;
+	}
+	
+	/*
+	 * Generated ids are unique per node, so a conflict on the object_id index only happens when
+	 * two nodes share a node id or an imported objectId happens to match. A fresh id is enough.
+	 */
+	private Car saveWithGeneratedObjectId(Make make, Model model, Category category, Year year) {
+
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return carRepository.save(new Car(make, model, category, year, objectIdGenerator.next()));
+
+			} catch (DataIntegrityViolationException e) {
+				if (attempt >= OBJECT_ID_ATTEMPTS) {
+					throw e;
+				}
+				logger.warn("Generated objectId is already taken, retrying ({} of {}).", attempt, OBJECT_ID_ATTEMPTS);
+			}
+		}
 	}
 }
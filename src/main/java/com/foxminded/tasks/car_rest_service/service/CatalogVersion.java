@@ -0,0 +1,96 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Counter bumped after every write to cars, makes, models or categories, so that anything
+ * derived from the catalog can tell whether it is still current.
+ */
+@Component
+public class CatalogVersion {
+
+	private final String nodeId = UUID.randomUUID().toString();
+	private final AtomicLong version = new AtomicLong();
+	private final List<Runnable> bumpListeners = new CopyOnWriteArrayList<>();
+	private volatile boolean synced;
+
+	/*
+	 * Versions restart on every node and are counted per node, so anything handed out beyond
+	 * this node pairs the version with the node id.
+	 */
+	public String getNodeId() {
+
+		return nodeId;
+	}
+
+	public long current() {
+
+		return version.get();
+	}
+
+	/*
+	 * Within a transaction a reader can still see the old rows and store them under the new
+	 * version until the write commits, so the version moves once more when it completes. The
+	 * listeners hear of a transaction once, however many writes it makes.
+	 */
+	public long bump() {
+
+		long bumped = version.incrementAndGet();
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			bumpListeners.forEach(Runnable::run);
+			return bumped;
+		}
+
+		if (TransactionSynchronizationManager.hasResource(this)) {
+			return bumped;
+		}
+
+		TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersion.this);
+				version.incrementAndGet();
+			}
+		});
+		bumpListeners.forEach(Runnable::run);
+
+		return bumped;
+	}
+
+	/*
+	 * Moves the version for a change made elsewhere, without telling the bump listeners.
+	 */
+	public long advance() {
+
+		return version.incrementAndGet();
+	}
+
+	/*
+	 * Whether changes made on other nodes reach this one. While they do not, nothing derived
+	 * from the catalog is kept between requests. A node starts out unsynced until the
+	 * invalidation bus listens, or is disabled.
+	 */
+	public boolean isSynced() {
+
+		return synced;
+	}
+
+	public void setSynced(boolean synced) {
+
+		this.synced = synced;
+	}
+
+	public void addBumpListener(Runnable listener) {
+
+		bumpListeners.add(listener);
+	}
+}
@@ -1,23 +1,24 @@
 package com.foxminded.tasks.car_rest_service.service;
 
-import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.UpsertCategoryDTO;
 import com.foxminded.tasks.car_rest_service.entity.Category;
 import com.foxminded.tasks.car_rest_service.mapper.CategoryMapper;
 import com.foxminded.tasks.car_rest_service.repository.CategoryRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
 import com.foxminded.tasks.car_rest_service.specification.CategorySpecification;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -27,25 +28,41 @@ public class CategoryService {
 	
 	private final CategoryRepository categoryRepository;
 	private final CategoryMapper mapper;
+	private final CatalogVersion catalogVersion;
+	private final CountEstimator countEstimator;
+	private final DictionaryCache dictionaryCache;
 	Logger logger = LoggerFactory.getLogger(CategoryService.class);
 	
 	@Autowired
-	public CategoryService(CategoryRepository categoryRepository, CategoryMapper mapper) {
+	public CategoryService(CategoryRepository categoryRepository, CategoryMapper mapper,
+			CatalogVersion catalogVersion, CountEstimator countEstimator,
+			DictionaryCache dictionaryCache) {
 		this.categoryRepository = categoryRepository;
 		this.mapper = mapper;
+		this.catalogVersion = catalogVersion;
+		this.countEstimator = countEstimator;
+		this.dictionaryCache = dictionaryCache;
 	}
 	
 	public boolean existsByName(String name) {
 		
-		return categoryRepository.existsByName(name);
+		return categoryRepository.existsByName(DictionaryCache.normalize(name));
 	}
 	
+	/*
+	 * The id comes from the dictionary cache, the version from the row, so that a car built
+	 * from the result carries the same category version as the car read back later.
+	 */
 	public CategoryDTO findByNameOrSaveNew(String name) {
 		
-		Category category = categoryRepository.findByName(name)
-				.orElseGet(() -> categoryRepository.save(new Category(name)));
+		String normalizedName = DictionaryCache.normalize(name);
+		Long id = dictionaryCache.resolve(Dictionary.CATEGORY, normalizedName, categoryRepository::upsertByName);
+		long version = categoryRepository.findVersionById(id).orElseThrow(() -> {
+			logger.error("Category with id {} is not found.", id);
+			return new EntityNotFoundException("ID: " + id + " Category is not found");
+		});
 		
-		return mapper.categoryToDto(category);
+		return new CategoryDTO(id, normalizedName, version);
 	}
 	
 	public CategoryDTO findById(Long id) {
@@ -64,19 +81,24 @@ public class CategoryService {
 	
 	public CategoryDTO createCategory(UpsertCategoryDTO createCategoryDto) {
 		
-		if(!existsByName(createCategoryDto.getName())) {
+		String name = DictionaryCache.normalize(createCategoryDto.getName());
+
+		if(!existsByName(name)) {
 			
-			Category newCategory = categoryRepository.save(new Category(createCategoryDto.getName()));
+			Category newCategory = categoryRepository.save(new Category(name));
+			dictionaryCache.put(Dictionary.CATEGORY, newCategory.getName(), newCategory.getId());
+			catalogVersion.bump();
 			
 			return mapper.categoryToDto(newCategory);
 			
 		} else {
-			logger.error("Category with name {} is already exists.", createCategoryDto.getName());
-			throw new IllegalArgumentException("Category Name: " + createCategoryDto.getName()
+			logger.error("Category with name {} is already exists.", name);
+			throw new IllegalArgumentException("Category Name: " + name
 																 + " Category with this name is already exists");
 		}	
 	}
 	
+	@Transactional
 	public CategoryDTO updateCategory(Long id, UpsertCategoryDTO updateCategoryDto) {
 		
 		Optional<Category> optCategoryToUpdate = categoryRepository.findById(id);
@@ -84,8 +106,30 @@ public class CategoryService {
 		if(!optCategoryToUpdate.isEmpty()) {
 			
 			Category categoryToUpdate = optCategoryToUpdate.get();
-			categoryToUpdate.setName(updateCategoryDto.getName());
-			Category updatedCategory = categoryRepository.save(categoryToUpdate);
+			String oldName = categoryToUpdate.getName();
+			String name = DictionaryCache.normalize(updateCategoryDto.getName());
+
+			if (!oldName.equals(name) && existsByName(name)) {
+				logger.error("Category with name {} is already exists.", name);
+				throw new IllegalArgumentException("Category Name: " + name
+						+ " Category with this name is already exists");
+			}
+
+			categoryToUpdate.setName(name);
+			Category updatedCategory;
+
+			try {
+				updatedCategory = categoryRepository.saveAndFlush(categoryToUpdate);
+
+			} catch (DataIntegrityViolationException e) {
+				logger.error("Category with name {} is already exists.", name);
+				throw new IllegalArgumentException("Category Name: " + name
+						+ " Category with this name is already exists");
+			}
+
+			dictionaryCache.invalidate(Dictionary.CATEGORY, oldName);
+			dictionaryCache.put(Dictionary.CATEGORY, updatedCategory.getName(), updatedCategory.getId());
+			catalogVersion.bump();
 			
 			return mapper.categoryToDto(updatedCategory);
 			
@@ -97,25 +141,34 @@ public class CategoryService {
 	
 	public void delete(Long id) {
 		
-		CategoryDTO categoryDto = findById(id);
-		Category category = mapper.dtoToCategory(categoryDto);
-		categoryRepository.delete(category);
+		if(categoryRepository.deleteOneById(id) == 0) {
+			logger.error("Category with id {} is not found.", id);
+			throw new EntityNotFoundException("ID: " + id + " Category is not found");
+		}
+		
+		dictionaryCache.invalidateId(Dictionary.CATEGORY, id);
+		catalogVersion.bump();
 	}
 		
-	public Page<CategoryDTO> filterCategories(String name, Pageable pageable) {
+	public Slice<CategoryDTO> filterCategories(String name, Pageable pageable, CountMode countMode) {
 		
-		if(name == null || name.isEmpty()) {
+		if (name == null || name.isEmpty()) {
 			name = null;
 		}
 		
 		Specification<Category> specification = Specification.where(CategorySpecification.filterByName(name));
 		
-		Page<Category> categoriesPage = categoryRepository.findAll(specification, pageable);
-		
-		List<CategoryDTO> categoriesDto = categoriesPage.getContent().stream()
-				.map(mapper :: categoryToDto)
-				.collect(Collectors.toList());
-		
-		return new PageImpl<>(categoriesDto, pageable, categoriesPage.getTotalElements());
+		if (countMode == CountMode.EXACT) {
+			return categoryRepository.findAll(specification, pageable).map(mapper::categoryToDto);
+		}
+
+		Slice<CategoryDTO> categoriesSlice = categoryRepository.findSlice(specification, pageable).map(mapper::categoryToDto);
+
+		if (countMode == CountMode.NONE) {
+			return categoriesSlice;
+		}
+
+		return countEstimator.estimatedPage(categoriesSlice, pageable, "category", Collections.singletonList(name),
+				() -> categoryRepository.count(specification));
 	}
 }
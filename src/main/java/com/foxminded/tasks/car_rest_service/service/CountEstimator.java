@@ -0,0 +1,94 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CountEstimator {
+
+	private static final String PLANNER_COUNT_SQL = """
+			select reltuples::bigint from pg_class where oid = to_regclass(?)
+			""";
+	private static final int MAX_CACHED_COUNTS = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final CatalogVersion catalogVersion;
+	private final Map<CountKey, CachedCount> counts = Collections.synchronizedMap(
+			new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<CountKey, CachedCount> eldest) {
+					return size() > MAX_CACHED_COUNTS;
+				}
+			});
+
+	@Autowired
+	public CountEstimator(JdbcTemplate jdbcTemplate, CatalogVersion catalogVersion) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.catalogVersion = catalogVersion;
+	}
+
+	/*
+	 * Unfiltered listings take the row count the planner keeps in pg_class. Filtered listings
+	 * reuse an exact count until the catalog changes. The filter holds the value of each filter
+	 * parameter in a fixed order, null or empty where it is not set. The total is never reported
+	 * below what the slice itself has proven to exist.
+	 */
+	public <T> Page<T> estimatedPage(Slice<T> slice, Pageable pageable, String table, List<?> filter,
+			LongSupplier exactCount) {
+
+		List<Object> values = filter.stream().<Object>map(value -> "".equals(value) ? null : value).toList();
+		long total = values.stream().allMatch(Objects::isNull)
+				? plannerCount(table, exactCount)
+				: cachedCount(new CountKey(table, values), exactCount);
+		long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+
+		return new PageImpl<>(slice.getContent(), pageable, Math.max(total, seen));
+	}
+
+	private long plannerCount(String table, LongSupplier exactCount) {
+
+		Long estimate = jdbcTemplate.queryForObject(PLANNER_COUNT_SQL, Long.class, "car_service." + table);
+
+		if (estimate == null || estimate <= 0) {
+			return cachedCount(new CountKey(table, List.of()), exactCount);
+		}
+		return estimate;
+	}
+
+	private long cachedCount(CountKey key, LongSupplier exactCount) {
+
+		if (!catalogVersion.isSynced()) {
+			return exactCount.getAsLong();
+		}
+
+		long version = catalogVersion.current();
+		CachedCount cached = counts.get(key);
+
+		if (cached != null && cached.version() == version) {
+			return cached.count();
+		}
+
+		long count = exactCount.getAsLong();
+		counts.put(key, new CachedCount(version, count));
+
+		return count;
+	}
+
+	private record CountKey(String table, List<Object> filter) {
+	}
+
+	private record CachedCount(long version, long count) {
+	}
+}
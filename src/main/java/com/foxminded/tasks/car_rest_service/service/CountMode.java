@@ -0,0 +1,12 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+/**
+ * How a listing reports its total: EXACT runs a COUNT(*) next to the page query, ESTIMATED
+ * answers from planner statistics or a count cached until the next write, and NONE only
+ * reports whether a next page exists.
+ */
+public enum CountMode {
+	EXACT,
+	ESTIMATED,
+	NONE
+}
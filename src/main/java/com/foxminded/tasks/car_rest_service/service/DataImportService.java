@@ -2,21 +2,25 @@ package com.foxminded.tasks.car_rest_service.service;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.time.Year;
+import java.io.Reader;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
-import com.foxminded.tasks.car_rest_service.entity.Car;
-import com.foxminded.tasks.car_rest_service.entity.Category;
-import com.foxminded.tasks.car_rest_service.entity.Make;
-import com.foxminded.tasks.car_rest_service.entity.Model;
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportReportDTO;
+import com.foxminded.tasks.car_rest_service.dto.importing.SyncReportDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
 import com.foxminded.tasks.car_rest_service.repository.CarRepository;
 import com.foxminded.tasks.car_rest_service.repository.CategoryRepository;
 import com.foxminded.tasks.car_rest_service.repository.MakeRepository;
@@ -26,44 +30,125 @@ import jakarta.annotation.PostConstruct;
 @Service
 public class DataImportService {
 
+	public static final String INITIAL_IMPORT_JOB = "initial-import";
+
 	private CarRepository carRepository;
 	private MakeRepository makeRepository;
 	private ModelRepository modelRepository;
 	private CategoryRepository categoryRepository;
+	private CarImportPipeline carImportPipeline;
+	private TaskExecutor importExecutor;
+	private ImportCoordinator importCoordinator;
+	private final boolean async;
+	private final long pollIntervalMillis;
 	private final String filePath = "file.csv";
+	private final ImportProgress progress = new ImportProgress();
 	Logger logger = LoggerFactory.getLogger(DataImportService.class);
 
 	@Autowired
 	public DataImportService(CarRepository carRepository, MakeRepository makeRepository,
-			ModelRepository modelRepository, CategoryRepository categoryRepository) {
+			ModelRepository modelRepository, CategoryRepository categoryRepository,
+			CarImportPipeline carImportPipeline, @Qualifier("importExecutor") TaskExecutor importExecutor,
+			ImportCoordinator importCoordinator,
+			@Value("${car-service.import.async:true}") boolean async,
+			@Value("${car-service.import.poll-interval-ms:5000}") long pollIntervalMillis) {
 		this.carRepository = carRepository;
 		this.makeRepository = makeRepository;
 		this.modelRepository = modelRepository;
 		this.categoryRepository = categoryRepository;
+		this.carImportPipeline = carImportPipeline;
+		this.importExecutor = importExecutor;
+		this.importCoordinator = importCoordinator;
+		this.async = async;
+		this.pollIntervalMillis = pollIntervalMillis;
 	}
 
 	@PostConstruct
 	public void initData() {
 
-		if (carRepository.count() == 0 && makeRepository.count() == 0 && modelRepository.count() == 0
-				&& categoryRepository.count() == 0) {
+		if (async) {
+			logger.info("Starting data import in background.");
+			importExecutor.execute(this::importInitialData);
+
+		} else {
+			importInitialData();
+		}
+	}
+
+	public ImportProgress getProgress() {
+
+		return progress;
+	}
+
+	private void importInitialData() {
+
+		while (!importCoordinator.tryAcquire(INITIAL_IMPORT_JOB)) {
+
+			ImportJob job = importCoordinator.findJob(INITIAL_IMPORT_JOB).orElseThrow();
+			progress.setState(job.getState() == ImportState.PENDING ? ImportState.IMPORTING : job.getState());
+			progress.setRowsTotal(job.getRowsTotal() == null ? -1 : job.getRowsTotal());
+			progress.setRowsImported(job.getRowsImported());
+			progress.setRowsRejected(job.getRowsRejected());
+
+			if (job.getState() == ImportState.COMPLETED || job.getState() == ImportState.SKIPPED) {
+				logger.info("Data import skipped. Import job {} is {}.", INITIAL_IMPORT_JOB, job.getState());
+				return;
+			}
+
+			logger.info("Data import is running on node {}, waiting for it to finish.", job.getOwner());
 
 			try {
+				Thread.sleep(pollIntervalMillis);
+
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				progress.fail(new IllegalStateException(
+						"Interrupted while waiting for import job " + INITIAL_IMPORT_JOB + ".", e));
+				logger.warn("Stopped waiting for import job {}.", INITIAL_IMPORT_JOB);
+				return;
+			}
+		}
+
+		ImportState result = ImportState.FAILED;
+		String error = null;
+
+		try {
+
+			SourceInfo source = describeSource(filePath);
+
+			/*
+			 * Chunks and dictionary names commit ahead of the checkpoint, so a job that was started
+			 * and did not complete is replayed from its checkpoint even though the tables are no
+			 * longer empty. Only a job that never started is skipped when the database has data.
+			 */
+			if (importCoordinator.wasStarted(INITIAL_IMPORT_JOB) || carRepository.count() == 0
+					&& makeRepository.count() == 0 && modelRepository.count() == 0
+					&& categoryRepository.count() == 0) {
 
+				importCoordinator.resume(INITIAL_IMPORT_JOB, source.fingerprint(), progress);
+				progress.setState(ImportState.IMPORTING);
+				progress.setRowsTotal(source.records());
 				importDataFromCsv(filePath);
+				result = ImportState.COMPLETED;
 				logger.info("Data successfully imported.");
 
-			} catch (Exception e) {
-				logger.error("Error importing data from CSV file.");
-				e.printStackTrace();
+			} else {
+				result = ImportState.SKIPPED;
+				logger.info("Data import scipped. Database is not empty.");
 			}
+			progress.setState(result);
 
-		} else {
-			logger.info("Data import scipped. Database is not empty.");
+		} catch (Exception e) {
+			progress.fail(e);
+			error = e.getMessage();
+			logger.error("Error importing data from CSV file.", e);
+
+		} finally {
+			importCoordinator.release(INITIAL_IMPORT_JOB, progress, result, error);
 		}
 	}
 
-	private void importDataFromCsv(String filePath) throws Exception {
+	private ImportReportDTO importDataFromCsv(String filePath) throws Exception {
 
 		InputStream inputStream = getClass().getClassLoader().getResourceAsStream(filePath);
 
@@ -72,43 +157,60 @@ public class DataImportService {
 		}
 
 		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-			Iterable<CSVRecord> records = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
+			return importDataFromCsv(reader, progress,
+					chunkProgress -> importCoordinator.renew(INITIAL_IMPORT_JOB, chunkProgress));
+
+		} catch (Exception e) {
+			logger.error("Error processing CSV file", e);
+			throw e;
+		}
+	}
 
-			for (CSVRecord rec : records) {
+	public ImportReportDTO importDataFromCsv(Reader reader) throws Exception {
 
-				if (isEmptyRecord(rec)) {
-					logger.warn("Skipping empty or malformed record: {} ", rec);
-					continue;
-				}
+		return importDataFromCsv(reader, new ImportProgress(), chunkProgress -> {});
+	}
 
-				String objectId = rec.get("objectId");
-				String makeName = rec.get("Make");
-				Year year = Year.of(Integer.parseInt(rec.get("Year")));
-				String modelName = rec.get("Model");
-				String categoryName = rec.get("Category");
+	public ImportReportDTO importDataFromCsv(Reader reader, ImportProgress progress,
+			Consumer<ImportProgress> onChunkCommit) throws Exception {
 
-				Make make = makeRepository.findByName(makeName)
-						.orElseGet(() -> makeRepository.save(new Make(makeName)));
+		return carImportPipeline.run(reader, progress, onChunkCommit);
+	}
 
-				Model model = modelRepository.findByName(modelName)
-						.orElseGet(() -> modelRepository.save(new Model(modelName)));
+	public SyncReportDTO syncFromCsv(String jobId, Reader reader, ImportProgress progress, boolean deleteMissing,
+			Consumer<ImportProgress> onChunkStaged) throws IOException {
 
-				Category category = categoryRepository.findByName(categoryName)
-						.orElseGet(() -> categoryRepository.save(new Category(categoryName)));
+		return carImportPipeline.sync(jobId, reader, progress, deleteMissing, onChunkStaged);
+	}
 
-				Car car = new Car(make, model, category, year, objectId);
+	private SourceInfo describeSource(String filePath) throws IOException {
 
-				carRepository.save(car);
+		try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(filePath)) {
+
+			if (inputStream == null) {
+				throw new FileNotFoundException("CSV file not found in resources.");
 			}
 
-		} catch (Exception e) {
-			logger.error("Error processing CSV file", e);
-			throw e;
+			CRC32 checksum = new CRC32();
+			long bytes = 0;
+			long lines = 0;
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+
+			while ((read = inputStream.read(buffer)) != -1) {
+				checksum.update(buffer, 0, read);
+				bytes += read;
+				for (int i = 0; i < read; i++) {
+					if (buffer[i] == '\n') {
+						lines++;
+					}
+				}
+			}
+			return new SourceInfo(Math.max(lines - 1, 0),
+					filePath + ":" + bytes + ":" + Long.toHexString(checksum.getValue()));
 		}
 	}
 
-	private boolean isEmptyRecord(CSVRecord rec) {
-
-		return rec.size() == 0 || rec.stream().allMatch(String::isEmpty);
+	private record SourceInfo(long records, String fingerprint) {
 	}
 }
@@ -0,0 +1,209 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches make, model and category ids by name, so resolving the names of a new car does not
+ * cost a statement per dictionary. Entries are read through on a miss and must be invalidated
+ * whenever a dictionary row is renamed or deleted. Hits and misses are published as
+ * {@code cache.gets} with a {@code cache} tag per dictionary.
+ */
+@Component
+public class DictionaryCache {
+
+	public enum Dictionary {
+		MAKE, MODEL, CATEGORY
+	}
+
+	public interface InvalidationListener {
+
+		void nameInvalidated(Dictionary dictionary, String name);
+
+		void idInvalidated(Dictionary dictionary, Long id);
+	}
+
+	private final Map<Dictionary, Cache<String, Long>> caches = new EnumMap<>(Dictionary.class);
+	private final List<InvalidationListener> invalidationListeners = new CopyOnWriteArrayList<>();
+	private volatile boolean suspended;
+
+	@Autowired
+	public DictionaryCache(MeterRegistry meterRegistry,
+			@Value("${car-service.dictionary-cache.maximum-size:10000}") long maximumSize) {
+
+		for (Dictionary dictionary : Dictionary.values()) {
+			Cache<String, Long> cache = Caffeine.newBuilder()
+					.maximumSize(maximumSize)
+					.recordStats()
+					.build();
+			CaffeineCacheMetrics.monitor(meterRegistry, cache, dictionary.name().toLowerCase(Locale.ROOT) + "-ids");
+			caches.put(dictionary, cache);
+		}
+	}
+
+	public static String normalize(String name) {
+
+		return name == null ? null : name.strip();
+	}
+
+	/*
+	 * Inside a transaction the loader's insert is undone by a rollback, so an id loaded there
+	 * is only cached once the transaction commits. Caching it earlier would keep handing out
+	 * the id of a row that no longer exists.
+	 */
+	public Long resolve(Dictionary dictionary, String name, Function<String, Long> loader) {
+
+		String key = normalize(name);
+		Cache<String, Long> cache = caches.get(dictionary);
+
+		if (suspended) {
+			return loader.apply(key);
+		}
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return cache.get(key, loader);
+		}
+
+		Long id = cache.getIfPresent(key);
+
+		if (id == null) {
+			Long loaded = loader.apply(key);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.put(key, loaded);
+				}
+			});
+			id = loaded;
+		}
+		return id;
+	}
+
+	public Map<String, Long> getAllPresent(Dictionary dictionary, Collection<String> names) {
+
+		return suspended ? Map.of() : caches.get(dictionary).getAllPresent(names);
+	}
+
+	/*
+	 * Like a resolved id, an id put inside a transaction is cached only once it commits.
+	 */
+	public void put(Dictionary dictionary, String name, Long id) {
+
+		String key = normalize(name);
+		Cache<String, Long> cache = caches.get(dictionary);
+
+		if (suspended) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.put(key, id);
+				}
+			});
+
+		} else {
+			cache.put(key, id);
+		}
+	}
+
+	public void putAll(Dictionary dictionary, Map<String, Long> ids) {
+
+		ids.forEach((name, id) -> put(dictionary, name, id));
+	}
+
+	public void invalidate(Dictionary dictionary, String name) {
+
+		String key = normalize(name);
+		evictNowAndAfterCompletion(() -> evict(dictionary, key));
+		invalidationListeners.forEach(listener -> listener.nameInvalidated(dictionary, key));
+	}
+
+	public void invalidateId(Dictionary dictionary, Long id) {
+
+		evictNowAndAfterCompletion(() -> evictId(dictionary, id));
+		invalidationListeners.forEach(listener -> listener.idInvalidated(dictionary, id));
+	}
+
+	/*
+	 * The evict methods drop entries for changes made elsewhere, without telling the
+	 * invalidation listeners.
+	 */
+	public void evict(Dictionary dictionary, String name) {
+
+		caches.get(dictionary).invalidate(normalize(name));
+	}
+
+	public void evictId(Dictionary dictionary, Long id) {
+
+		caches.get(dictionary).asMap().values().removeIf(id::equals);
+	}
+
+	public void evictAll() {
+
+		caches.values().forEach(Cache::invalidateAll);
+	}
+
+	/*
+	 * While suspended every name is looked up and nothing is cached, for when invalidations
+	 * from other nodes cannot be received.
+	 */
+	public void suspend() {
+
+		suspended = true;
+		evictAll();
+	}
+
+	public void resume() {
+
+		suspended = false;
+	}
+
+	public void addInvalidationListener(InvalidationListener listener) {
+
+		invalidationListeners.add(listener);
+	}
+
+	/*
+	 * Inside a transaction another thread can still read the old row and cache it again until
+	 * the change commits, so the entry is evicted once more when the transaction completes.
+	 */
+	private void evictNowAndAfterCompletion(Runnable eviction) {
+
+		eviction.run();
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					eviction.run();
+				}
+			});
+		}
+	}
+
+	public CacheStats stats(Dictionary dictionary) {
+
+		return caches.get(dictionary).stats();
+	}
+}
@@ -0,0 +1,27 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+/**
+ * Output of the catalog export: NDJSON writes one car object per line, CSV writes the same
+ * columns the import reads, so an export can be imported again as is.
+ */
+public enum ExportFormat {
+
+	NDJSON("application/x-ndjson", "ndjson"),
+	CSV("text/csv", "csv");
+
+	private final String contentType;
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+}
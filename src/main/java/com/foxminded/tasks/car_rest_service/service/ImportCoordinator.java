@@ -0,0 +1,138 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.repository.ImportJobRepository;
+
+@Service
+public class ImportCoordinator {
+
+	static final int MAX_ERROR_LENGTH = 2048;
+
+	private final ImportJobRepository importJobRepository;
+	private final long leaseSeconds;
+	private final String nodeId;
+	Logger logger = LoggerFactory.getLogger(ImportCoordinator.class);
+
+	@Autowired
+	public ImportCoordinator(ImportJobRepository importJobRepository,
+			@Value("${car-service.import.lease-seconds:60}") long leaseSeconds) {
+		this.importJobRepository = importJobRepository;
+		this.leaseSeconds = leaseSeconds;
+		this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+	}
+
+	public String getNodeId() {
+
+		return nodeId;
+	}
+
+	/*
+	 * The job is leased to this node from the start, so it can be failed once the node stops
+	 * extending the lease while the job is still queued.
+	 */
+	public void create(String jobId, ImportMode mode) {
+
+		importJobRepository.createLeased(jobId, mode.name(), nodeId, leaseSeconds);
+	}
+
+	public void extendLeases(Collection<String> jobIds) {
+
+		if (!jobIds.isEmpty()) {
+			importJobRepository.extendLeases(jobIds, nodeId, leaseSeconds);
+		}
+	}
+
+	/*
+	 * Jobs whose file lives only on the node that accepted them cannot be taken over, so once
+	 * that node's lease runs out they are failed. The excluded job is resumed by another node.
+	 */
+	public void failExpired(String excludedJobId) {
+
+		int failed = importJobRepository.failExpired(excludedJobId);
+
+		if (failed > 0) {
+			logger.warn("Failed {} import jobs whose node went away.", failed);
+		}
+	}
+
+	public boolean tryAcquire(String jobId) {
+
+		importJobRepository.createIfAbsent(jobId, ImportMode.APPEND.name());
+		boolean acquired = importJobRepository.acquireLease(jobId, nodeId, leaseSeconds) == 1;
+
+		if (acquired) {
+			logger.info("Node {} acquired import job {}.", nodeId, jobId);
+		}
+		return acquired;
+	}
+
+	public void renew(String jobId, ImportProgress progress) {
+
+		int updated = importJobRepository.renewLease(jobId, nodeId, leaseSeconds, progress.getRowsTotal(),
+				progress.getRowsImported(), progress.getRowsRejected(), progress.getCheckpoint());
+
+		if (updated == 0) {
+			logger.error("Node {} lost the lease on import job {}.", nodeId, jobId);
+			throw new IllegalStateException("Import job: " + jobId + " lease is held by another node");
+		}
+	}
+
+	/**
+	 * A job counts as started once {@link #resume} has recorded its source, which happens right
+	 * before the first write.
+	 */
+	public boolean wasStarted(String jobId) {
+
+		return importJobRepository.findById(jobId).map(ImportJob::getSource).isPresent();
+	}
+
+	public long resume(String jobId, String source, ImportProgress progress) {
+
+		ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+
+		if (job.getCheckpoint() > 0 && source.equals(job.getSource())) {
+
+			progress.setCheckpoint(job.getCheckpoint());
+			progress.setRowsImported(job.getRowsImported());
+			progress.setRowsRejected(job.getRowsRejected());
+			logger.info("Resuming import job {} after record {}.", jobId, job.getCheckpoint());
+
+		} else {
+			importJobRepository.resetCheckpoint(jobId, nodeId, source);
+		}
+		return progress.getCheckpoint();
+	}
+
+	/*
+	 * Batch and parse errors can quote whole statements or records, and a message longer than
+	 * the column would fail the release and leave the job importing until its lease ran out.
+	 */
+	public void release(String jobId, ImportProgress progress, ImportState state, String error) {
+
+		if (error != null && error.length() > MAX_ERROR_LENGTH) {
+			error = error.substring(0, MAX_ERROR_LENGTH);
+		}
+
+		importJobRepository.releaseLease(jobId, nodeId, state.name(), error, progress.getRowsImported(),
+				progress.getRowsRejected(), progress.getRowsUpdated(), progress.getRowsDeleted(),
+				progress.getRowsUnchanged());
+	}
+
+	public Optional<ImportJob> findJob(String jobId) {
+
+		return importJobRepository.findById(jobId);
+	}
+}
@@ -0,0 +1,225 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.mapper.ImportJobMapper;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@Service
+public class ImportJobService {
+
+	private final DataImportService dataImportService;
+	private final ImportCoordinator importCoordinator;
+	private final TaskExecutor uploadImportExecutor;
+	private final ImportJobMapper mapper;
+	private final long maxUploadBytes;
+	private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+	Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+	@Autowired
+	public ImportJobService(DataImportService dataImportService,
+							ImportCoordinator importCoordinator,
+							@Qualifier("uploadImportExecutor") TaskExecutor uploadImportExecutor,
+							ImportJobMapper mapper,
+							@Value("${car-service.import.max-upload-size:-1}") DataSize maxUploadSize) {
+		this.dataImportService = dataImportService;
+		this.importCoordinator = importCoordinator;
+		this.uploadImportExecutor = uploadImportExecutor;
+		this.mapper = mapper;
+		this.maxUploadBytes = maxUploadSize.toBytes();
+	}
+
+	/*
+	 * The job runs after the 202 response, when the connection may already be gone, so the
+	 * request body is written to disk once and imported from there. A negative upload limit
+	 * leaves the size unbounded; otherwise the copy stops as soon as the body grows past it.
+	 */
+	public ImportJobDTO submit(InputStream csv, ImportMode mode, boolean deleteMissing) throws IOException {
+
+		checkMode(mode, deleteMissing);
+		Path file = Files.createTempFile("car-import-", ".csv");
+
+		try (OutputStream outputStream = Files.newOutputStream(file)) {
+			byte[] buffer = new byte[64 * 1024];
+			long bytes = 0;
+			int read;
+
+			while ((read = csv.read(buffer)) != -1) {
+				bytes += read;
+
+				if (maxUploadBytes >= 0 && bytes > maxUploadBytes) {
+					logger.error("Import upload is larger than {} bytes.", maxUploadBytes);
+					throw new MaxUploadSizeExceededException(maxUploadBytes);
+				}
+				outputStream.write(buffer, 0, read);
+			}
+
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+
+		return schedule(file, mode, deleteMissing);
+	}
+
+	/*
+	 * The container has already stored the part on disk. Transferring it to a File lets the
+	 * container rename its own file into place, and it only copies the part when that is not
+	 * possible, such as when the part was kept in memory or lives on another file system.
+	 */
+	public ImportJobDTO submit(MultipartFile csv, ImportMode mode, boolean deleteMissing) throws IOException {
+
+		checkMode(mode, deleteMissing);
+		Path file = Files.createTempFile("car-import-", ".csv");
+
+		try {
+			csv.transferTo(file.toFile());
+
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+
+		return schedule(file, mode, deleteMissing);
+	}
+
+	private void checkMode(ImportMode mode, boolean deleteMissing) {
+
+		if (deleteMissing && mode != ImportMode.SYNC) {
+			logger.error("Deleting missing cars is only supported in {} mode.", ImportMode.SYNC);
+			throw new IllegalArgumentException("Deleting missing cars requires import mode " + ImportMode.SYNC);
+		}
+	}
+
+	private ImportJobDTO schedule(Path file, ImportMode mode, boolean deleteMissing) throws IOException {
+
+		String jobId = UUID.randomUUID().toString();
+		long bytes = Files.size(file);
+		importCoordinator.create(jobId, mode);
+		activeJobs.add(jobId);
+		uploadImportExecutor.execute(() -> runJob(jobId, file, mode, deleteMissing));
+		logger.info("Import job {} accepted, {} bytes spooled.", jobId, bytes);
+
+		return findById(jobId);
+	}
+
+	public ImportJobDTO findById(String jobId) {
+
+		Optional<ImportJob> optJob = importCoordinator.findJob(jobId);
+
+		if (!optJob.isEmpty()) {
+
+			return mapper.importJobToDto(optJob.get());
+
+		} else {
+			logger.error("Import job with id {} is not found.", jobId);
+			throw new EntityNotFoundException("ID: " + jobId + " Import job is not found");
+		}
+	}
+
+	/*
+	 * Keeps the leases of this node's queued and running uploads alive and fails the uploads
+	 * of nodes that stopped doing so.
+	 */
+	@Scheduled(fixedDelayString = "${car-service.import.heartbeat-ms:20000}")
+	public void heartbeat() {
+
+		importCoordinator.extendLeases(List.copyOf(activeJobs));
+		importCoordinator.failExpired(DataImportService.INITIAL_IMPORT_JOB);
+	}
+
+	void runJob(String jobId, Path file, ImportMode mode, boolean deleteMissing) {
+
+		ImportProgress progress = new ImportProgress();
+		ImportState result = ImportState.FAILED;
+		String error = null;
+
+		try {
+
+			if (!importCoordinator.tryAcquire(jobId)) {
+				logger.warn("Import job {} is already taken by another node.", jobId);
+				return;
+			}
+
+			try (Reader reader = openCsv(file)) {
+
+				Consumer<ImportProgress> renewLease = chunkProgress -> importCoordinator.renew(jobId, chunkProgress);
+
+				if (mode == ImportMode.SYNC) {
+					dataImportService.syncFromCsv(jobId, reader, progress, deleteMissing, renewLease);
+
+				} else {
+					dataImportService.importDataFromCsv(reader, progress, renewLease);
+				}
+				result = ImportState.COMPLETED;
+
+			} catch (Exception e) {
+				error = e.getMessage();
+				logger.error("Import job {} failed.", jobId, e);
+			}
+
+			importCoordinator.release(jobId, progress, result, error);
+
+		} finally {
+			activeJobs.remove(jobId);
+			deleteQuietly(file);
+		}
+	}
+
+	private Reader openCsv(Path file) throws IOException {
+
+		InputStream inputStream = new BufferedInputStream(Files.newInputStream(file));
+		inputStream.mark(2);
+		boolean gzip = inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+		inputStream.reset();
+
+		if (gzip) {
+			inputStream = new GZIPInputStream(inputStream, 64 * 1024);
+		}
+
+		return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+	}
+
+	private void deleteQuietly(Path file) {
+
+		try {
+			Files.deleteIfExists(file);
+
+		} catch (IOException e) {
+			logger.warn("Unable to delete import file {}.", file, e);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class ImportProgress {
+
+	@Getter
+	@Setter
+	private volatile ImportState state = ImportState.PENDING;
+	@Getter
+	@Setter
+	private volatile long rowsTotal = -1;
+	private final AtomicLong rowsImported = new AtomicLong();
+	private final AtomicLong rowsRejected = new AtomicLong();
+	private final AtomicLong rowsUpdated = new AtomicLong();
+	private final AtomicLong rowsDeleted = new AtomicLong();
+	private final AtomicLong rowsUnchanged = new AtomicLong();
+	@Getter
+	@Setter
+	private volatile long checkpoint;
+	@Getter
+	private volatile String error;
+
+	public long getRowsImported() {
+		return rowsImported.get();
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected.get();
+	}
+
+	public long getRowsDone() {
+		return rowsImported.get() + rowsRejected.get();
+	}
+
+	public void setRowsImported(long rows) {
+		rowsImported.set(rows);
+	}
+
+	public void setRowsRejected(long rows) {
+		rowsRejected.set(rows);
+	}
+
+	public void addImported(long rows) {
+		rowsImported.addAndGet(rows);
+	}
+
+	public void addRejected(long rows) {
+		rowsRejected.addAndGet(rows);
+	}
+
+	public long getRowsUpdated() {
+		return rowsUpdated.get();
+	}
+
+	public void setRowsUpdated(long rows) {
+		rowsUpdated.set(rows);
+	}
+
+	public long getRowsDeleted() {
+		return rowsDeleted.get();
+	}
+
+	public void setRowsDeleted(long rows) {
+		rowsDeleted.set(rows);
+	}
+
+	public long getRowsUnchanged() {
+		return rowsUnchanged.get();
+	}
+
+	public void setRowsUnchanged(long rows) {
+		rowsUnchanged.set(rows);
+	}
+
+	public void fail(Exception e) {
+		this.error = e.getMessage();
+		this.state = ImportState.FAILED;
+	}
+}
@@ -0,0 +1,72 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches car listings by filter, page, sort and count mode. The catalog version is part of the
+ * key, so a write makes every cached listing unreachable at once without walking the cache;
+ * the stale entries are left for the size bound to evict. Hits, misses, size and evictions
+ * are published with the {@code car-listings} cache tag.
+ */
+@Component
+public class ListingCache {
+
+	private final CatalogVersion catalogVersion;
+	private final Cache<Key, Slice<CarListItemDTO>> cache;
+
+	@Autowired
+	public ListingCache(MeterRegistry meterRegistry, CatalogVersion catalogVersion,
+			@Value("${car-service.listing-cache.maximum-size:10000}") long maximumSize) {
+		this.catalogVersion = catalogVersion;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "car-listings");
+	}
+
+	/*
+	 * The version is read before the listing is loaded, so a write committing in between
+	 * leaves the loaded listing under a version that is already outdated.
+	 */
+	public Slice<CarListItemDTO> get(String makeName, String modelName, String categoryName, Integer year,
+			Pageable pageable, CountMode countMode, Supplier<Slice<CarListItemDTO>> loader) {
+
+		if (!catalogVersion.isSynced()) {
+			return loader.get();
+		}
+
+		Key key = new Key(catalogVersion.current(), emptyToNull(makeName), emptyToNull(modelName),
+				emptyToNull(categoryName), year, pageable, countMode);
+
+		return cache.get(key, k -> loader.get());
+	}
+
+	public CacheStats stats() {
+
+		return cache.stats();
+	}
+
+	private String emptyToNull(String value) {
+
+		return value == null || value.isEmpty() ? null : value;
+	}
+
+	private record Key(long version, String makeName, String modelName, String categoryName, Integer year,
+			Pageable pageable, CountMode countMode) {
+	}
+}
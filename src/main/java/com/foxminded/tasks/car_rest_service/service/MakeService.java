@@ -1,23 +1,25 @@
 package com.foxminded.tasks.car_rest_service.service;
 
-import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.foxminded.tasks.car_rest_service.dto.make.UpsertMakeDTO;
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
 import com.foxminded.tasks.car_rest_service.entity.Make;
 import com.foxminded.tasks.car_rest_service.mapper.MakeMapper;
 import com.foxminded.tasks.car_rest_service.repository.MakeRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
 import com.foxminded.tasks.car_rest_service.specification.MakeSpecification;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -27,27 +29,48 @@ public class MakeService {
 	
 	private final MakeRepository makeRepository;
 	private final MakeMapper mapper;
+	private final CatalogVersion catalogVersion;
+	private final CountEstimator countEstimator;
+	private final DictionaryCache dictionaryCache;
 	Logger logger = LoggerFactory.getLogger(MakeService.class);
 	
 	@Autowired
-	public MakeService(MakeRepository makeRepository, MakeMapper makeMapper) {
+	public MakeService(MakeRepository makeRepository, MakeMapper makeMapper,
+			CatalogVersion catalogVersion, CountEstimator countEstimator,
+			DictionaryCache dictionaryCache) {
 		this.makeRepository = makeRepository;
 		this.mapper = makeMapper;
+		this.catalogVersion = catalogVersion;
+		this.countEstimator = countEstimator;
+		this.dictionaryCache = dictionaryCache;
 	}
 
 	public boolean existsByName(String name) {
 		
-		return makeRepository.existsByName(name);
+		return makeRepository.existsByName(DictionaryCache.normalize(name));
 	}
 	
+	/*
+	 * The id comes from the dictionary cache, the version from the row, so that a car built
+	 * from the result carries the same make version as the car read back later.
+	 */
 	public MakeDTO findByNameOrSaveNew(String name) {
 		
-		Make make = makeRepository.findByName(name)
-				.orElseGet(() -> makeRepository.save(new Make(name)));
+		String normalizedName = DictionaryCache.normalize(name);
+		Long id = dictionaryCache.resolve(Dictionary.MAKE, normalizedName, makeRepository::upsertByName);
+		long version = makeRepository.findVersionById(id).orElseThrow(() -> {
+			logger.error("Make with id {} is not found.", id);
+			return new EntityNotFoundException("ID: " + id + " Make is not found");
+		});
 		
-		return 	mapper.makeToDto(make);	
+		return new MakeDTO(id, normalizedName, version);
 	}
 	
+	public Optional<Long> findVersion(Long id) {
+
+		return makeRepository.findVersionById(id);
+	}
+
 	public MakeDTO findById(Long id) {
 		
 		Optional<Make> optMake = makeRepository.findById(id);
@@ -64,27 +87,61 @@ public class MakeService {
 	
 	public MakeDTO createMake(UpsertMakeDTO createMakeDto) {
 		
-		if(!existsByName(createMakeDto.getName())) {
+		String name = DictionaryCache.normalize(createMakeDto.getName());
+
+		if(!existsByName(name)) {
 
-			Make newMake = makeRepository.save(new Make(createMakeDto.getName()));
+			Make newMake = makeRepository.save(new Make(name));
+			dictionaryCache.put(Dictionary.MAKE, newMake.getName(), newMake.getId());
+			catalogVersion.bump();
 			return mapper.makeToDto(newMake);
 			
 		} else {
-			logger.error("Make with name {} is already exists.", createMakeDto.getName());
-			throw new IllegalArgumentException("Make Name: " + createMakeDto.getName()
+			logger.error("Make with name {} is already exists.", name);
+			throw new IllegalArgumentException("Make Name: " + name
 			 												 + " Make with this name is already exists");
 		}	
 	}
 	
-	public MakeDTO updateMake(Long id, UpsertMakeDTO updateMakeDto) {
+	@Transactional
+	public MakeDTO updateMake(Long id, UpsertMakeDTO updateMakeDto, Long expectedVersion) {
 		
 		Optional<Make> optMakeToUpdate = makeRepository.findById(id);
 		
 		if(!optMakeToUpdate.isEmpty()) {
 			
 			Make makeToUpdate = optMakeToUpdate.get();
-			makeToUpdate.setName(updateMakeDto.getName());
-			Make updatedMake = makeRepository.save(makeToUpdate);
+
+			if (expectedVersion != null && expectedVersion != makeToUpdate.getVersion()) {
+				logger.error("Make with id {} is at version {}, not {}.", id, makeToUpdate.getVersion(), expectedVersion);
+				throw new OptimisticLockingFailureException("ID: " + id + " Make has changed since version "
+						+ expectedVersion);
+			}
+
+			String oldName = makeToUpdate.getName();
+			String name = DictionaryCache.normalize(updateMakeDto.getName());
+
+			if (!oldName.equals(name) && existsByName(name)) {
+				logger.error("Make with name {} is already exists.", name);
+				throw new IllegalArgumentException("Make Name: " + name
+						+ " Make with this name is already exists");
+			}
+
+			makeToUpdate.setName(name);
+			Make updatedMake;
+
+			try {
+				updatedMake = makeRepository.saveAndFlush(makeToUpdate);
+
+			} catch (DataIntegrityViolationException e) {
+				logger.error("Make with name {} is already exists.", name);
+				throw new IllegalArgumentException("Make Name: " + name
+						+ " Make with this name is already exists");
+			}
+
+			dictionaryCache.invalidate(Dictionary.MAKE, oldName);
+			dictionaryCache.put(Dictionary.MAKE, updatedMake.getName(), updatedMake.getId());
+			catalogVersion.bump();
 			
 			return mapper.makeToDto(updatedMake);
 			
@@ -96,12 +153,16 @@ public class MakeService {
 	
 	public void delete(Long id) {
 		
-		MakeDTO makeDto = findById(id);
-		Make make = mapper.dtoToMake(makeDto);
-		makeRepository.delete(make);
+		if(makeRepository.deleteOneById(id) == 0) {
+			logger.error("Make with id {} is not found.", id);
+			throw new EntityNotFoundException("ID: " + id + " Make is not found");
+		}
+		
+		dictionaryCache.invalidateId(Dictionary.MAKE, id);
+		catalogVersion.bump();
 	}
 	
-	public Page<MakeDTO> filterMakes(String name, Pageable pageable) {
+	public Slice<MakeDTO> filterMakes(String name, Pageable pageable, CountMode countMode) {
 		
 		if (name == null || name.isEmpty()) {
 			name = null;
@@ -109,12 +170,17 @@ public class MakeService {
 		
 		Specification<Make> specification = Specification.where(MakeSpecification.filterByName(name));
 		
-		Page<Make> makesPage = makeRepository.findAll(specification, pageable);
-		
-		List<MakeDTO> makesDto = makesPage.getContent().stream()
-				.map(mapper::makeToDto)
-				.collect(Collectors.toList());
-			
-		return new PageImpl<>(makesDto, pageable, makesPage.getTotalElements());
+		if (countMode == CountMode.EXACT) {
+			return makeRepository.findAll(specification, pageable).map(mapper::makeToDto);
+		}
+
+		Slice<MakeDTO> makesSlice = makeRepository.findSlice(specification, pageable).map(mapper::makeToDto);
+
+		if (countMode == CountMode.NONE) {
+			return makesSlice;
+		}
+
+		return countEstimator.estimatedPage(makesSlice, pageable, "make", Collections.singletonList(name),
+				() -> makeRepository.count(specification));
 	}
 }
@@ -1,23 +1,24 @@
 package com.foxminded.tasks.car_rest_service.service;
 
-import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.foxminded.tasks.car_rest_service.dto.model.UpsertModelDTO;
 import com.foxminded.tasks.car_rest_service.dto.model.ModelDTO;
 import com.foxminded.tasks.car_rest_service.entity.Model;
 import com.foxminded.tasks.car_rest_service.mapper.ModelMapper;
 import com.foxminded.tasks.car_rest_service.repository.ModelRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
 import com.foxminded.tasks.car_rest_service.specification.ModelSpecification;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -27,25 +28,41 @@ public class ModelService {
 	
 	private final ModelRepository modelRepository;
 	private final ModelMapper mapper;
+	private final CatalogVersion catalogVersion;
+	private final CountEstimator countEstimator;
+	private final DictionaryCache dictionaryCache;
 	Logger logger = LoggerFactory.getLogger(ModelService.class);
 	
 	@Autowired
-	public ModelService(ModelRepository modelRepository, ModelMapper mapper) {
+	public ModelService(ModelRepository modelRepository, ModelMapper mapper,
+			CatalogVersion catalogVersion, CountEstimator countEstimator,
+			DictionaryCache dictionaryCache) {
 		this.modelRepository = modelRepository;
 		this.mapper = mapper;
+		this.catalogVersion = catalogVersion;
+		this.countEstimator = countEstimator;
+		this.dictionaryCache = dictionaryCache;
 	}
 
 	public boolean existsByName(String name) {
 		
-		return modelRepository.existsByName(name);
+		return modelRepository.existsByName(DictionaryCache.normalize(name));
 	}
 	
+	/*
+	 * The id comes from the dictionary cache, the version from the row, so that a car built
+	 * from the result carries the same model version as the car read back later.
+	 */
 	public ModelDTO findByNameOrSaveNew(String name) {
 		
-		Model model = modelRepository.findByName(name)
-				.orElseGet(() -> modelRepository.save(new Model(name)));
+		String normalizedName = DictionaryCache.normalize(name);
+		Long id = dictionaryCache.resolve(Dictionary.MODEL, normalizedName, modelRepository::upsertByName);
+		long version = modelRepository.findVersionById(id).orElseThrow(() -> {
+			logger.error("Model with id {} is not found.", id);
+			return new EntityNotFoundException("ID: " + id + " Model is not found");
+		});
 		
-		return mapper.modelToDto(model);
+		return new ModelDTO(id, normalizedName, version);
 	}
 	
 	public ModelDTO findById(Long id) {
@@ -64,18 +81,23 @@ public class ModelService {
 	
 	public ModelDTO createModel(UpsertModelDTO createModelDto) {
 		
-		if(!existsByName(createModelDto.getName())) {
+		String name = DictionaryCache.normalize(createModelDto.getName());
+
+		if(!existsByName(name)) {
 			
-			Model newModel = modelRepository.save(new Model(createModelDto.getName()));
+			Model newModel = modelRepository.save(new Model(name));
+			dictionaryCache.put(Dictionary.MODEL, newModel.getName(), newModel.getId());
+			catalogVersion.bump();
 			return mapper.modelToDto(newModel);
 			
 		} else {
-			logger.error("Model with name {} is already exists.", createModelDto.getName());
-			throw new IllegalArgumentException("Model Name: " + createModelDto.getName()
+			logger.error("Model with name {} is already exists.", name);
+			throw new IllegalArgumentException("Model Name: " + name
 			 												  + " Model with this name is already exists");
 		}	
 	}
 	
+	@Transactional
 	public ModelDTO updateModel(Long id, UpsertModelDTO updateModelDto) {
 		
 		Optional<Model> optModelToUpdate = modelRepository.findById(id);
@@ -83,8 +105,30 @@ public class ModelService {
 		if(!optModelToUpdate.isEmpty()) {
 			
 			Model modelToUpdate = optModelToUpdate.get();
-			modelToUpdate.setName(updateModelDto.getName());
-			Model updatedModel = modelRepository.save(modelToUpdate);
+			String oldName = modelToUpdate.getName();
+			String name = DictionaryCache.normalize(updateModelDto.getName());
+
+			if (!oldName.equals(name) && existsByName(name)) {
+				logger.error("Model with name {} is already exists.", name);
+				throw new IllegalArgumentException("Model Name: " + name
+						+ " Model with this name is already exists");
+			}
+
+			modelToUpdate.setName(name);
+			Model updatedModel;
+
+			try {
+				updatedModel = modelRepository.saveAndFlush(modelToUpdate);
+
+			} catch (DataIntegrityViolationException e) {
+				logger.error("Model with name {} is already exists.", name);
+				throw new IllegalArgumentException("Model Name: " + name
+						+ " Model with this name is already exists");
+			}
+
+			dictionaryCache.invalidate(Dictionary.MODEL, oldName);
+			dictionaryCache.put(Dictionary.MODEL, updatedModel.getName(), updatedModel.getId());
+			catalogVersion.bump();
 			
 			return mapper.modelToDto(updatedModel);
 			
@@ -96,12 +140,16 @@ public class ModelService {
 	
 	public void delete(Long id) {
 		
-		ModelDTO modelDto = findById(id);
-		Model model = mapper.dtoToModel(modelDto);
-		modelRepository.delete(model);
+		if(modelRepository.deleteOneById(id) == 0) {
+			logger.error("Model with id {} is not found.", id);
+			throw new EntityNotFoundException("ID: " + id + " Model is not found");
+		}
+		
+		dictionaryCache.invalidateId(Dictionary.MODEL, id);
+		catalogVersion.bump();
 	}
 		
-	public Page<ModelDTO> filterModels (String name, Pageable pageable) {
+	public Slice<ModelDTO> filterModels(String name, Pageable pageable, CountMode countMode) {
 		
 		if (name == null || name.isEmpty()) {
 			name = null;
@@ -109,12 +157,17 @@ public class ModelService {
 		
 		Specification<Model> specification = Specification.where(ModelSpecification.filterByName(name));
 		
-		Page<Model> modelsPage = modelRepository.findAll(specification, pageable);
-		
-		List<ModelDTO> modelsDto = modelsPage.getContent().stream()
-				.map(mapper :: modelToDto)
-				.collect(Collectors.toList());
-		
-		return new PageImpl<>(modelsDto, pageable, modelsPage.getTotalElements());
+		if (countMode == CountMode.EXACT) {
+			return modelRepository.findAll(specification, pageable).map(mapper::modelToDto);
+		}
+
+		Slice<ModelDTO> modelsSlice = modelRepository.findSlice(specification, pageable).map(mapper::modelToDto);
+
+		if (countMode == CountMode.NONE) {
+			return modelsSlice;
+		}
+
+		return countEstimator.estimatedPage(modelsSlice, pageable, "model", Collections.singletonList(name),
+				() -> modelRepository.count(specification));
 	}
 }
@@ -0,0 +1,177 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.foxminded.tasks.car_rest_service.exception.ObjectIdUnavailableException;
+import com.foxminded.tasks.car_rest_service.repository.ObjectIdNodeRepository;
+
+/**
+ * Generates 11-character car objectIds without asking the database whether they are taken.
+ * Each id packs the milliseconds since {@link #EPOCH_MILLIS} (41 bits), the node id (10 bits)
+ * and a per-millisecond sequence (12 bits) into a long and writes it in fixed-width base62,
+ * so ids from one node never repeat and sort by creation time. Nodes sharing a database need
+ * distinct node ids: one is either configured or leased from the database at startup and kept
+ * by renewing the lease. Once the lease runs out no ids are generated, since another node may
+ * have taken the node id over, until a renewal that finds it taken leases a fresh one.
+ */
+@Component
+public class ObjectIdGenerator {
+
+	public static final int LENGTH = 11;
+	static final long EPOCH_MILLIS = 1735689600000L;
+	static final int NODE_BITS = 10;
+	static final int SEQUENCE_BITS = 12;
+	static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+	private static final int LEASE_ATTEMPTS = 5;
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"
+			.toCharArray();
+
+	private final ObjectIdNodeRepository objectIdNodeRepository;
+	private volatile long nodeId;
+	private final boolean leased;
+	private final String owner;
+	private final long leaseSeconds;
+	private final LongSupplier clock;
+	private final AtomicLong lastTick = new AtomicLong();
+	private volatile long leaseValidUntil = Long.MAX_VALUE;
+	Logger logger = LoggerFactory.getLogger(ObjectIdGenerator.class);
+
+	@Autowired
+	public ObjectIdGenerator(ObjectIdNodeRepository objectIdNodeRepository,
+			@Value("${car-service.object-id.node-id:-1}") long nodeId,
+			@Value("${car-service.object-id.lease-seconds:60}") long leaseSeconds) {
+		this(objectIdNodeRepository, nodeId, leaseSeconds, System::currentTimeMillis);
+	}
+
+	ObjectIdGenerator(long nodeId) {
+		this(nodeId, System::currentTimeMillis);
+	}
+
+	ObjectIdGenerator(long nodeId, LongSupplier clock) {
+		this(null, nodeId, 0, clock);
+	}
+
+	ObjectIdGenerator(ObjectIdNodeRepository objectIdNodeRepository, long nodeId, long leaseSeconds,
+			LongSupplier clock) {
+
+		if (nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Node id must not be greater than " + MAX_NODE_ID);
+		}
+
+		this.objectIdNodeRepository = objectIdNodeRepository;
+		this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+		this.leaseSeconds = leaseSeconds;
+		this.clock = clock;
+		this.leased = nodeId < 0;
+
+		if (leased) {
+			lease();
+		} else {
+			this.nodeId = nodeId;
+		}
+	}
+
+	/*
+	 * The local deadline is counted from before the renewal was sent, so it always runs out
+	 * ahead of the lease in the database.
+	 */
+	@Scheduled(fixedDelayString = "${car-service.object-id.heartbeat-ms:20000}")
+	public void renewLease() {
+
+		if (!leased) {
+			return;
+		}
+
+		long renewedAt = clock.getAsLong();
+
+		if (objectIdNodeRepository.renew(nodeId, owner, leaseSeconds) == 1) {
+			leaseValidUntil = renewedAt + leaseSeconds * 1000;
+			return;
+		}
+
+		leaseValidUntil = Long.MIN_VALUE;
+		logger.warn("Lease on objectId node id {} was taken over, leasing another one.", nodeId);
+
+		try {
+			lease();
+		} catch (ObjectIdUnavailableException e) {
+			logger.error("No objectId node id is free, retrying on the next heartbeat.");
+		}
+	}
+
+	public String next() {
+
+		if (clock.getAsLong() > leaseValidUntil) {
+			throw new ObjectIdUnavailableException("Lease on objectId node id " + nodeId + " has run out");
+		}
+
+		return encode(nextLong());
+	}
+
+	long getNodeId() {
+
+		return nodeId;
+	}
+
+	/*
+	 * Used both at startup and when a renewal finds the node id taken over. The node id is
+	 * switched before the deadline, so no id is generated from the old one under a new lease.
+	 */
+	private void lease() {
+
+		for (int attempt = 0; attempt < LEASE_ATTEMPTS; attempt++) {
+			long leasedAt = clock.getAsLong();
+			Optional<Long> leasedId = objectIdNodeRepository.lease(owner, leaseSeconds, MAX_NODE_ID);
+
+			if (leasedId.isPresent()) {
+				nodeId = leasedId.get();
+				leaseValidUntil = leasedAt + leaseSeconds * 1000;
+				logger.info("Leased objectId node id {} as {}.", nodeId, owner);
+				return;
+			}
+		}
+
+		throw new ObjectIdUnavailableException("No objectId node id is free to lease, configure "
+				+ "car-service.object-id.node-id or wait for a lease to run out");
+	}
+
+	/*
+	 * The tick is the timestamp shifted left by the sequence bits, so taking the next tick
+	 * either increments the sequence within the current millisecond or starts a new one. When
+	 * the sequence overflows or the clock goes back, the tick keeps running ahead of the clock
+	 * until the clock catches up, which keeps ids unique.
+	 */
+	long nextLong() {
+
+		long tick = lastTick.updateAndGet(
+				last -> Math.max(last + 1, (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS));
+		long timestamp = tick >>> SEQUENCE_BITS;
+		long sequence = tick & ((1L << SEQUENCE_BITS) - 1);
+
+		return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+	}
+
+	static String encode(long value) {
+
+		char[] chars = new char[LENGTH];
+
+		for (int i = LENGTH - 1; i >= 0; i--) {
+			chars[i] = ALPHABET[(int) Long.remainderUnsigned(value, ALPHABET.length)];
+			value = Long.divideUnsigned(value, ALPHABET.length);
+		}
+
+		return new String(chars);
+	}
+}
@@ -7,6 +7,27 @@ import org.springframework.data.jpa.domain.Specification;
 import com.foxminded.tasks.car_rest_service.entity.Car;
 
 public class CarSpecification {
+
+	/*
+	 * Combines the listing filters; null or empty values do not filter.
+	 */
+	public static Specification<Car> filter(String makeName, String modelName, String categoryName, Integer year) {
+
+		if (makeName == null || makeName.isEmpty()) {
+			makeName = null;
+		}
+		if (modelName == null || modelName.isEmpty()) {
+			modelName = null;
+		}
+		if (categoryName == null || categoryName.isEmpty()) {
+			categoryName = null;
+		}
+
+		return Specification.where(filterByMake(makeName))
+							.and(filterByModel(modelName))
+							.and(filterByCategory(categoryName))
+							.and(filterByYear(year));
+	}
 	
 	public static Specification<Car> filterByMake(String makeName) {
         return (root, query, criteriaBuilder) -> {
@@ -0,0 +1,4 @@
+alter table car_service.make add column version bigint not null default 0;
+alter table car_service.model add column version bigint not null default 0;
+alter table car_service.category add column version bigint not null default 0;
+alter table car_service.car add column version bigint not null default 0;
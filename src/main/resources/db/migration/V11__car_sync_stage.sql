@@ -0,0 +1,9 @@
+create unlogged table if not exists car_service.car_sync_stage (
+	job_id varchar(64) not null,
+	object_id varchar(255) not null,
+	make varchar(255) not null,
+	model varchar(255) not null,
+	category varchar(255) not null,
+	year integer not null,
+	primary key (job_id, object_id)
+	);
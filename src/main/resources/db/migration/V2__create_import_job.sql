@@ -0,0 +1,13 @@
+create table if not exists car_service.import_job (
+	id varchar(64) primary key,
+	state varchar(32) not null,
+	owner varchar(255),
+	lease_until timestamp with time zone,
+	rows_total bigint,
+	rows_imported bigint not null default 0,
+	rows_rejected bigint not null default 0,
+	error varchar(2048),
+	started_at timestamp with time zone,
+	updated_at timestamp with time zone,
+	finished_at timestamp with time zone
+	);
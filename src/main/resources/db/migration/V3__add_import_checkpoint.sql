@@ -0,0 +1,15 @@
+alter table car_service.import_job
+	add column if not exists checkpoint bigint not null default 0,
+	add column if not exists source varchar(512);
+
+create table if not exists car_service.car_duplicate_object_id as
+	select c.*, now() as removed_at
+	from car_service.car c
+	where exists (select 1 from car_service.car d where d.object_id = c.object_id and d.id < c.id);
+
+delete from car_service.car c
+	using car_service.car d
+	where c.object_id = d.object_id
+	and c.id > d.id;
+
+create unique index if not exists car_object_id_uindex on car_service.car (object_id);
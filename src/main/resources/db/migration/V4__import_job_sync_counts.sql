@@ -0,0 +1,5 @@
+alter table car_service.import_job
+	add column if not exists mode varchar(16) not null default 'APPEND',
+	add column if not exists rows_updated bigint not null default 0,
+	add column if not exists rows_deleted bigint not null default 0,
+	add column if not exists rows_unchanged bigint not null default 0;
@@ -0,0 +1,36 @@
+update car_service.car c
+	set make_id = k.keep_id
+	from (select id, min(id) over (partition by name) as keep_id from car_service.make) k
+	where c.make_id = k.id
+	and k.id <> k.keep_id;
+
+update car_service.car c
+	set model_id = k.keep_id
+	from (select id, min(id) over (partition by name) as keep_id from car_service.model) k
+	where c.model_id = k.id
+	and k.id <> k.keep_id;
+
+update car_service.car c
+	set category_id = k.keep_id
+	from (select id, min(id) over (partition by name) as keep_id from car_service.category) k
+	where c.category_id = k.id
+	and k.id <> k.keep_id;
+
+delete from car_service.make m
+	using car_service.make d
+	where m.name = d.name
+	and m.id > d.id;
+
+delete from car_service.model m
+	using car_service.model d
+	where m.name = d.name
+	and m.id > d.id;
+
+delete from car_service.category m
+	using car_service.category d
+	where m.name = d.name
+	and m.id > d.id;
+
+create unique index if not exists make_name_uindex on car_service.make (name);
+create unique index if not exists model_name_uindex on car_service.model (name);
+create unique index if not exists category_name_uindex on car_service.category (name);
@@ -0,0 +1,4 @@
+create index if not exists car_make_id_year_id_index on car_service.car (make_id, year, id);
+create index if not exists car_model_id_year_id_index on car_service.car (model_id, year, id);
+create index if not exists car_category_id_year_id_index on car_service.car (category_id, year, id);
+create index if not exists car_year_id_index on car_service.car (year, id);
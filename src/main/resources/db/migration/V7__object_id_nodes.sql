@@ -0,0 +1,5 @@
+create table if not exists car_service.object_id_node (
+	node_id smallint primary key,
+	owner varchar(255) not null,
+	lease_until timestamp with time zone not null
+	);
@@ -0,0 +1,14 @@
+alter table car_service.make alter column id type bigint;
+alter table car_service.model alter column id type bigint;
+alter table car_service.category alter column id type bigint;
+alter table car_service.car alter column id type bigint;
+
+alter sequence car_service.make_id_seq as bigint increment by 50;
+alter sequence car_service.model_id_seq as bigint increment by 50;
+alter sequence car_service.category_id_seq as bigint increment by 50;
+alter sequence car_service.car_id_seq as bigint increment by 50;
+
+select setval('car_service.make_id_seq', coalesce((select max(id) from car_service.make), 0) + 50, false);
+select setval('car_service.model_id_seq', coalesce((select max(id) from car_service.model), 0) + 50, false);
+select setval('car_service.category_id_seq', coalesce((select max(id) from car_service.category), 0) + 50, false);
+select setval('car_service.car_id_seq', coalesce((select max(id) from car_service.car), 0) + 50, false);
@@ -0,0 +1,6 @@
+create table if not exists car_service.catalog_version (
+	id smallint primary key check (id = 1),
+	version bigint not null default 0
+	);
+
+insert into car_service.catalog_version (id, version) values (1, 0) on conflict (id) do nothing;
@@ -1,10 +1,17 @@
 package com.foxminded.tasks.car_rest_service.controller;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -15,21 +22,35 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBulkResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarCursorPageDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarVersionDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.PatchCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.UpdateCarDTO;
+import com.foxminded.tasks.car_rest_service.exception.ObjectIdUnavailableException;
+import com.foxminded.tasks.car_rest_service.service.CarBatchService;
+import com.foxminded.tasks.car_rest_service.service.CarExportService;
 import com.foxminded.tasks.car_rest_service.service.CarService;
+import com.foxminded.tasks.car_rest_service.service.CountMode;
+import com.foxminded.tasks.car_rest_service.service.ExportFormat;
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
 
 import jakarta.persistence.EntityNotFoundException;
 
-@WebMvcTest(CarController.class)
+@WebMvcTest(value = CarController.class, properties = "car-service.batch.max-size=2")
 @WithMockUser
 class CarControllerTest {
 	
@@ -41,6 +62,15 @@ class CarControllerTest {
 	
 	@MockBean
 	CarService service;
+
+	@MockBean
+	CarBatchService batchService;
+
+	@MockBean
+	CarExportService exportService;
+
+	@MockBean
+	CatalogVersion catalogVersion;
 	
 	@Test
 	void getFilteredCars_ValidRequest_ReturnsCars() throws Exception {
@@ -49,14 +79,65 @@ class CarControllerTest {
 		
         Page<CarListItemDTO> carDtoPage = new PageImpl<>(List.of(carDto), PageRequest.of(0, 10), 1);
 
-        when(service.filterCars(any(), any(), any(), any(), any(Pageable.class))).thenReturn(carDtoPage);
+        when(service.filterCars(any(), any(), any(), any(), any(Pageable.class), any())).thenReturn(carDtoPage);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].make").value("Make_Name"));
         
-        verify(service, times(1)).filterCars(any(), any(), any(), any(), any(Pageable.class));
+        verify(service, times(1)).filterCars(any(), any(), any(), any(), any(Pageable.class), any());
+	}
+
+	@Test
+	void getFilteredCars_CountNone_ReturnsSliceWithoutTotal() throws Exception {
+
+		CarListItemDTO carDto = new CarListItemDTO("Make_Name", "Model_Name", "Category_Name", 2025);
+		Slice<CarListItemDTO> carDtoSlice = new SliceImpl<>(List.of(carDto), PageRequest.of(0, 10), true);
+
+		when(service.filterCars(any(), any(), any(), any(), any(Pageable.class), eq(CountMode.NONE)))
+				.thenReturn(carDtoSlice);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("count", "none"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.content[0].make").value("Make_Name"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.last").value(false))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.totalElements").doesNotExist());
+	}
+
+	@Test
+	void getFilteredCars_UnknownCountMode_ReturnsBadRequest() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("count", "sometimes"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		verify(service, never()).filterCars(any(), any(), any(), any(), any(Pageable.class), any());
+	}
+
+	@Test
+	void getFilteredCarsAfter_CursorRequest_ReturnsCursorPage() throws Exception {
+
+		CarListItemDTO carDto = new CarListItemDTO("Make_Name", "Model_Name", "Category_Name", 2025);
+		CarCursorPageDTO cursorPage = new CarCursorPageDTO(List.of(carDto), 1, "aWQ6NDI");
+
+		when(service.filterCarsAfter(any(), any(), any(), any(), eq(""), eq(10))).thenReturn(cursorPage);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("after", ""))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.content[0].make").value("Make_Name"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value("aWQ6NDI"));
+
+		verify(service, never()).filterCars(any(), any(), any(), any(), any(Pageable.class), any());
+	}
+
+	@Test
+	void getFilteredCarsAfter_InvalidCursor_ReturnsBadRequest() throws Exception {
+
+		when(service.filterCarsAfter(any(), any(), any(), any(), anyString(), anyInt()))
+				.thenThrow(new IllegalArgumentException());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("after", "broken"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 
 	@Test
@@ -74,10 +155,42 @@ class CarControllerTest {
         .andExpect(MockMvcResultMatchers.jsonPath("$.model").value("Model_Name"))
         .andExpect(MockMvcResultMatchers.jsonPath("$.category").value("Category_Name"))
         .andExpect(MockMvcResultMatchers.jsonPath("$.year").value(2025))
-        .andExpect(MockMvcResultMatchers.jsonPath("$.objectId").value("ObjectId"));
+        .andExpect(MockMvcResultMatchers.jsonPath("$.objectId").value("ObjectId"))
+        .andExpect(MockMvcResultMatchers.header().string("ETag", "\"0.0.0.0\""));
         
         verify(service, times(1)).findCarById(anyLong());
 	}
+
+	@Test
+	void getCar_IfNoneMatchCurrentVersion_ReturnsNotModified() throws Exception {
+
+		when(service.findCarVersion(1L)).thenReturn(Optional.of(new CarVersionDTO(5, 1, 0, 2)));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/{id}", 1L)
+				.header("If-None-Match", "W/\"4.1.0.2\", \"5.1.0.2\""))
+		.andExpect(MockMvcResultMatchers.status().isNotModified())
+		.andExpect(MockMvcResultMatchers.header().string("ETag", "\"5.1.0.2\""))
+		.andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache"))
+		.andExpect(MockMvcResultMatchers.content().string(""));
+
+		verify(service, never()).findCarById(anyLong());
+	}
+
+	@Test
+	void getCar_MakeRenamedSinceIfNoneMatch_LoadsCar() throws Exception {
+
+		CarDTO carDto = new CarDTO(1L, "Make_Name", "Model_Name", "Category_Name", 2025, "ObjectId", 5);
+		carDto.setMakeVersion(2);
+
+		when(service.findCarVersion(1L)).thenReturn(Optional.of(new CarVersionDTO(5, 2, 0, 0)));
+		when(service.findCarById(1L)).thenReturn(carDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/{id}", 1L)
+				.header("If-None-Match", "\"5.1.0.0\""))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.header().string("ETag", "\"5.2.0.0\""))
+		.andExpect(MockMvcResultMatchers.jsonPath("$.make").value("Make_Name"));
+	}
 	
 	@Test
 	void getCar_CarNotExists_ReturnsNotFound() throws Exception {
@@ -115,6 +228,116 @@ class CarControllerTest {
         verify(service, times(1)).createCar(any(CreateCarDTO.class));
 	}
 	
+	@Test
+	void createCars_JsonArray_ReturnsCreated() throws Exception {
+
+		CarBatchResultDTO result = new CarBatchResultDTO(true, 2, 0, List.of(
+				new CarBatchItemDTO(0, 1L, "A1", null),
+				new CarBatchItemDTO(1, 2L, "A2", null)));
+
+		when(batchService.createCars(anyList(), eq(true))).thenReturn(result);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"make\":\"Audi\",\"model\":\"Q3\",\"category\":\"SUV\",\"year\":2020,\"objectId\":\"A1\"},"
+						+ "{\"make\":\"Audi\",\"model\":\"Q5\",\"category\":\"SUV\",\"year\":2021,\"objectId\":\"A2\"}]")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isCreated())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.created").value(2))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.items[1].id").value(2));
+
+		verify(batchService, times(1)).createCars(argThat(cars -> cars.size() == 2), eq(true));
+	}
+
+	@Test
+	void createCars_NdjsonPartialFailure_ReturnsOkWithItemErrors() throws Exception {
+
+		CarBatchResultDTO result = new CarBatchResultDTO(false, 1, 1, List.of(
+				new CarBatchItemDTO(0, 1L, "A1", null),
+				new CarBatchItemDTO(1, null, "A2", "model is required")));
+
+		when(batchService.createCars(anyList(), eq(false))).thenReturn(result);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.param("atomic", "false")
+				.contentType("application/x-ndjson")
+				.content("""
+						{"make":"Audi","model":"Q3","category":"SUV","year":2020,"objectId":"A1"}
+						{"make":"Audi","model":"","category":"SUV","year":2021,"objectId":"A2"}
+						""")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.items[1].error").value("model is required"));
+
+		verify(batchService, times(1)).createCars(argThat(cars -> cars.size() == 2
+				&& "A2".equals(cars.get(1).getObjectId())), eq(false));
+	}
+
+	@Test
+	void createCars_AtomicBatchRolledBack_ReturnsUnprocessableEntity() throws Exception {
+
+		CarBatchResultDTO result = new CarBatchResultDTO(true, 0, 1, List.of(
+				new CarBatchItemDTO(0, null, "A1", "Car with objectId A1 already exists")));
+
+		when(batchService.createCars(anyList(), eq(true))).thenReturn(result);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.contentType("application/x-ndjson")
+				.content("{\"make\":\"Audi\",\"model\":\"Q3\",\"category\":\"SUV\",\"year\":2020,\"objectId\":\"A1\"}")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isUnprocessableEntity());
+	}
+
+	@Test
+	void createCars_MalformedNdjson_ReturnsBadRequest() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.contentType("application/x-ndjson")
+				.content("{\"make\":\"Audi\"}\n{not json")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		verify(batchService, never()).createCars(anyList(), anyBoolean());
+	}
+
+	@Test
+	void createCars_NdjsonOverMaxSize_StopsReadingAfterOneExtraItem() throws Exception {
+
+		when(batchService.createCars(anyList(), anyBoolean()))
+				.thenThrow(new IllegalArgumentException("Batch must contain from 1 to 2 cars"));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.contentType("application/x-ndjson")
+				.content("""
+						{"make":"Audi","model":"Q3","category":"SUV","year":2020}
+						{"make":"Audi","model":"Q5","category":"SUV","year":2020}
+						{"make":"Audi","model":"Q7","category":"SUV","year":2020}
+						{not json
+						""")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		verify(batchService, times(1)).createCars(argThat(cars -> cars.size() == 3), eq(true));
+	}
+
+	@Test
+	void createCars_JsonArrayOverMaxSize_StopsReadingAfterOneExtraItem() throws Exception {
+
+		when(batchService.createCars(anyList(), anyBoolean()))
+				.thenThrow(new IllegalArgumentException("Batch must contain from 1 to 2 cars"));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars/batch")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"make\":\"Audi\",\"model\":\"Q3\",\"category\":\"SUV\",\"year\":2020},"
+						+ "{\"make\":\"Audi\",\"model\":\"Q5\",\"category\":\"SUV\",\"year\":2020},"
+						+ "{\"make\":\"Audi\",\"model\":\"Q7\",\"category\":\"SUV\",\"year\":2020},"
+						+ "{not json")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		verify(batchService, times(1)).createCars(argThat(cars -> cars.size() == 3), eq(true));
+	}
+
 	@Test
 	void createCar_InvalidCar_ReturnsBadRequest() throws Exception {
 		
@@ -129,6 +352,21 @@ class CarControllerTest {
 		.andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 	
+	@Test
+	void createCar_NoObjectIdNodeLeased_ReturnsServiceUnavailable() throws Exception {
+
+		String createCarDtoJson = "{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": \"2020\"}";
+
+		when(service.createCar(any(CreateCarDTO.class)))
+				.thenThrow(new ObjectIdUnavailableException("Lease on objectId node id 1 has run out"));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/cars")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(createCarDtoJson)
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+	}
+	
 	@Test
 	void updateCar_ValidCar_ReturnsOk() throws Exception {
 		
@@ -136,7 +374,7 @@ class CarControllerTest {
 		CarDTO carDto = new CarDTO(1L, "Make_Name", "Model_Name", "Category_Name", 2025, "ObjectId");
 		String carDtoJson = objectMapper.writeValueAsString(carDto);
 		
-		when(service.updateCar(anyLong(), any(UpdateCarDTO.class))).thenReturn(carDto);
+		when(service.updateCar(anyLong(), any(UpdateCarDTO.class), isNull())).thenReturn(carDto);
 		
 	       mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", id)
 	        		.contentType("application/json")
@@ -150,16 +388,67 @@ class CarControllerTest {
 	                .andExpect(MockMvcResultMatchers.jsonPath("$.year").value(2025))
 	        		.andExpect(MockMvcResultMatchers.jsonPath("$.objectId").value("ObjectId"));
 	        
-	        verify(service, times(1)).updateCar(anyLong(), any(UpdateCarDTO.class));
+	        verify(service, times(1)).updateCar(anyLong(), any(UpdateCarDTO.class), isNull());
 	}
 	
+	@Test
+	void updateCar_IfMatchVersion_PassesVersionToService() throws Exception {
+
+		CarDTO carDto = new CarDTO(1L, "Make_Name", "Model_Name", "Category_Name", 2025, "ObjectId", 4);
+
+		when(service.updateCar(anyLong(), any(UpdateCarDTO.class), eq(3L))).thenReturn(carDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", 1L)
+				.header("If-Match", "\"3\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": 2025}")
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.version").value(4));
+	}
+
+	@Test
+	void updateCar_IfMatchFromGetETag_PassesVersionToService() throws Exception {
+
+		CarDTO carDto = new CarDTO(1L, "Make_Name", "Model_Name", "Category_Name", 2025, "ObjectId", 3);
+		carDto.setMakeVersion(7);
+
+		when(service.findCarById(1L)).thenReturn(carDto);
+		when(service.updateCar(anyLong(), any(UpdateCarDTO.class), eq(3L))).thenReturn(carDto);
+
+		String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/{id}", 1L))
+				.andReturn().getResponse().getHeader("ETag");
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", 1L)
+				.header("If-Match", etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": 2025}")
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isOk());
+
+		verify(service, times(1)).updateCar(eq(1L), any(UpdateCarDTO.class), eq(3L));
+	}
+
+	@Test
+	void updateCar_IfMatchWeakTag_ReturnsPreconditionFailed() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", 1L)
+				.header("If-Match", "W/\"3\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": 2025}")
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+		verify(service, never()).updateCar(anyLong(), any(UpdateCarDTO.class), any());
+	}
+
 	@Test
 	void updateCar_InvalidCarData_ReturnsBadRequest() throws Exception {
 		
 		Long id = 1L;
 		String updateCarDtoJson = "{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": \"2026\",\"objectId\": \"\"}";
 		
-		when(service.updateCar(anyLong(), any(UpdateCarDTO.class))).thenThrow(new IllegalArgumentException());
+		when(service.updateCar(anyLong(), any(UpdateCarDTO.class), isNull())).thenThrow(new IllegalArgumentException());
 		
 		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", id)
 				.contentType(MediaType.APPLICATION_JSON)
@@ -174,7 +463,7 @@ class CarControllerTest {
 		Long id = 1L;
 		String updateCarDtoJson = "{\"make\": \"LADA\",\"model\": \"KALINA\",\"category\": \"Sedan\",\"year\": \"2026\",\"objectId\": \"\"}";
 		
-		when(service.updateCar(anyLong(), any(UpdateCarDTO.class))).thenThrow(new EntityNotFoundException());
+		when(service.updateCar(anyLong(), any(UpdateCarDTO.class), isNull())).thenThrow(new EntityNotFoundException());
 		
 		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/cars/{id}", id)
 				.contentType(MediaType.APPLICATION_JSON)
@@ -211,4 +500,137 @@ class CarControllerTest {
 		verify(service, times(1)).delete(anyLong());
 	}
 
+	@Test
+	void updateFilteredCars_ValidPatch_ReturnsAffectedCount() throws Exception {
+
+		PatchCarDTO patchCarDto = new PatchCarDTO(null, null, "Sedan", null);
+
+		when(service.updateCars(eq("Audi"), isNull(), isNull(), isNull(), any(PatchCarDTO.class), eq(false)))
+				.thenReturn(new CarBulkResultDTO(200, false));
+
+		mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/cars")
+				.param("makeName", "Audi")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(patchCarDto))
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.affected").value(200))
+		.andExpect(MockMvcResultMatchers.jsonPath("$.dryRun").value(false));
+	}
+
+	@Test
+	void updateFilteredCars_NoFilter_ReturnsBadRequest() throws Exception {
+
+		when(service.updateCars(isNull(), isNull(), isNull(), isNull(), any(PatchCarDTO.class), eq(false)))
+				.thenThrow(new IllegalArgumentException());
+
+		mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/cars")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"category\": \"Sedan\"}")
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void deleteFilteredCars_DryRun_ReturnsMatchingCount() throws Exception {
+
+		when(service.deleteCars(isNull(), isNull(), isNull(), eq(2010), eq(true)))
+				.thenReturn(new CarBulkResultDTO(12, true));
+
+		mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/cars")
+				.param("year", "2010")
+				.param("dryRun", "true")
+				.with(csrf()))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.jsonPath("$.affected").value(12))
+		.andExpect(MockMvcResultMatchers.jsonPath("$.dryRun").value(true));
+	}
+
+	@Test
+	void getFilteredCars_MatchingIfNoneMatch_ReturnsNotModifiedWithoutQuerying() throws Exception {
+
+		when(catalogVersion.isSynced()).thenReturn(true);
+		when(catalogVersion.getNodeId()).thenReturn("node");
+		when(catalogVersion.current()).thenReturn(7L);
+
+		String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("makeName", "Audi"))
+				.andExpect(MockMvcResultMatchers.header().string("ETag", "\"catalog-node-7\""))
+				.andReturn().getResponse().getHeader("ETag");
+		clearInvocations(service);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").param("makeName", "Audi")
+				.header("If-None-Match", etag))
+		.andExpect(MockMvcResultMatchers.status().isNotModified());
+
+		verifyNoInteractions(service);
+	}
+
+	@Test
+	void getFilteredCars_CacheBusNotListening_ReturnsUntaggedResponse() throws Exception {
+
+		when(catalogVersion.isSynced()).thenReturn(false);
+		when(service.filterCars(any(), any(), any(), any(), any(Pageable.class), any()))
+				.thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 10), 0));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars").header("If-None-Match", "\"catalog-node-7\""))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().doesNotExist("ETag"));
+	}
+
+	@Test
+	void exportCars_CsvFormat_StreamsCsvAttachment() throws Exception {
+
+		when(exportService.exportCars(eq("Audi"), isNull(), isNull(), isNull(), eq(ExportFormat.CSV),
+				any(OutputStream.class))).thenAnswer(invocation -> {
+					OutputStream out = invocation.getArgument(5);
+					out.write("objectId,Make,Year,Model,Category\r\nA1,Audi,2020,Q3,SUV\r\n"
+							.getBytes(StandardCharsets.UTF_8));
+					return 1L;
+				});
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/export")
+				.param("makeName", "Audi")
+				.param("format", "csv"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith("text/csv"))
+		.andExpect(MockMvcResultMatchers.header().string("Content-Disposition", "attachment; filename=\"cars.csv\""))
+		.andExpect(MockMvcResultMatchers.header().doesNotExist("Content-Encoding"))
+		.andExpect(MockMvcResultMatchers.header().doesNotExist("ETag"))
+		.andExpect(MockMvcResultMatchers.content().string(
+				"objectId,Make,Year,Model,Category\r\nA1,Audi,2020,Q3,SUV\r\n"));
+	}
+
+	@Test
+	void exportCars_AcceptsGzip_CompressesBody() throws Exception {
+
+		String line = "{\"id\":1,\"make\":\"Audi\",\"model\":\"Q3\",\"category\":\"SUV\",\"year\":2020,\"objectId\":\"A1\"}\n";
+
+		when(exportService.exportCars(isNull(), isNull(), isNull(), isNull(), eq(ExportFormat.NDJSON),
+				any(OutputStream.class))).thenAnswer(invocation -> {
+					OutputStream out = invocation.getArgument(5);
+					out.write(line.getBytes(StandardCharsets.UTF_8));
+					return 1L;
+				});
+
+		byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/export")
+				.header("Accept-Encoding", "gzip, deflate"))
+		.andExpect(MockMvcResultMatchers.status().isOk())
+		.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(CarController.NDJSON_VALUE))
+		.andExpect(MockMvcResultMatchers.header().string("Content-Encoding", "gzip"))
+		.andReturn().getResponse().getContentAsByteArray();
+
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(line);
+		}
+	}
+
+	@Test
+	void exportCars_UnknownFormat_ReturnsBadRequest() throws Exception {
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/cars/export")
+				.param("format", "xml"))
+		.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		verifyNoInteractions(exportService);
+	}
 }
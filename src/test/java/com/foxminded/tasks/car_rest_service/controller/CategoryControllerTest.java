@@ -25,6 +25,7 @@ import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.UpsertCategoryDTO;
 import com.foxminded.tasks.car_rest_service.service.CarService;
 import com.foxminded.tasks.car_rest_service.service.CategoryService;
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -43,6 +44,9 @@ class CategoryControllerTest {
 	
 	@MockBean
 	CarService carService;
+
+	@MockBean
+	CatalogVersion catalogVersion;
 	
 	@Test
 	void getFilteredCategories_ValidRequest_ReturnsCategories() throws Exception {
@@ -50,14 +54,14 @@ class CategoryControllerTest {
 		CategoryDTO categoryDto = new CategoryDTO(1L, "Name");
 		Page<CategoryDTO> page = new PageImpl<>(List.of(categoryDto), PageRequest.of(0, 10), 1);
 		
-		when(service.filterCategories(any(), any(Pageable.class))).thenReturn(page);
+		when(service.filterCategories(any(), any(Pageable.class), any())).thenReturn(page);
 		
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/categories"))
         .andExpect(MockMvcResultMatchers.status().isOk())
         .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
         .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].name").value("Name"));
         
-        verify(service, times(1)).filterCategories(any(), any(Pageable.class));	
+        verify(service, times(1)).filterCategories(any(), any(Pageable.class), any());	
 	}
 
 	@Test
@@ -176,11 +180,12 @@ class CategoryControllerTest {
 		
 		Long id = 1L;
 		
-		doNothing().when(carService).deleteCategoryAndAssociations(anyLong());
+		when(carService.deleteCategoryAndAssociations(anyLong())).thenReturn(3);
 		
 		mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/categories/{id}", id)
 				.with(csrf()))
-		.andExpect(MockMvcResultMatchers.status().isNoContent());
+		.andExpect(MockMvcResultMatchers.status().isNoContent())
+		.andExpect(MockMvcResultMatchers.header().string("X-Cars-Deleted", "3"));
 		
 		verify(carService, times(1)).deleteCategoryAndAssociations(anyLong());
 	}
@@ -0,0 +1,149 @@
+package com.foxminded.tasks.car_rest_service.controller;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.service.ImportJobService;
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@WebMvcTest(ImportController.class)
+@WithMockUser
+class ImportControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	ImportJobService service;
+
+	@MockBean
+	CatalogVersion catalogVersion;
+
+	@Test
+	void uploadCsvFile_ValidFile_ReturnsAccepted() throws Exception {
+
+		ImportJobDTO jobDto = new ImportJobDTO("job-id", ImportState.PENDING, ImportMode.APPEND, 0, 0, 0, 0, 0, 0, null,
+				null, null);
+		MockMultipartFile file = new MockMultipartFile("file", "cars.csv", "text/csv",
+				"objectId,Make,Year,Model,Category\n".getBytes());
+
+		when(service.submit(any(MultipartFile.class), eq(ImportMode.APPEND), eq(false))).thenReturn(jobDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.multipart("/api/v1/imports")
+				.file(file)
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isAccepted())
+				.andExpect(MockMvcResultMatchers.header().string("Location", "/api/v1/imports/job-id"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.id").value("job-id"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.state").value("PENDING"));
+
+		verify(service, times(1)).submit(any(MultipartFile.class), eq(ImportMode.APPEND), eq(false));
+	}
+
+	@Test
+	void uploadCsvStream_RawBody_ReturnsAccepted() throws Exception {
+
+		ImportJobDTO jobDto = new ImportJobDTO("job-id", ImportState.PENDING, ImportMode.APPEND, 0, 0, 0, 0, 0, 0, null,
+				null, null);
+
+		when(service.submit(any(InputStream.class), eq(ImportMode.APPEND), eq(false))).thenReturn(jobDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/imports")
+				.contentType("text/csv")
+				.content("objectId,Make,Year,Model,Category\n")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isAccepted())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.id").value("job-id"));
+
+		verify(service, times(1)).submit(any(InputStream.class), eq(ImportMode.APPEND), eq(false));
+	}
+
+	@Test
+	void uploadCsvStream_SyncMode_PassesModeToService() throws Exception {
+
+		ImportJobDTO jobDto = new ImportJobDTO("job-id", ImportState.PENDING, ImportMode.SYNC, 0, 0, 0, 0, 0, 0, null,
+				null, null);
+
+		when(service.submit(any(InputStream.class), eq(ImportMode.SYNC), eq(true))).thenReturn(jobDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/imports")
+				.param("mode", "SYNC")
+				.param("deleteMissing", "true")
+				.contentType("text/csv")
+				.content("objectId,Make,Year,Model,Category\n")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isAccepted())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.mode").value("SYNC"));
+	}
+
+	@Test
+	void uploadCsvStream_DeleteMissingInAppendMode_ReturnsBadRequest() throws Exception {
+
+		when(service.submit(any(InputStream.class), eq(ImportMode.APPEND), eq(true)))
+				.thenThrow(new IllegalArgumentException());
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/imports")
+				.param("deleteMissing", "true")
+				.contentType("text/csv")
+				.content("objectId,Make,Year,Model,Category\n")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void uploadCsvStream_OverUploadLimit_ReturnsPayloadTooLarge() throws Exception {
+
+		when(service.submit(any(InputStream.class), eq(ImportMode.APPEND), eq(false)))
+				.thenThrow(new MaxUploadSizeExceededException(10));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/imports")
+				.contentType("text/csv")
+				.content("objectId,Make,Year,Model,Category\n")
+				.with(csrf()))
+				.andExpect(MockMvcResultMatchers.status().isPayloadTooLarge());
+	}
+
+	@Test
+	void getImportJob_JobExists_ReturnsJob() throws Exception {
+
+		ImportJobDTO jobDto = new ImportJobDTO("job-id", ImportState.IMPORTING, ImportMode.APPEND, 1000, 0, 0, 0, 3, 500.0,
+				null, null, null);
+
+		when(service.findById(anyString())).thenReturn(jobDto);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/imports/{id}", "job-id"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.rowsImported").value(1000))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.rowsRejected").value(3))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.rowsPerSecond").value(500.0));
+	}
+
+	@Test
+	void getImportJob_JobNotExists_ReturnsNotFound() throws Exception {
+
+		when(service.findById(anyString())).thenThrow(new EntityNotFoundException());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/imports/{id}", "job-id"))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+	}
+}
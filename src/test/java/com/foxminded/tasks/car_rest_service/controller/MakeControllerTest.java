@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -25,6 +27,7 @@ import com.foxminded.tasks.car_rest_service.dto.make.UpsertMakeDTO;
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
 import com.foxminded.tasks.car_rest_service.service.CarService;
 import com.foxminded.tasks.car_rest_service.service.MakeService;
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -43,6 +46,9 @@ class MakeControllerTest {
 	
 	@MockBean
 	CarService carService;
+
+	@MockBean
+	CatalogVersion catalogVersion;
 	
 	@Test
 	void getFilteredMakes_ValidRequest_ReturnsMakes() throws Exception {
@@ -50,14 +56,14 @@ class MakeControllerTest {
 		MakeDTO makeDto = new MakeDTO(1L, "Name");
 		Page<MakeDTO> page = new PageImpl<>(List.of(makeDto), PageRequest.of(0, 10), 1);
 		
-		when(service.filterMakes(any(), any(Pageable.class))).thenReturn(page);
+		when(service.filterMakes(any(), any(Pageable.class), any())).thenReturn(page);
 		
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/makes"))
         .andExpect(MockMvcResultMatchers.status().isOk())
         .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
         .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].name").value("Name"));
         
-        verify(service, times(1)).filterMakes(any(), any(Pageable.class));	
+        verify(service, times(1)).filterMakes(any(), any(Pageable.class), any());	
 	}
 
 	@Test
@@ -75,6 +81,39 @@ class MakeControllerTest {
         verify(service, times(1)).findById(anyLong());
 	}
 	
+	@Test
+	void getMake_IfNoneMatchCurrentVersion_ReturnsNotModified() throws Exception {
+
+		when(service.findById(anyLong())).thenReturn(new MakeDTO(1L, "Name", 2));
+		when(service.findVersion(1L)).thenReturn(Optional.of(2L));
+
+		String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/makes/{id}", 1L))
+				.andExpect(MockMvcResultMatchers.header().string("Cache-Control", "no-cache"))
+				.andExpect(MockMvcResultMatchers.header().string("ETag", "\"2\""))
+				.andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/makes/{id}", 1L)
+        		.header("If-None-Match", etag))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(MockMvcResultMatchers.header().string("ETag", etag))
+        .andExpect(MockMvcResultMatchers.content().string(""));
+
+        verify(service, times(1)).findById(anyLong());
+	}
+
+	@Test
+	void getMake_IfNoneMatchOlderVersion_ReturnsMake() throws Exception {
+
+		when(service.findById(anyLong())).thenReturn(new MakeDTO(1L, "Name", 3));
+		when(service.findVersion(1L)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/makes/{id}", 1L)
+        		.header("If-None-Match", "\"2\""))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Name"));
+	}
+
 	@Test
 	void getMake_MakeNotExists_ReturnsNotFound() throws Exception {
 		
@@ -128,7 +167,7 @@ class MakeControllerTest {
 		MakeDTO makeDto = new MakeDTO(1L, "Name");
 		String makeJson = objectMapper.writeValueAsString(makeDto);
 		
-		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class))).thenReturn(makeDto);
+		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class), isNull())).thenReturn(makeDto);
 		
         mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/makes/{id}", id)
         		.contentType("application/json")
@@ -138,16 +177,30 @@ class MakeControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Name"));
         
-        verify(service, times(1)).updateMake(anyLong(), any(UpsertMakeDTO.class));
+        verify(service, times(1)).updateMake(anyLong(), any(UpsertMakeDTO.class), isNull());
 	}
 	
+	@Test
+	void updateMake_IfMatchStaleVersion_ReturnsPreconditionFailed() throws Exception {
+
+		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class), eq(3L)))
+				.thenThrow(new OptimisticLockingFailureException("ID: 1 Make has changed since version 3"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/makes/{id}", 1L)
+        		.header("If-Match", "\"3\"")
+        		.contentType(MediaType.APPLICATION_JSON)
+        		.content("{\"name\": \"LADA\"}")
+        		.with(csrf()))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+	}
+
 	@Test
 	void updateMake_InvalidMakeId_ReturnsNotFound() throws Exception {
 		
 		Long id = 1L;
 		String upsertMakeDtoJson = "{\"name\": \"LADA\"}";
 		
-		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class))).thenThrow(new EntityNotFoundException());
+		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class), isNull())).thenThrow(new EntityNotFoundException());
 		
         mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/makes/{id}", id)
         		.contentType(MediaType.APPLICATION_JSON)
@@ -162,7 +215,7 @@ class MakeControllerTest {
 		Long id = 1L;
 		String upsertMakeDtoJson = "{\"name\": \"LADA\"}";
 		
-		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class))).thenThrow(new IllegalArgumentException());
+		when(service.updateMake(anyLong(), any(UpsertMakeDTO.class), isNull())).thenThrow(new IllegalArgumentException());
 		
 		mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/makes/{id}", id)
 				.contentType(MediaType.APPLICATION_JSON)
@@ -176,11 +229,12 @@ class MakeControllerTest {
 		
 		Long id = 1L;
 		
-		doNothing().when(carService).deleteMakeAndAssociations(anyLong());
+		when(carService.deleteMakeAndAssociations(anyLong())).thenReturn(3);
 		
 		mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/makes/{id}", id)
 				.with(csrf()))
-		.andExpect(MockMvcResultMatchers.status().isNoContent());
+		.andExpect(MockMvcResultMatchers.status().isNoContent())
+		.andExpect(MockMvcResultMatchers.header().string("X-Cars-Deleted", "3"));
 		
 		verify(carService, times(1)).deleteMakeAndAssociations(anyLong());
 	}
@@ -27,6 +27,7 @@ import com.foxminded.tasks.car_rest_service.dto.model.UpsertModelDTO;
 import com.foxminded.tasks.car_rest_service.entity.Model;
 import com.foxminded.tasks.car_rest_service.service.CarService;
 import com.foxminded.tasks.car_rest_service.service.ModelService;
+import com.foxminded.tasks.car_rest_service.service.CatalogVersion;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -45,6 +46,9 @@ class ModelControllerTest {
 	
 	@MockBean
 	CarService carService;
+
+	@MockBean
+	CatalogVersion catalogVersion;
 	
 	@Test
 	void getFilteredModels_ValidRequest_ReturnsModels() throws Exception {
@@ -52,14 +56,14 @@ class ModelControllerTest {
 		ModelDTO modelDto = new ModelDTO(1L, "Name");
 		Page<ModelDTO> page = new PageImpl<>(List.of(modelDto), PageRequest.of(0, 10), 1);
 		
-		when(service.filterModels(any(), any(Pageable.class))).thenReturn(page);
+		when(service.filterModels(any(), any(Pageable.class), any())).thenReturn(page);
 		
         mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/models"))
         .andExpect(MockMvcResultMatchers.status().isOk())
         .andExpect(MockMvcResultMatchers.jsonPath("$.content.length()").value(1))
         .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].name").value("Name"));
         
-        verify(service, times(1)).filterModels(any(), any(Pageable.class));	
+        verify(service, times(1)).filterModels(any(), any(Pageable.class), any());	
 	}
 
 	@Test
@@ -178,11 +182,12 @@ class ModelControllerTest {
 		
 		Long id = 1L;
 		
-		doNothing().when(carService).deleteModelAndAssociations(anyLong());
+		when(carService.deleteModelAndAssociations(anyLong())).thenReturn(3);
 		
 		mockMvc.perform(MockMvcRequestBuilders.delete("/api/v1/models/{id}", id)
 				.with(csrf()))
-		.andExpect(MockMvcResultMatchers.status().isNoContent());
+		.andExpect(MockMvcResultMatchers.status().isNoContent())
+		.andExpect(MockMvcResultMatchers.header().string("X-Cars-Deleted", "3"));
 		
 		verify(carService, times(1)).deleteModelAndAssociations(anyLong());
 	}
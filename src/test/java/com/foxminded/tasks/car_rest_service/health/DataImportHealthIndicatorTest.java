@@ -0,0 +1,71 @@
+package com.foxminded.tasks.car_rest_service.health;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.service.DataImportService;
+import com.foxminded.tasks.car_rest_service.service.ImportProgress;
+
+@ExtendWith(MockitoExtension.class)
+class DataImportHealthIndicatorTest {
+
+	@InjectMocks
+	DataImportHealthIndicator healthIndicator;
+
+	@Mock
+	DataImportService dataImportService;
+
+	@Test
+	void health_ImportInProgress_ReturnsImportingWithProgress() {
+
+		ImportProgress progress = new ImportProgress();
+		progress.setState(ImportState.IMPORTING);
+		progress.setRowsTotal(100);
+		progress.addImported(40);
+		progress.addRejected(2);
+
+		when(dataImportService.getProgress()).thenReturn(progress);
+
+		Health actual = healthIndicator.health();
+
+		assertThat(actual.getStatus()).isEqualTo(DataImportHealthIndicator.IMPORTING);
+		assertThat(actual.getDetails()).containsEntry("rowsDone", 42L)
+									   .containsEntry("rowsTotal", 100L)
+									   .containsEntry("rowsRejected", 2L);
+	}
+
+	@Test
+	void health_ImportCompleted_ReturnsUp() {
+
+		ImportProgress progress = new ImportProgress();
+		progress.setState(ImportState.COMPLETED);
+
+		when(dataImportService.getProgress()).thenReturn(progress);
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+	}
+
+	@Test
+	void health_ImportFailed_ReturnsUpWithError() {
+
+		ImportProgress progress = new ImportProgress();
+		progress.fail(new IllegalStateException("Connection refused"));
+
+		when(dataImportService.getProgress()).thenReturn(progress);
+
+		Health actual = healthIndicator.health();
+
+		assertThat(actual.getStatus()).isEqualTo(Status.UP);
+		assertThat(actual.getDetails()).containsEntry("state", ImportState.FAILED)
+									   .containsEntry("error", "Connection refused");
+	}
+}
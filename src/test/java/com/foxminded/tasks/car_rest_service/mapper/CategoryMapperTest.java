@@ -29,8 +29,8 @@ class CategoryMapperTest {
 	@Test
 	void dtoToCategory_ValidDto_ReturnsExpected() {
 		
-		Category expected = new Category(1L, "Name");
-		CategoryDTO categoryDto = new CategoryDTO(1L, "Name");
+		Category expected = new Category(1L, "Name", 2L);
+		CategoryDTO categoryDto = new CategoryDTO(1L, "Name", 2L);
 		
 		Category actual = mapper.dtoToCategory(categoryDto);
 		
@@ -0,0 +1,65 @@
+package com.foxminded.tasks.car_rest_service.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobMapperTest {
+
+	@InjectMocks
+	ImportJobMapper mapper;
+
+	@Test
+	void importJobToDto_FinishedJob_ReturnsExpected() {
+
+		Instant startedAt = Instant.parse("2025-01-01T00:00:00Z");
+		Instant finishedAt = Instant.parse("2025-01-01T00:00:02Z");
+		ImportJob job = new ImportJob("id", ImportState.COMPLETED, ImportMode.APPEND, "node", null, null, 1000, 0, 0, 0,
+				5, 1005, "file.csv", null, startedAt, finishedAt, finishedAt);
+		ImportJobDTO expected = new ImportJobDTO("id", ImportState.COMPLETED, ImportMode.APPEND, 1000, 0, 0, 0, 5,
+				500.0, startedAt, finishedAt, null);
+
+		ImportJobDTO actual = mapper.importJobToDto(job);
+
+		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+	}
+
+	@Test
+	void importJobToDto_FinishedSyncJob_CountsUpdatedAndUnchangedRowsInThroughput() {
+
+		Instant startedAt = Instant.parse("2025-01-01T00:00:00Z");
+		Instant finishedAt = Instant.parse("2025-01-01T00:00:02Z");
+		ImportJob job = new ImportJob("id", ImportState.COMPLETED, ImportMode.SYNC, "node", null, null, 100, 200, 50,
+				700, 0, 1000, "file.csv", null, startedAt, finishedAt, finishedAt);
+
+		ImportJobDTO actual = mapper.importJobToDto(job);
+
+		assertThat(actual.getMode()).isEqualTo(ImportMode.SYNC);
+		assertThat(actual.getRowsUpdated()).isEqualTo(200);
+		assertThat(actual.getRowsDeleted()).isEqualTo(50);
+		assertThat(actual.getRowsUnchanged()).isEqualTo(700);
+		assertThat(actual.getRowsPerSecond()).isEqualTo(500.0);
+	}
+
+	@Test
+	void importJobToDto_PendingJob_ReturnsZeroThroughput() {
+
+		ImportJob job = new ImportJob("id", ImportState.PENDING, ImportMode.APPEND, null, null, null, 0, 0, 0, 0, 0, 0,
+				null, null, null, null, null);
+
+		ImportJobDTO actual = mapper.importJobToDto(job);
+
+		assertThat(actual.getRowsPerSecond()).isZero();
+	}
+}
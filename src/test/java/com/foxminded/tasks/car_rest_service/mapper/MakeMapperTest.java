@@ -29,8 +29,8 @@ class MakeMapperTest {
 	@Test
 	void dtoToMake_ValidDto_ReturnsExpected() {
 		
-		Make expected = new Make(1L, "Name");
-		MakeDTO makeDto = new MakeDTO(1L, "Name");
+		Make expected = new Make(1L, "Name", 2L);
+		MakeDTO makeDto = new MakeDTO(1L, "Name", 2L);
 		
 		Make actual = mapper.dtoToMake(makeDto);
 		
@@ -29,8 +29,8 @@ class ModelMapperTest {
 	@Test
 	void dtoToModel_ValidDto_ReturnsExpected() {
 		
-		Model expected = new Model(1L, "Name");
-		ModelDTO modelDto = new ModelDTO(1L, "Name");
+		Model expected = new Model(1L, "Name", 2L);
+		ModelDTO modelDto = new ModelDTO(1L, "Name", 2L);
 		
 		Model actual = mapper.dtoToModel(modelDto);
 		
@@ -0,0 +1,206 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.foxminded.tasks.car_rest_service.config.JpaRepositoryConfig;
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.entity.Car;
+import com.foxminded.tasks.car_rest_service.entity.Category;
+import com.foxminded.tasks.car_rest_service.entity.Make;
+import com.foxminded.tasks.car_rest_service.entity.Model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/*
+ * Compares the write paths for N cars: entities persisted with IDENTITY ids against pooled
+ * sequence ids, on scratch tables created by the test, entities saved through JPA, and the
+ * unnest insert used by the importer and batch endpoint. Throughput is logged; the assertions
+ * only pin the number of round trips.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import({ JpaRepositoryConfig.class, CarJdbcRepository.class })
+class CarInsertBenchmarkTest {
+
+	private static final int CARS = 5000;
+
+	@Autowired
+	CarRepository carRepository;
+
+	@Autowired
+	CarJdbcRepository carJdbcRepository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Logger logger = LoggerFactory.getLogger(CarInsertBenchmarkTest.class);
+	Statistics statistics;
+	Make make;
+	Model model;
+	Category category;
+
+	@BeforeEach
+	void setUp() {
+
+		make = entityManager.persist(new Make("BenchMake"));
+		model = entityManager.persist(new Model("BenchModel"));
+		category = entityManager.persist(new Category("BenchCategory"));
+		entityManager.flush();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void persist_IdentityAgainstPooledSequenceIds_OnlyPooledIdsBatch() {
+
+		entityManager.getEntityManager().createNativeQuery("""
+				create table car_service.bench_identity_car (
+					id bigint generated by default as identity primary key,
+					object_id varchar(255) not null)
+				""").executeUpdate();
+		entityManager.getEntityManager().createNativeQuery(
+				"create sequence car_service.bench_pooled_car_seq increment by 50").executeUpdate();
+		entityManager.getEntityManager().createNativeQuery("""
+				create table car_service.bench_pooled_car (
+					id bigint primary key,
+					object_id varchar(255) not null)
+				""").executeUpdate();
+
+		persistAll(CARS / 10, i -> new IdentityCar("WarmUpIdentity" + i));
+		persistAll(CARS / 10, i -> new PooledCar("WarmUpPooled" + i));
+
+		statistics.clear();
+		long identityNanos = persistAll(CARS, i -> new IdentityCar("Identity" + i));
+		long identityStatements = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		long pooledNanos = persistAll(CARS, i -> new PooledCar("Pooled" + i));
+		long pooledStatements = statistics.getPrepareStatementCount();
+
+		logger.info("IDENTITY ids: {} rows in {} ms, {} rows/s, {} statements.", CARS, identityNanos / 1_000_000,
+				Math.round(CARS * 1e9 / identityNanos), identityStatements);
+		logger.info("Pooled sequence ids: {} rows in {} ms, {} rows/s, {} statements.", CARS,
+				pooledNanos / 1_000_000, Math.round(CARS * 1e9 / pooledNanos), pooledStatements);
+
+		assertThat(identityStatements).isGreaterThanOrEqualTo(CARS);
+		assertThat(pooledStatements).isLessThan(CARS / 10);
+	}
+
+	@Test
+	void saveAll_ManyCars_InsertsInJdbcBatches() {
+
+		List<Car> cars = new ArrayList<>();
+		for (int i = 0; i < CARS; i++) {
+			cars.add(new Car(make, model, category, Year.of(2020), "JPA" + i));
+		}
+
+		long startedAt = System.nanoTime();
+		carRepository.saveAll(cars);
+		entityManager.flush();
+		long elapsedNanos = System.nanoTime() - startedAt;
+
+		logger.info("JPA saveAll: {} cars in {} ms, {} rows/s, {} statements.", CARS, elapsedNanos / 1_000_000,
+				Math.round(CARS * 1e9 / elapsedNanos), statistics.getPrepareStatementCount());
+
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(CARS / 10);
+	}
+
+	@Test
+	void insertCars_ManyCars_InsertsWithOneStatement() {
+
+		List<CreateCarDTO> cars = new ArrayList<>();
+		for (int i = 0; i < CARS; i++) {
+			cars.add(new CreateCarDTO("BenchMake", "BenchModel", "BenchCategory", 2020, "JDBC" + i));
+		}
+
+		long startedAt = System.nanoTime();
+		int inserted = carJdbcRepository.insertCars(cars, Map.of("BenchMake", make.getId()),
+				Map.of("BenchModel", model.getId()), Map.of("BenchCategory", category.getId()));
+		long elapsedNanos = System.nanoTime() - startedAt;
+
+		logger.info("JDBC unnest insert: {} cars in {} ms, {} rows/s.", CARS, elapsedNanos / 1_000_000,
+				Math.round(CARS * 1e9 / elapsedNanos));
+
+		assertThat(inserted).isEqualTo(CARS);
+	}
+
+	private long persistAll(int count, IntFunction<Object> entity) {
+
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			entityManager.persist(entity.apply(i));
+		}
+		entityManager.flush();
+		long elapsedNanos = System.nanoTime() - startedAt;
+		entityManager.clear();
+
+		return elapsedNanos;
+	}
+
+	@Entity
+	@Table(name = "bench_identity_car", schema = "car_service")
+	static class IdentityCar {
+
+		@Id
+		@GeneratedValue(strategy = GenerationType.IDENTITY)
+		Long id;
+
+		String objectId;
+
+		IdentityCar() {
+		}
+
+		IdentityCar(String objectId) {
+			this.objectId = objectId;
+		}
+	}
+
+	@Entity
+	@Table(name = "bench_pooled_car", schema = "car_service")
+	static class PooledCar {
+
+		@Id
+		@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_pooled_car_seq")
+		@SequenceGenerator(name = "bench_pooled_car_seq", schema = "car_service",
+				sequenceName = "bench_pooled_car_seq", allocationSize = 50)
+		Long id;
+
+		String objectId;
+
+		PooledCar() {
+		}
+
+		PooledCar(String objectId) {
+			this.objectId = objectId;
+		}
+	}
+}
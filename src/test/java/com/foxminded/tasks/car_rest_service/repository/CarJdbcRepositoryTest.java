@@ -0,0 +1,82 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.foxminded.tasks.car_rest_service.config.JpaRepositoryConfig;
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.entity.Car;
+import com.foxminded.tasks.car_rest_service.entity.Category;
+import com.foxminded.tasks.car_rest_service.entity.Make;
+import com.foxminded.tasks.car_rest_service.entity.Model;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import({ JpaRepositoryConfig.class, CarJdbcRepository.class })
+class CarJdbcRepositoryTest {
+
+	@Autowired
+	CarJdbcRepository carJdbcRepository;
+
+	@Autowired
+	CarRepository carRepository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Long changedId;
+	Long unchangedId;
+
+	@BeforeEach
+	void setUp() {
+
+		Make make = entityManager.persist(new Make("Audi"));
+		Model model = entityManager.persist(new Model("Q3"));
+		Category category = entityManager.persist(new Category("SUV"));
+		changedId = entityManager.persist(new Car(make, model, category, Year.of(2020), "Sync1")).getId();
+		unchangedId = entityManager.persist(new Car(make, model, category, Year.of(2020), "Sync2")).getId();
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void updateChangedCars_CarChangedInFile_IncrementsItsVersion() {
+
+		carJdbcRepository.stageCars("job", List.of(new CreateCarDTO("Audi", "Q3", "SUV", 2021, "Sync1"),
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "Sync2")));
+		carJdbcRepository.resolveStagedNames("job");
+
+		int updated = carJdbcRepository.updateChangedCars("job");
+
+		assertThat(updated).isEqualTo(1);
+		assertThat(carRepository.findById(changedId).orElseThrow().getVersion()).isEqualTo(1);
+		assertThat(carRepository.findById(changedId).orElseThrow().getYear()).isEqualTo(Year.of(2021));
+		assertThat(carRepository.findById(unchangedId).orElseThrow().getVersion()).isZero();
+	}
+
+	@Test
+	void resolveMakeIds_ExistingAndNewNames_ReturnsIdOfEach() {
+
+		Long audiId = entityManager.getEntityManager()
+				.createQuery("select m.id from Make m where m.name = 'Audi'", Long.class).getSingleResult();
+
+		Map<String, Long> ids = carJdbcRepository.resolveMakeIds(List.of("Audi", "BMW"));
+
+		assertThat(ids).containsEntry("Audi", audiId).containsKey("BMW").hasSize(2);
+	}
+}
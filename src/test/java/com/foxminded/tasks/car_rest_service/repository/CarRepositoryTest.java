@@ -0,0 +1,175 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.foxminded.tasks.car_rest_service.config.JpaRepositoryConfig;
+import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+import com.foxminded.tasks.car_rest_service.entity.Car;
+import com.foxminded.tasks.car_rest_service.entity.Category;
+import com.foxminded.tasks.car_rest_service.entity.Make;
+import com.foxminded.tasks.car_rest_service.entity.Model;
+import com.foxminded.tasks.car_rest_service.mapper.CarMapper;
+import com.foxminded.tasks.car_rest_service.specification.CarSpecification;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import(JpaRepositoryConfig.class)
+class CarRepositoryTest {
+
+	@Autowired
+	CarRepository carRepository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	CarMapper mapper = new CarMapper();
+	Statistics statistics;
+	Long carId;
+
+	@BeforeEach
+	void setUp() {
+
+		for (int i = 0; i < 5; i++) {
+			Make make = entityManager.persist(new Make("Make" + i));
+			Model model = entityManager.persist(new Model("Model" + i));
+			Category category = entityManager.persist(new Category("Category" + i));
+			carId = entityManager.persist(new Car(make, model, category, Year.of(2020), "Object" + i)).getId();
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void findListItems_PageOfCars_SelectsDtoRowsWithoutLoadingEntities() {
+
+		Page<CarListItemDTO> page = carRepository.findListItems(
+				Specification.where(CarSpecification.filterByMake("Make1")), PageRequest.of(0, 3));
+
+		assertThat(page.getContent()).singleElement()
+				.usingRecursiveComparison()
+				.isEqualTo(new CarListItemDTO("Make1", "Model1", "Category1", 2020));
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void findListItemsAfter_WalkingAllPages_ReturnsEveryCarOnceInIdOrder() {
+
+		List<CarListItemDTO> walked = new ArrayList<>();
+		long afterId = 0;
+		Window<CarListItemDTO> window;
+
+		do {
+			window = carRepository.findListItemsAfter(Specification.where(CarSpecification.filterByYear(2020)),
+					afterId, 2);
+			walked.addAll(window.getContent());
+
+			if (!window.isEmpty()) {
+				KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+				afterId = (Long) position.getKeys().get("id");
+			}
+		} while (window.hasNext());
+
+		assertThat(walked).extracting(CarListItemDTO::getMake)
+				.containsExactly("Make0", "Make1", "Make2", "Make3", "Make4");
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void deleteAllByMakeId_MakeWithCars_DeletesCarsWithOneStatement() {
+
+		Long makeId = carRepository.findById(carId).orElseThrow().getMake().getId();
+		entityManager.clear();
+		statistics.clear();
+
+		int deleted = carRepository.deleteAllByMakeId(makeId);
+
+		assertThat(deleted).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(carRepository.findById(carId)).isEmpty();
+	}
+
+	@Test
+	void streamCars_FilterByYear_StreamsMatchingCarsInIdOrderWithoutLoadingEntities() {
+
+		List<CarDTO> cars;
+
+		try (Stream<CarDTO> stream = carRepository.streamCars(CarSpecification.filterByYear(2020), 2)) {
+			cars = stream.toList();
+		}
+
+		assertThat(cars).hasSize(5);
+		assertThat(cars).extracting(CarDTO::getId).isSorted();
+		assertThat(cars).extracting(CarDTO::getObjectId).containsExactly("Object0", "Object1", "Object2", "Object3",
+				"Object4");
+		assertThat(statistics.getEntityLoadCount()).isZero();
+	}
+
+	@Test
+	void updateMatching_FilterByMake_UpdatesMatchingCarsWithOneStatement() {
+
+		Category category = entityManager.find(Category.class,
+				carRepository.findById(carId).orElseThrow().getCategory().getId());
+		entityManager.clear();
+		statistics.clear();
+
+		int updated = carRepository.updateMatching(CarSpecification.filterByMake("Make0"), null, null, category,
+				Year.of(2021));
+
+		assertThat(updated).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		Car car = carRepository.findAll(CarSpecification.filterByMake("Make0")).get(0);
+		assertThat(car.getCategory().getName()).isEqualTo("Category4");
+		assertThat(car.getYear()).isEqualTo(Year.of(2021));
+		assertThat(car.getVersion()).isEqualTo(1);
+		assertThat(carRepository.count(CarSpecification.filterByYear(2020))).isEqualTo(4);
+	}
+
+	@Test
+	void deleteMatching_FilterByYear_DeletesMatchingCarsWithOneStatement() {
+
+		int deleted = carRepository.deleteMatching(CarSpecification.filterByYear(2020));
+
+		assertThat(deleted).isEqualTo(5);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(carRepository.count()).isZero();
+	}
+
+	@Test
+	void findById_CarExists_LoadsCarAndAssociationsWithOneSelect() {
+
+		CarDTO car = mapper.carToCarDto(carRepository.findById(carId).orElseThrow());
+
+		assertThat(car.getMake()).isEqualTo("Make4");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+}
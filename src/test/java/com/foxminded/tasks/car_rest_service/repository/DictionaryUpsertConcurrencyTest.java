@@ -0,0 +1,104 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.foxminded.tasks.car_rest_service.config.JpaRepositoryConfig;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import(JpaRepositoryConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DictionaryUpsertConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int CALLS = 4000;
+	private static final int NAMES = 25;
+
+	@Autowired
+	MakeRepository makeRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void tearDown() {
+
+		jdbcTemplate.update("delete from car_service.make where name like 'Concurrent%'");
+	}
+
+	@Test
+	void upsertByName_ParallelCallsWithSameNames_InsertEachNameOnceAndReturnItsId() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		Map<String, Set<Long>> idsByName = new ConcurrentHashMap<>();
+		List<Callable<Void>> calls = new ArrayList<>();
+
+		for (int i = 0; i < CALLS; i++) {
+			String name = "Concurrent" + (i % NAMES);
+			calls.add(() -> {
+				start.await();
+				Long id = makeRepository.upsertByName(name);
+				idsByName.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(id);
+				return null;
+			});
+		}
+
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (Callable<Void> call : calls) {
+				futures.add(executor.submit(call));
+			}
+			start.countDown();
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Long rows = jdbcTemplate.queryForObject("select count(*) from car_service.make where name like 'Concurrent%'",
+				Long.class);
+
+		assertThat(rows).isEqualTo(NAMES);
+		assertThat(idsByName).hasSize(NAMES).allSatisfy((name, ids) -> assertThat(ids).hasSize(1).doesNotContainNull());
+	}
+
+	@Test
+	void upsertByName_ExistingName_ReturnsIdWithoutWritingRow() {
+
+		Long id = makeRepository.upsertByName("Concurrent");
+		String xmin = jdbcTemplate.queryForObject("select xmin::text from car_service.make where id = ?", String.class, id);
+
+		Long actual = makeRepository.upsertByName("Concurrent");
+
+		assertThat(actual).isEqualTo(id);
+		assertThat(jdbcTemplate.queryForObject("select xmin::text from car_service.make where id = ?", String.class, id))
+				.isEqualTo(xmin);
+	}
+}
@@ -0,0 +1,259 @@
+package com.foxminded.tasks.car_rest_service.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.foxminded.tasks.car_rest_service.config.JpaRepositoryConfig;
+import com.foxminded.tasks.car_rest_service.specification.CarSpecification;
+
+/*
+ * Runs the repository methods, captures the statements Hibernate sends and explains them with
+ * the values they were bound to. The catalog is seeded large enough for the planner to choose
+ * its indexes on its own.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import({ JpaRepositoryConfig.class, CarJdbcRepository.class, IndexUsageTest.StatementCapture.class })
+class IndexUsageTest {
+
+	private static final List<CapturedStatement> statements = new CopyOnWriteArrayList<>();
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	MakeRepository makeRepository;
+
+	@Autowired
+	CarRepository carRepository;
+
+	@Autowired
+	CarJdbcRepository carJdbcRepository;
+
+	@BeforeEach
+	void setUp() {
+
+		jdbcTemplate.update("insert into car_service.make (name) select 'Make' || i from generate_series(0, 1999) i");
+		jdbcTemplate.update("insert into car_service.model (name) select 'Model' || i from generate_series(0, 1999) i");
+		jdbcTemplate.update("insert into car_service.category (name) select 'Category' || i from generate_series(0, 49) i");
+		jdbcTemplate.update("""
+				insert into car_service.car (make_id, model_id, category_id, year, object_id)
+				select mk.id, md.id, ct.id, 2000 + i % 20, 'C' || i
+				from generate_series(1, 100000) i
+				join (select id, row_number() over (order by id) - 1 as n from car_service.make) mk on mk.n = i % 2000
+				join (select id, row_number() over (order by id) - 1 as n from car_service.model) md on md.n = i % 2000
+				join (select id, row_number() over (order by id) - 1 as n from car_service.category) ct on ct.n = i % 50
+				""");
+		jdbcTemplate.execute("analyze car_service.make, car_service.model, car_service.category, car_service.car");
+		statements.clear();
+	}
+
+	@Test
+	void upsertByName_ExistingName_UsesUniqueNameIndex() {
+
+		makeRepository.upsertByName("Make7");
+
+		assertThat(explainCaptured("insert")).contains("make_name_uindex").doesNotContain("Seq Scan on make ");
+		assertThat(explainCaptured("select")).contains("make_name_uindex").doesNotContain("Seq Scan on make ");
+	}
+
+	@Test
+	void resolveMakeIds_ExistingAndNewNames_UsesUniqueNameIndex() {
+
+		carJdbcRepository.resolveMakeIds(List.of("Make7", "Make9", "NewMake"));
+
+		assertThat(explainCaptured("insert")).contains("make_name_uindex").doesNotContain("Seq Scan on make ");
+		assertThat(explainCaptured("select")).contains("make_name_uindex").doesNotContain("Seq Scan on make ");
+	}
+
+	@Test
+	void findListItemSlice_MakeAndYear_UsesMakeCompositeIndex() {
+
+		carRepository.findListItemSlice(CarSpecification.filter("Make7", null, null, 2007),
+				PageRequest.of(0, 10, Sort.by("id")));
+
+		assertThat(explainCaptured()).contains("make_name_uindex").contains("car_make_id_year_id_index")
+				.doesNotContain("Seq Scan on car ");
+	}
+
+	@Test
+	void findListItemSlice_Year_UsesYearIndex() {
+
+		carRepository.findListItemSlice(CarSpecification.filter(null, null, null, 2007),
+				PageRequest.of(0, 10, Sort.by("id")));
+
+		assertThat(explainCaptured()).contains("car_year_id_index").doesNotContain("Seq Scan on car ");
+	}
+
+	@Test
+	void findListItemsAfter_NoFilter_SeeksPrimaryKey() {
+
+		Long afterId = jdbcTemplate.queryForObject(
+				"select id from car_service.car order by id offset 50000 limit 1", Long.class);
+		statements.clear();
+
+		carRepository.findListItemsAfter(CarSpecification.filter(null, null, null, null), afterId, 10);
+
+		assertThat(explainCaptured()).contains("car_pkey").doesNotContain("Seq Scan on car ");
+	}
+
+	@Test
+	void insertMake_DuplicateName_ViolatesUniqueIndex() {
+
+		jdbcTemplate.update("insert into car_service.make (name) values ('Audi')");
+
+		assertThatThrownBy(() -> jdbcTemplate.update("insert into car_service.make (name) values ('Audi')"))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	private String explainCaptured() {
+
+		return explainCaptured("select");
+	}
+
+	/*
+	 * Prepares the last captured statement of the given kind again with positional parameters,
+	 * so the plan is the one the planner makes for the values the repository bound. Explaining
+	 * an insert does not run it.
+	 */
+	private String explainCaptured(String kind) {
+
+		CapturedStatement statement = statements.stream()
+				.filter(captured -> captured.sql().strip().toLowerCase().startsWith(kind))
+				.reduce((first, second) -> second)
+				.orElseThrow(() -> new AssertionError("No " + kind + " was captured"));
+
+		StringBuilder sql = new StringBuilder();
+		int parameter = 0;
+
+		for (char c : statement.sql().toCharArray()) {
+			if (c == '?') {
+				sql.append('$').append(++parameter);
+			} else {
+				sql.append(c);
+			}
+		}
+
+		String values = statement.parameters().values().stream()
+				.map(value -> value == null ? "null" : "'" + value.toString().replace("'", "''") + "'")
+				.collect(Collectors.joining(", "));
+
+		jdbcTemplate.execute("prepare captured as " + sql);
+
+		try {
+			List<String> plan = jdbcTemplate.queryForList(
+					"explain execute captured" + (values.isEmpty() ? "" : "(" + values + ")"), String.class);
+			return String.join("\n", plan);
+
+		} finally {
+			jdbcTemplate.execute("deallocate captured");
+		}
+	}
+
+	private record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+	}
+
+	@TestConfiguration
+	static class StatementCapture {
+
+		@Bean
+		static BeanPostProcessor capturingDataSource() {
+
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+					if (!(bean instanceof DataSource dataSource)) {
+						return bean;
+					}
+
+					return new DelegatingDataSource(dataSource) {
+						@Override
+						public Connection getConnection() throws SQLException {
+							return capture(super.getConnection());
+						}
+
+						@Override
+						public Connection getConnection(String username, String password) throws SQLException {
+							return capture(super.getConnection(username, password));
+						}
+					};
+				}
+			};
+		}
+
+		private static Connection capture(Connection connection) {
+
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+						Object result = invoke(method, connection, args);
+
+						if (result instanceof PreparedStatement preparedStatement
+								&& method.getName().equals("prepareStatement")) {
+							return capture(preparedStatement, (String) args[0]);
+						}
+						return result;
+					});
+		}
+
+		private static PreparedStatement capture(PreparedStatement preparedStatement, String sql) {
+
+			CapturedStatement statement = new CapturedStatement(sql, new TreeMap<>());
+
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+						String name = method.getName();
+
+						if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+							statement.parameters().put(index, name.equals("setNull") ? null : args[1]);
+
+						} else if (name.startsWith("execute")) {
+							statements.add(statement);
+						}
+						return invoke(method, preparedStatement, args);
+					});
+		}
+
+		private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+
+			try {
+				return method.invoke(target, args);
+
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
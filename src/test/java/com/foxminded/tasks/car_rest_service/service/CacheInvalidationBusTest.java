@@ -0,0 +1,149 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+	@Mock
+	JdbcTemplate jdbcTemplate;
+
+	CatalogVersion catalogVersion = new CatalogVersion();
+
+	DictionaryCache dictionaryCache = new DictionaryCache(new SimpleMeterRegistry(), 100);
+
+	@Test
+	void bump_Enabled_NotifiesOtherNodes() {
+
+		bus(true);
+
+		catalogVersion.bump();
+
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class),
+				eq(CacheInvalidationBus.CHANNEL), endsWith(";catalog"));
+	}
+
+	@Test
+	void invalidate_Enabled_NotifiesNameAndId() {
+
+		bus(true);
+
+		dictionaryCache.invalidate(Dictionary.MAKE, " Audi ");
+		dictionaryCache.invalidateId(Dictionary.MODEL, 7L);
+
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class),
+				eq(CacheInvalidationBus.CHANNEL), endsWith(";name;MAKE;Audi"));
+		verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class),
+				eq(CacheInvalidationBus.CHANNEL), endsWith(";id;MODEL;7"));
+	}
+
+	@Test
+	void bump_Disabled_SendsNothing() {
+
+		CacheInvalidationBus bus = bus(false);
+
+		catalogVersion.bump();
+		bus.start();
+
+		assertThat(bus.isRunning()).isFalse();
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void new_Enabled_BypassesCachesUntilListening() {
+
+		bus(true);
+		dictionaryCache.put(Dictionary.MAKE, "Audi", 1L);
+
+		assertThat(catalogVersion.isSynced()).isFalse();
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+	}
+
+	@Test
+	void new_Disabled_TrustsCaches() {
+
+		bus(false);
+
+		assertThat(catalogVersion.isSynced()).isTrue();
+	}
+
+	@Test
+	void start_ListenerCannotConnect_BypassesCachesAndKeepsRetrying() {
+
+		CacheInvalidationBus bus = bus(true);
+
+		try {
+			bus.start();
+			dictionaryCache.put(Dictionary.MAKE, "Audi", 1L);
+
+			assertThat(bus.isRunning()).isTrue();
+			assertThat(catalogVersion.isSynced()).isFalse();
+			assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+
+		} finally {
+			bus.stop();
+		}
+	}
+
+	@Test
+	void apply_OtherNodeChanges_EvictsLocalEntriesWithoutNotifying() {
+
+		CacheInvalidationBus bus = bus(true);
+		dictionaryCache.resume();
+		dictionaryCache.put(Dictionary.MAKE, "Audi", 1L);
+		dictionaryCache.put(Dictionary.CATEGORY, "SUV", 3L);
+		long version = catalogVersion.current();
+
+		bus.apply("other-node;catalog");
+		bus.apply("other-node;name;MAKE;Audi");
+		bus.apply("other-node;id;CATEGORY;3");
+
+		assertThat(catalogVersion.current()).isEqualTo(version + 1);
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+		assertThat(dictionaryCache.getAllPresent(Dictionary.CATEGORY, List.of("SUV"))).isEmpty();
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void apply_OwnOrMalformedNotification_IsIgnored() {
+
+		CacheInvalidationBus bus = bus(true);
+		dictionaryCache.resume();
+		ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+		catalogVersion.bump();
+		verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), anyString(), payload.capture());
+		dictionaryCache.put(Dictionary.MAKE, "Audi", 1L);
+		long version = catalogVersion.current();
+
+		bus.apply(payload.getValue());
+		bus.apply("other-node;name;TRIM;Audi");
+		bus.apply("other-node;id;MAKE");
+		bus.apply("other-node;rename");
+		bus.apply("other-node;probe;1234");
+
+		assertThat(catalogVersion.current()).isEqualTo(version);
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).containsEntry("Audi", 1L);
+	}
+
+	private CacheInvalidationBus bus(boolean enabled) {
+
+		return new CacheInvalidationBus(jdbcTemplate, catalogVersion, dictionaryCache, enabled,
+				"jdbc:postgresql://localhost:1/cars?connectTimeout=1", "postgres", "secret", 1000, 1000);
+	}
+}
@@ -0,0 +1,175 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchItemDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBatchResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarJdbcRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CarBatchServiceTest {
+
+	CarBatchService service;
+
+	@Mock
+	CarJdbcRepository carJdbcRepository;
+
+	@Mock
+	TransactionTemplate transactionTemplate;
+
+	@Mock
+	TransactionStatus transactionStatus;
+
+	@Mock
+	ObjectIdGenerator objectIdGenerator;
+
+	DictionaryCache dictionaryCache = new DictionaryCache(new SimpleMeterRegistry(), 100);
+
+	CatalogVersion catalogVersion = new CatalogVersion();
+
+	@BeforeEach
+	void setUp() {
+
+		service = new CarBatchService(carJdbcRepository, transactionTemplate, dictionaryCache, objectIdGenerator,
+				catalogVersion, 3);
+	}
+
+	void stubWrites() {
+
+		when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(0);
+			return callback.doInTransaction(transactionStatus);
+		});
+		when(carJdbcRepository.resolveMakeIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveModelIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveCategoryIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+	}
+
+	@Test
+	void createCars_ValidCars_ResolvesNamesOnceAndInsertsWithOneStatement() {
+
+		stubWrites();
+		when(objectIdGenerator.next()).thenReturn("0000000000G");
+		when(carJdbcRepository.insertCarsReturningIds(anyList(), anyMap(), anyMap(), anyMap()))
+				.thenReturn(Map.of("A1", 10L, "0000000000G", 11L));
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO(" Audi ", "Q5", "SUV", 2021, null));
+
+		CarBatchResultDTO actual = service.createCars(cars, true);
+
+		assertThat(actual.getCreated()).isEqualTo(2);
+		assertThat(actual.getFailed()).isZero();
+		assertThat(actual.getItems()).extracting(CarBatchItemDTO::getId).containsExactly(10L, 11L);
+		verify(carJdbcRepository, times(1)).resolveMakeIds(argThat(names -> names.size() == 1));
+		verify(carJdbcRepository, times(1)).insertCarsReturningIds(anyList(), anyMap(), anyMap(), anyMap());
+		verify(transactionStatus, never()).setRollbackOnly();
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).containsKey("Audi");
+		assertThat(catalogVersion.current()).isEqualTo(1);
+	}
+
+	@Test
+	void createCars_AtomicWithInvalidItem_CreatesNothing() {
+
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO("Audi", "", "SUV", 2021, "A2"));
+
+		CarBatchResultDTO actual = service.createCars(cars, true);
+
+		assertThat(actual.getCreated()).isZero();
+		assertThat(actual.getItems()).extracting(CarBatchItemDTO::getError)
+				.containsExactly(CarBatchService.ROLLED_BACK, "model is required");
+		verifyNoInteractions(transactionTemplate);
+	}
+
+	@Test
+	void createCars_AtomicWithOverlongNames_ReportsEachItem() {
+
+		String overlong = "A".repeat(CarBatchService.MAX_LENGTH + 1);
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO(" " + "A".repeat(CarBatchService.MAX_LENGTH) + " ", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO("Audi", overlong, "SUV", 2021, "A2"),
+				new CreateCarDTO("Audi", "Q5", "SUV", 2021, overlong));
+
+		CarBatchResultDTO actual = service.createCars(cars, true);
+
+		assertThat(actual.getItems()).extracting(CarBatchItemDTO::getError).containsExactly(
+				CarBatchService.ROLLED_BACK, "model is longer than 255 characters", "objectId is longer than 255 characters");
+		verifyNoInteractions(transactionTemplate);
+	}
+
+	@Test
+	void createCars_PartialWithInvalidItem_CreatesValidItems() {
+
+		stubWrites();
+		when(carJdbcRepository.insertCarsReturningIds(anyList(), anyMap(), anyMap(), anyMap()))
+				.thenReturn(Map.of("A1", 10L));
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"));
+
+		CarBatchResultDTO actual = service.createCars(cars, false);
+
+		assertThat(actual.getCreated()).isEqualTo(1);
+		assertThat(actual.getFailed()).isEqualTo(1);
+		assertThat(actual.getItems().get(1).getError()).contains("repeated");
+	}
+
+	@Test
+	void createCars_AtomicWithExistingObjectId_RollsBackAndKeepsCacheClean() {
+
+		stubWrites();
+		when(carJdbcRepository.insertCarsReturningIds(anyList(), anyMap(), anyMap(), anyMap()))
+				.thenReturn(Map.of("A1", 10L));
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO("Audi", "Q5", "SUV", 2021, "A2"));
+
+		CarBatchResultDTO actual = service.createCars(cars, true);
+
+		assertThat(actual.getCreated()).isZero();
+		assertThat(actual.getItems()).extracting(CarBatchItemDTO::getError)
+				.containsExactly(CarBatchService.ROLLED_BACK, "Car with objectId A2 already exists");
+		verify(transactionStatus, times(1)).setRollbackOnly();
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+		assertThat(catalogVersion.current()).isZero();
+	}
+
+	@Test
+	void createCars_TooManyCars_ThrowsException() {
+
+		List<CreateCarDTO> cars = List.of(
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A1"),
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A2"),
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A3"),
+				new CreateCarDTO("Audi", "Q3", "SUV", 2020, "A4"));
+
+		assertThatThrownBy(() -> service.createCars(cars, false)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static Map<String, Long> ids(Collection<String> names) {
+
+		return names.stream().collect(Collectors.toMap(name -> name, name -> (long) name.hashCode()));
+	}
+}
@@ -0,0 +1,83 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CarExportServiceTest {
+
+	@Mock
+	CarRepository carRepository;
+
+	CarExportService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new CarExportService(carRepository, new ObjectMapper(), 500);
+	}
+
+	@Test
+	void exportCars_Ndjson_WritesOneObjectPerLineAndClosesStream() throws Exception {
+
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<CarDTO> cars = Stream.of(
+				new CarDTO(1L, "Audi", "Q3", "SUV", 2020, "A1", 0),
+				new CarDTO(2L, "BMW", "X5", "SUV", 2021, "B2", 3))
+				.onClose(() -> closed.set(true));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		when(carRepository.streamCars(any(), eq(500))).thenReturn(cars);
+
+		long actual = service.exportCars(null, null, "SUV", null, ExportFormat.NDJSON, out);
+
+		assertThat(actual).isEqualTo(2);
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+				"{\"id\":1,\"make\":\"Audi\",\"model\":\"Q3\",\"category\":\"SUV\",\"year\":2020,\"objectId\":\"A1\",\"version\":0}\n"
+				+ "{\"id\":2,\"make\":\"BMW\",\"model\":\"X5\",\"category\":\"SUV\",\"year\":2021,\"objectId\":\"B2\",\"version\":3}\n");
+		assertThat(closed).isTrue();
+	}
+
+	@Test
+	void exportCars_Csv_WritesImportHeaderAndQuotesValues() throws Exception {
+
+		Stream<CarDTO> cars = Stream.of(new CarDTO(1L, "Audi", "Q3, Sportback", "SUV", 2020, "A1"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		when(carRepository.streamCars(any(), eq(500))).thenReturn(cars);
+
+		long actual = service.exportCars(null, null, null, null, ExportFormat.CSV, out);
+
+		assertThat(actual).isEqualTo(1);
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+				"objectId,Make,Year,Model,Category\r\nA1,Audi,2020,\"Q3, Sportback\",SUV\r\n");
+	}
+
+	@Test
+	void exportCars_NoMatchingCars_WritesOnlyCsvHeader() throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		when(carRepository.streamCars(any(), anyInt())).thenReturn(Stream.empty());
+
+		long actual = service.exportCars("Audi", null, null, null, ExportFormat.CSV, out);
+
+		assertThat(actual).isZero();
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("objectId,Make,Year,Model,Category\r\n");
+	}
+}
@@ -0,0 +1,323 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportReportDTO;
+import com.foxminded.tasks.car_rest_service.dto.importing.SyncReportDTO;
+import com.foxminded.tasks.car_rest_service.repository.CarJdbcRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CarImportPipelineTest {
+
+	CarImportPipeline pipeline;
+
+	@Mock
+	CarJdbcRepository carJdbcRepository;
+
+	@Mock
+	TransactionTemplate transactionTemplate;
+
+	DictionaryCache dictionaryCache = new DictionaryCache(new SimpleMeterRegistry(), 1000);
+
+	@BeforeEach
+	void setUp() {
+
+		pipeline = new CarImportPipeline(carJdbcRepository, transactionTemplate, new CatalogVersion(), dictionaryCache, 2, 1, 1, 2);
+	}
+
+	void stubWrites() {
+
+		when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(0);
+			return callback.doInTransaction(null);
+		});
+		when(carJdbcRepository.resolveMakeIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveModelIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveCategoryIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.insertCars(anyList(), anyMap(), anyMap(), anyMap()))
+				.thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+	}
+
+	@Test
+	void run_ValidRecords_InsertsInBatchesAndReturnsReport() throws Exception {
+
+		stubWrites();
+
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A2,Audi,2021,Q5,SUV
+				A3,BMW,2020,X5,SUV
+				""";
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv), new ImportProgress(), chunkProgress -> {});
+
+		assertThat(actual.getRowsImported()).isEqualTo(3);
+		assertThat(actual.getRowsRejected()).isZero();
+		verify(carJdbcRepository, times(2)).insertCars(anyList(), anyMap(), anyMap(), anyMap());
+		verify(carJdbcRepository, times(1)).resolveCategoryIds(anyCollection());
+	}
+
+	@Test
+	void run_KnownNames_ResolvesOnlyMissingNames() throws Exception {
+
+		stubWrites();
+
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A2,Audi,2021,Q5,SUV
+				A3,Audi,2020,Q3,SUV
+				A4,BMW,2020,X5,SUV
+				""";
+
+		pipeline.run(new StringReader(csv), new ImportProgress(), chunkProgress -> {});
+
+		verify(carJdbcRepository, times(1)).resolveMakeIds(argThat(names -> names.contains("Audi")));
+		verify(carJdbcRepository, times(1)).resolveMakeIds(argThat(names -> names.size() == 1 && names.contains("BMW")));
+		verify(carJdbcRepository, times(1)).resolveModelIds(argThat(names -> names.size() == 1 && names.contains("X5")));
+	}
+
+	@Test
+	void run_NamesResolvedByEarlierImport_TakesIdsFromDictionaryCache() throws Exception {
+
+		stubWrites();
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1, Audi ,2020,Q3,SUV
+				""";
+
+		pipeline.run(new StringReader(csv), new ImportProgress(), chunkProgress -> {});
+		pipeline.run(new StringReader(csv.replace("A1", "A2")), new ImportProgress(), chunkProgress -> {});
+
+		verify(carJdbcRepository, times(1)).resolveMakeIds(argThat(names -> names.contains("Audi")));
+		verify(carJdbcRepository, times(2)).insertCars(anyList(), anyMap(), anyMap(), anyMap());
+		assertThat(dictionaryCache.stats(DictionaryCache.Dictionary.MAKE).hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void run_MalformedRecords_RejectsAndContinues() throws Exception {
+
+		stubWrites();
+
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				,,,,
+				A2,Audi,not-a-year,Q5,SUV
+				A3,BMW
+				""";
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv), new ImportProgress(), chunkProgress -> {});
+
+		assertThat(actual.getRowsImported()).isEqualTo(1);
+		assertThat(actual.getRowsRejected()).isEqualTo(3);
+		verify(carJdbcRepository, times(1)).insertCars(anyList(), anyMap(), anyMap(), anyMap());
+	}
+
+	@Test
+	void run_Checkpoint_SkipsCommittedRecordsAndAdvancesCheckpoint() throws Exception {
+
+		stubWrites();
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A2,Audi,2021,Q5,SUV
+				A3,BMW,2020,X5,SUV
+				""";
+		ImportProgress progress = new ImportProgress();
+		progress.setCheckpoint(2);
+		List<Long> checkpoints = new ArrayList<>();
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv), progress,
+				chunkProgress -> checkpoints.add(chunkProgress.getCheckpoint()));
+
+		assertThat(actual.getRowsImported()).isEqualTo(1);
+		assertThat(checkpoints).containsExactly(3L);
+		verify(carJdbcRepository, times(1)).resolveMakeIds(argThat(names -> names.size() == 1 && names.contains("BMW")));
+	}
+
+	@Test
+	void run_MissingObjectId_RejectsRecord() throws Exception {
+
+		stubWrites();
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				,Audi,2021,Q5,SUV
+				""";
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv), new ImportProgress(), chunkProgress -> {});
+
+		assertThat(actual.getRowsImported()).isEqualTo(1);
+		assertThat(actual.getRowsRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void run_QuotedLineBreak_KeepsRecordInOneChunk() throws Exception {
+
+		stubWrites();
+		String csv = "objectId,Make,Year,Model,Category\n"
+				+ "A1,\"Audi\nSport\",2020,Q3,SUV\n"
+				+ "A2,Audi,2021,Q5,SUV\n"
+				+ "A3,BMW,2020,X5,SUV";
+		List<Long> checkpoints = new ArrayList<>();
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv), new ImportProgress(),
+				chunkProgress -> checkpoints.add(chunkProgress.getCheckpoint()));
+
+		assertThat(actual.getRowsImported()).isEqualTo(3);
+		assertThat(actual.getRowsRejected()).isZero();
+		assertThat(checkpoints).containsExactly(2L, 3L);
+		verify(carJdbcRepository).resolveMakeIds(argThat(names -> names.contains("Audi\nSport")));
+	}
+
+	@Test
+	void run_SeveralWriters_ImportsAllChunksAndAdvancesCheckpointToEnd() throws Exception {
+
+		stubWrites();
+		CatalogVersion catalogVersion = new CatalogVersion();
+		AtomicInteger bumps = new AtomicInteger();
+		catalogVersion.addBumpListener(bumps::incrementAndGet);
+		pipeline = new CarImportPipeline(carJdbcRepository, transactionTemplate, catalogVersion, dictionaryCache, 10, 3, 4, 2);
+		StringBuilder csv = new StringBuilder("objectId,Make,Year,Model,Category\n");
+		for (int i = 1; i <= 1000; i++) {
+			csv.append("A").append(i).append(",Make").append(i % 7).append(",2020,Model").append(i % 13).append(",SUV\n");
+		}
+		ImportProgress progress = new ImportProgress();
+		List<Long> checkpoints = Collections.synchronizedList(new ArrayList<>());
+
+		ImportReportDTO actual = pipeline.run(new StringReader(csv.toString()), progress,
+				chunkProgress -> checkpoints.add(chunkProgress.getCheckpoint()));
+
+		assertThat(actual.getRowsImported()).isEqualTo(1000);
+		assertThat(progress.getCheckpoint()).isEqualTo(1000);
+		assertThat(checkpoints).isSorted();
+		assertThat(bumps).hasValue(1);
+		verify(carJdbcRepository, times(100)).insertCars(anyList(), anyMap(), anyMap(), anyMap());
+		verify(carJdbcRepository, atMost(7)).resolveMakeIds(anyCollection());
+	}
+
+	@Test
+	void run_WriterFails_ThrowsAndKeepsCheckpointBehindFailedChunk() {
+
+		when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(0);
+			return callback.doInTransaction(null);
+		});
+		when(carJdbcRepository.resolveMakeIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveModelIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.resolveCategoryIds(anyCollection())).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+		when(carJdbcRepository.insertCars(anyList(), anyMap(), anyMap(), anyMap())).thenReturn(2)
+				.thenThrow(new IllegalStateException("Connection refused"));
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A2,Audi,2021,Q5,SUV
+				A3,BMW,2020,X5,SUV
+				""";
+		ImportProgress progress = new ImportProgress();
+
+		assertThatThrownBy(() -> pipeline.run(new StringReader(csv), progress, chunkProgress -> {}))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Connection refused");
+		assertThat(progress.getCheckpoint()).isEqualTo(2);
+	}
+
+	@Test
+	void sync_ValidRecords_StagesFileAndReportsDiffCounts() throws Exception {
+
+		when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(0);
+			return callback.doInTransaction(null);
+		});
+		when(carJdbcRepository.stageCars(eq("job"), anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(1)).size());
+		when(carJdbcRepository.updateChangedCars("job")).thenReturn(1);
+		when(carJdbcRepository.insertNewCars("job")).thenReturn(1);
+		when(carJdbcRepository.deleteMissingCars(anyString())).thenReturn(4);
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A2,Audi,not-a-year,Q5,SUV
+				A3,BMW,2020,X5,SUV
+				A4,BMW,2021,X6,SUV
+				""";
+		ImportProgress progress = new ImportProgress();
+
+		SyncReportDTO actual = pipeline.sync("job", new StringReader(csv), progress, true, chunkProgress -> {});
+
+		assertThat(actual.getRowsInserted()).isEqualTo(1);
+		assertThat(actual.getRowsUpdated()).isEqualTo(1);
+		assertThat(actual.getRowsDeleted()).isEqualTo(4);
+		assertThat(actual.getRowsUnchanged()).isEqualTo(1);
+		assertThat(actual.getRowsRejected()).isEqualTo(1);
+		assertThat(progress.getRowsDeleted()).isEqualTo(4);
+		verify(carJdbcRepository, times(1)).purgeSyncStages("job");
+		verify(carJdbcRepository, times(2)).stageCars(eq("job"), anyList());
+		verify(carJdbcRepository, times(1)).resolveStagedNames("job");
+		verify(carJdbcRepository, times(1)).clearSyncStage("job");
+		verify(transactionTemplate, times(1)).execute(any());
+	}
+
+	@Test
+	void sync_DuplicateObjectId_ReportsLaterRecordAsRejected() throws Exception {
+
+		when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+			TransactionCallback<?> callback = invocation.getArgument(0);
+			return callback.doInTransaction(null);
+		});
+		when(carJdbcRepository.stageCars(eq("job"), anyList())).thenReturn(1);
+		when(carJdbcRepository.insertNewCars("job")).thenReturn(1);
+		String csv = """
+				objectId,Make,Year,Model,Category
+				A1,Audi,2020,Q3,SUV
+				A1,BMW,2020,X5,SUV
+				""";
+
+		SyncReportDTO actual = pipeline.sync("job", new StringReader(csv), new ImportProgress(), false, chunkProgress -> {});
+
+		assertThat(actual.getRowsInserted()).isEqualTo(1);
+		assertThat(actual.getRowsUnchanged()).isZero();
+		assertThat(actual.getRowsRejected()).isEqualTo(1);
+	}
+
+	@Test
+	void sync_DeleteMissingWithoutValidRecords_ThrowsException() {
+
+		String csv = """
+				objectId,Make,Year,Model,Category
+				,,,,
+				""";
+
+		assertThatThrownBy(() -> pipeline.sync("job", new StringReader(csv), new ImportProgress(), true, chunkProgress -> {}))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(carJdbcRepository, never()).deleteMissingCars(anyString());
+		verify(carJdbcRepository, times(1)).clearSyncStage("job");
+	}
+
+	private static Map<String, Long> ids(Collection<String> names) {
+
+		return names.stream().collect(Collectors.toMap(name -> name, name -> (long) name.hashCode()));
+	}
+}
@@ -4,26 +4,36 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.time.Year;
+import java.util.Base64;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import com.foxminded.tasks.car_rest_service.dto.car.CarBulkResultDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.CarCursorPageDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.CreateCarDTO;
+import com.foxminded.tasks.car_rest_service.dto.car.PatchCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.car.UpdateCarDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
@@ -68,6 +78,18 @@ class CarServiceTest {
 	@Mock
 	CategoryMapper categoryMapper;
 
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Mock
+	CountEstimator countEstimator;
+
+	@Mock
+	ObjectIdGenerator objectIdGenerator;
+
+	@Mock
+	ListingCache listingCache;
+
 	@Test
 	void findcarById_ValidId_CalledMethodsAndReturnsExpected() {
 		
@@ -128,36 +150,147 @@ class CarServiceTest {
 	}
 	
 	@Test
-	void updateCar_ValidCar_CalledMethodsAndReturnsExpected() {
+	void createCar_NoObjectId_SavesGeneratedObjectId() {
+
+		CreateCarDTO createCarDto = new CreateCarDTO("Name", "Name", "Name", 2025, null);
+
+		when(makeService.findByNameOrSaveNew(anyString())).thenReturn(new MakeDTO(1L, "Name"));
+		when(modelService.findByNameOrSaveNew(anyString())).thenReturn(new ModelDTO(1L, "Name"));
+		when(categoryService.findByNameOrSaveNew(anyString())).thenReturn(new CategoryDTO(1L, "Name"));
+		when(objectIdGenerator.next()).thenReturn("0AbCdEfGhIj");
+		when(carRepository.save(any(Car.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		carService.createCar(createCarDto);
+
+		verify(carRepository, times(1)).save(argThat(car -> "0AbCdEfGhIj".equals(car.getObjectId())));
+	}
+
+	@Test
+	void createCar_GeneratedObjectIdTaken_RetriesWithNewObjectId() {
+
+		CreateCarDTO createCarDto = new CreateCarDTO("Name", "Name", "Name", 2025, "");
+
+		when(makeService.findByNameOrSaveNew(anyString())).thenReturn(new MakeDTO(1L, "Name"));
+		when(modelService.findByNameOrSaveNew(anyString())).thenReturn(new ModelDTO(1L, "Name"));
+		when(categoryService.findByNameOrSaveNew(anyString())).thenReturn(new CategoryDTO(1L, "Name"));
+		when(objectIdGenerator.next()).thenReturn("0AbCdEfGhIj", "0AbCdEfGhIk");
+		when(carRepository.save(any(Car.class)))
+				.thenThrow(new DataIntegrityViolationException("car_object_id_uindex"))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+
+		carService.createCar(createCarDto);
+
+		verify(carRepository, times(2)).save(any(Car.class));
+		verify(carRepository, times(1)).save(argThat(car -> "0AbCdEfGhIk".equals(car.getObjectId())));
+	}
+
+	@Test
+	void createCar_GeneratedObjectIdsKeepColliding_ThrowsException() {
+
+		CreateCarDTO createCarDto = new CreateCarDTO("Name", "Name", "Name", 2025, null);
+
+		when(makeService.findByNameOrSaveNew(anyString())).thenReturn(new MakeDTO(1L, "Name"));
+		when(modelService.findByNameOrSaveNew(anyString())).thenReturn(new ModelDTO(1L, "Name"));
+		when(categoryService.findByNameOrSaveNew(anyString())).thenReturn(new CategoryDTO(1L, "Name"));
+		when(objectIdGenerator.next()).thenReturn("0AbCdEfGhIj");
+		when(carRepository.save(any(Car.class))).thenThrow(new DataIntegrityViolationException("car_object_id_uindex"));
+
+		assertThatThrownBy(() -> carService.createCar(createCarDto))
+				.isInstanceOf(DataIntegrityViolationException.class);
+		verify(carRepository, times(3)).save(any(Car.class));
+	}
+	
+	@Test
+	void updateCar_NewNames_RepointsCarWithoutRenamingDictionaries() {
 		
 		Long id = 1L;
 		Make make = new Make(1L, "Name");
 		Model model = new Model(1L, "Name");
 		Category category = new Category(1L, "Name");
-		Year year = Year.of(2025);
-		String objectId = "ObjectId";
-		Car car = new Car(make, model, category, year, objectId);
-		Make updatedMake = new Make(1L, "Make_Name");
-		Model updatedModel = new Model(1L, "Model_Name");
-		Category updatedCategory = new Category(1L, "Category_Name");
-		Year updatedYear = Year.of(2026);
-		String updatedObjectId = "ObjectId";
-		Car updatedCar = new Car(1L, updatedMake, updatedModel, updatedCategory, updatedYear, updatedObjectId);
-		UpdateCarDTO updateCarDto = new UpdateCarDTO("Make_Name", "Model_Name", "Category_Name", 2026);
+		Car car = new Car(id, make, model, category, Year.of(2025), "ObjectId");
+		Make updatedMake = new Make(2L, "Make_Name");
+		Model updatedModel = new Model(2L, "Model_Name");
+		Category updatedCategory = new Category(2L, "Category_Name");
+		MakeDTO makeDto = new MakeDTO(2L, "Make_Name");
+		ModelDTO modelDto = new ModelDTO(2L, "Model_Name");
+		CategoryDTO categoryDto = new CategoryDTO(2L, "Category_Name");
+		UpdateCarDTO updateCarDto = new UpdateCarDTO(" Make_Name", "Model_Name", "Category_Name", 2026);
 		CarDTO expected = new CarDTO(1L, "Make_Name", "Model_Name", "Category_Name", 2026, "ObjectId");
 		
 		when(carRepository.findById(anyLong())).thenReturn(Optional.of(car));
-		when(carRepository.save(any(Car.class))).thenReturn(updatedCar);
-		when(mapper.carToCarDto(any(Car.class))).thenReturn(expected);
+		when(makeService.findByNameOrSaveNew("Make_Name")).thenReturn(makeDto);
+		when(makeMapper.dtoToMake(makeDto)).thenReturn(updatedMake);
+		when(modelService.findByNameOrSaveNew("Model_Name")).thenReturn(modelDto);
+		when(modelMapper.dtoToModel(modelDto)).thenReturn(updatedModel);
+		when(categoryService.findByNameOrSaveNew("Category_Name")).thenReturn(categoryDto);
+		when(categoryMapper.dtoToCategory(categoryDto)).thenReturn(updatedCategory);
+		when(carRepository.save(car)).thenReturn(car);
+		when(mapper.carToCarDto(car)).thenReturn(expected);
 		
-		CarDTO actual = carService.updateCar(id, updateCarDto);
+		CarDTO actual = carService.updateCar(id, updateCarDto, null);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(carRepository, times(1)).findById(anyLong());
-		verify(carRepository, times(1)).save(any(Car.class));
-		verify(mapper, times(1)).carToCarDto(any(Car.class));
+		assertThat(car.getMake()).isSameAs(updatedMake);
+		assertThat(car.getModel()).isSameAs(updatedModel);
+		assertThat(car.getCategory()).isSameAs(updatedCategory);
+		assertThat(car.getYear()).isEqualTo(Year.of(2026));
+		assertThat(make.getName()).isEqualTo("Name");
+		verify(carRepository, times(1)).save(car);
+		verify(catalogVersion, times(1)).bump();
 	}
-	
+
+	@Test
+	void updateCar_OnlyYearChanged_SavesWithoutResolvingNames() {
+
+		Car car = new Car(1L, new Make(1L, "Audi"), new Model(1L, "Q3"), new Category(1L, "SUV"), Year.of(2025),
+				"ObjectId");
+
+		when(carRepository.findById(anyLong())).thenReturn(Optional.of(car));
+		when(carRepository.save(car)).thenReturn(car);
+
+		carService.updateCar(1L, new UpdateCarDTO("Audi", "Q3", "SUV", 2026), null);
+
+		assertThat(car.getYear()).isEqualTo(Year.of(2026));
+		verify(makeService, never()).findByNameOrSaveNew(anyString());
+		verify(modelService, never()).findByNameOrSaveNew(anyString());
+		verify(categoryService, never()).findByNameOrSaveNew(anyString());
+		verify(carRepository, times(1)).save(car);
+	}
+
+	@Test
+	void updateCar_NothingChanged_SkipsWrite() {
+
+		Car car = new Car(1L, new Make(1L, "Audi"), new Model(1L, "Q3"), new Category(1L, "SUV"), Year.of(2025),
+				"ObjectId");
+		CarDTO expected = new CarDTO(1L, "Audi", "Q3", "SUV", 2025, "ObjectId");
+
+		when(carRepository.findById(anyLong())).thenReturn(Optional.of(car));
+		when(mapper.carToCarDto(car)).thenReturn(expected);
+
+		CarDTO actual = carService.updateCar(1L, new UpdateCarDTO("Audi ", "Q3", "SUV", 2025), null);
+
+		assertThat(actual).isSameAs(expected);
+		verify(carRepository, never()).save(any(Car.class));
+		verify(catalogVersion, never()).bump();
+	}
+
+	@Test
+	void updateCar_StaleVersion_ThrowsExceptionWithoutWriting() {
+
+		Car car = new Car(1L, new Make(1L, "Name"), new Model(1L, "Name"), new Category(1L, "Name"), Year.of(2025),
+				"ObjectId");
+		car.setVersion(4);
+		UpdateCarDTO updateCarDto = new UpdateCarDTO("Make_Name", "Model_Name", "Category_Name", 2026);
+
+		when(carRepository.findById(anyLong())).thenReturn(Optional.of(car));
+
+		assertThatThrownBy(() -> carService.updateCar(1L, updateCarDto, 3L))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+		assertThat(car.getMake().getName()).isEqualTo("Name");
+		verify(carRepository, never()).save(any(Car.class));
+		verify(catalogVersion, never()).bump();
+	}
+
 	@Test
 	void delete_ValidId_CalledMethods() {
 		
@@ -182,13 +315,6 @@ class CarServiceTest {
 	@Test
 	void filterCars_ValidValue_CalledMethodAndReturnsExpected() {
 
-		Long id = 1L;
-		Make make = new Make(1L, "Make_Name");
-		Model model = new Model(1L, "Model_Name");
-		Category category = new Category(1L, "Category_Name");
-		Year year = Year.of(2025);
-		String objectId = "ObjectId";
-		Car car = new Car(id, make, model, category, year, objectId);
 		CarListItemDTO carDto = new CarListItemDTO("Make_Name", "Model_Name", "Category_Name", 2025);
 		String makeName = "Make_Name";
 		String modelName = "Model_Name";
@@ -198,106 +324,242 @@ class CarServiceTest {
 		int size = 10;
 		Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("id")));
 
-		Page<Car> carPage = new PageImpl<>(List.of(car));
 		Page<CarListItemDTO> expected = new PageImpl<>(List.of(carDto));
 
-		when(carRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(carPage);
-		when(mapper.carToCarListItemDto(any(Car.class))).thenReturn(carDto);
+		loadThroughListingCache();
+		when(carRepository.findListItems(any(Specification.class), eq(pageable))).thenReturn(expected);
 
-		Page<CarListItemDTO> actual = carService.filterCars(makeName, modelName, categoryName, yearValue, pageable);
+		Slice<CarListItemDTO> actual = carService.filterCars(makeName, modelName, categoryName, yearValue, pageable,
+				CountMode.EXACT);
 
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(carRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
-		verify(mapper, times(1)).carToCarListItemDto(any(Car.class));
-
+		verify(carRepository, times(1)).findListItems(any(Specification.class), any(Pageable.class));
+		verify(carRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+		verify(mapper, never()).carToCarListItemDto(any(Car.class));
 	}
 	
 	@Test
-	void deleteMakeAndAssociations_ValidValue_CalledMethod() {
+	void filterCars_CountNone_ReturnsSliceWithoutCounting() {
+
+		Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("id")));
+		Slice<CarListItemDTO> expected = new SliceImpl<>(List.of(), pageable, false);
+
+		loadThroughListingCache();
+		when(carRepository.findListItemSlice(any(Specification.class), eq(pageable))).thenReturn(expected);
+
+		Slice<CarListItemDTO> actual = carService.filterCars(null, null, null, null, pageable, CountMode.NONE);
+
+		assertThat(actual).isSameAs(expected);
+		verify(carRepository, never()).findListItems(any(Specification.class), any(Pageable.class));
+		verify(carRepository, never()).count(any(Specification.class));
+	}
+
+	@Test
+	void filterCars_CountEstimated_PassesFilterKeyToEstimator() {
+
+		Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("id")));
+		Slice<CarListItemDTO> slice = new SliceImpl<>(List.of(), pageable, false);
+		Page<CarListItemDTO> expected = new PageImpl<>(List.of(), pageable, 1000);
+
+		loadThroughListingCache();
+		when(carRepository.findListItemSlice(any(Specification.class), eq(pageable))).thenReturn(slice);
+		when(countEstimator.estimatedPage(eq(slice), eq(pageable), eq("car"), eq(Arrays.asList("Audi", "", null, 2020)), any()))
+				.thenReturn(expected);
+
+		Slice<CarListItemDTO> actual = carService.filterCars("Audi", "", null, 2020, pageable, CountMode.ESTIMATED);
+
+		assertThat(actual).isSameAs(expected);
+	}
+
+	@Test
+	void filterCars_CachedListing_ReturnsItWithoutQuerying() {
+
+		Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("id")));
+		Slice<CarListItemDTO> expected = new SliceImpl<>(List.of(), pageable, false);
+
+		when(listingCache.get(eq("Audi"), isNull(), isNull(), eq(2020), eq(pageable), eq(CountMode.EXACT), any()))
+				.thenReturn(expected);
+
+		Slice<CarListItemDTO> actual = carService.filterCars("Audi", null, null, 2020, pageable, CountMode.EXACT);
+
+		assertThat(actual).isSameAs(expected);
+		verifyNoInteractions(carRepository);
+	}
+
+	@Test
+	void filterCarsAfter_Cursor_SeeksPastDecodedIdAndReturnsNextCursor() {
+
+		CarListItemDTO carDto = new CarListItemDTO("Make_Name", "Model_Name", "Category_Name", 2025);
+		String after = Base64.getUrlEncoder().withoutPadding().encodeToString("id:41".getBytes());
+		Window<CarListItemDTO> window = Window.from(List.of(carDto), index -> ScrollPosition.forward(Map.of("id", 42L)),
+				true);
+
+		when(carRepository.findListItemsAfter(any(Specification.class), eq(41L), eq(1))).thenReturn(window);
+
+		CarCursorPageDTO actual = carService.filterCarsAfter("Make_Name", null, null, null, after, 1);
+
+		assertThat(actual.getContent()).containsExactly(carDto);
+		assertThat(actual.getSize()).isEqualTo(1);
+		assertThat(new String(Base64.getUrlDecoder().decode(actual.getNextCursor()))).isEqualTo("id:42");
+	}
+
+	@Test
+	void filterCarsAfter_LastPage_ReturnsNoNextCursor() {
+
+		Window<CarListItemDTO> window = Window.from(List.of(), index -> ScrollPosition.offset(), false);
+
+		when(carRepository.findListItemsAfter(any(Specification.class), eq(0L), eq(10))).thenReturn(window);
+
+		CarCursorPageDTO actual = carService.filterCarsAfter(null, null, null, null, "", 10);
+
+		assertThat(actual.getContent()).isEmpty();
+		assertThat(actual.getNextCursor()).isNull();
+	}
+
+	@Test
+	void filterCarsAfter_InvalidCursor_ThrowsException() {
+
+		assertThatThrownBy(() -> carService.filterCarsAfter(null, null, null, null, "not a cursor", 10))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(carRepository, never()).findListItemsAfter(any(), anyLong(), anyInt());
+	}
+
+	@Test
+	void deleteMakeAndAssociations_ValidValue_DeletesCarsInBulkAndReturnsCount() {
 		
 		Long id = 1L;
-		Make make = new Make(1L, "Make_Name");
-		Model model = new Model(1L, "Model_Name");
-		Category category = new Category(1L, "Category_Name");
-		Year year = Year.of(2025);
-		String objectId = "ObjectId";
-		Car car = new Car(id, make, model, category, year, objectId);
-		List<Car> cars = List.of(car);
 		
-		when(carRepository.findByMake_Id(anyLong())).thenReturn(cars);
-		doNothing().when(carRepository).delete(any(Car.class));
+		when(carRepository.deleteAllByMakeId(anyLong())).thenReturn(3);
 		doNothing().when(makeService).delete(anyLong());
 		
-		carService.deleteMakeAndAssociations(id);
+		int actual = carService.deleteMakeAndAssociations(id);
 		
-		verify(carRepository, times(1)).findByMake_Id(anyLong());
-		verify(carRepository, times(1)).delete(any(Car.class));
-		verify(makeService, times(1)).delete(anyLong());
+		assertThat(actual).isEqualTo(3);
+		verify(carRepository, times(1)).deleteAllByMakeId(id);
+		verify(makeService, times(1)).delete(id);
 	}
 
 	@Test
-	void deleteModelAndAssociations_ValidValue_CalledMethod() {
+	void deleteModelAndAssociations_ValidValue_DeletesCarsInBulkAndReturnsCount() {
 		
 		Long id = 1L;
-		Make make = new Make(1L, "Make_Name");
-		Model model = new Model(1L, "Model_Name");
-		Category category = new Category(1L, "Category_Name");
-		Year year = Year.of(2025);
-		String objectId = "ObjectId";
-		Car car = new Car(id, make, model, category, year, objectId);
-		List<Car> cars = List.of(car);
 		
-		when(carRepository.findByModel_Id(anyLong())).thenReturn(cars);
-		doNothing().when(carRepository).delete(any(Car.class));
+		when(carRepository.deleteAllByModelId(anyLong())).thenReturn(3);
 		doNothing().when(modelService).delete(anyLong());
 		
-		carService.deleteModelAndAssociations(id);
+		int actual = carService.deleteModelAndAssociations(id);
 		
-		verify(carRepository, times(1)).findByModel_Id(anyLong());
-		verify(carRepository, times(1)).delete(any(Car.class));
-		verify(modelService, times(1)).delete(anyLong());
+		assertThat(actual).isEqualTo(3);
+		verify(carRepository, times(1)).deleteAllByModelId(id);
+		verify(modelService, times(1)).delete(id);
 	}
 
 	@Test
-	void deleteCategoryAndAssociations_ValidValue_CalledMethod() {
+	void deleteCategoryAndAssociations_ValidValue_DeletesCarsInBulkAndReturnsCount() {
 		
 		Long id = 1L;
-		Make make = new Make(1L, "Make_Name");
-		Model model = new Model(1L, "Model_Name");
-		Category category = new Category(1L, "Category_Name");
-		Year year = Year.of(2025);
-		String objectId = "ObjectId";
-		Car car = new Car(id, make, model, category, year, objectId);
-		List<Car> cars = List.of(car);
 		
-		when(carRepository.findByCategory_Id(anyLong())).thenReturn(cars);
-		doNothing().when(carRepository).delete(any(Car.class));
+		when(carRepository.deleteAllByCategoryId(anyLong())).thenReturn(3);
 		doNothing().when(categoryService).delete(anyLong());
 		
-		carService.deleteCategoryAndAssociations(id);
+		int actual = carService.deleteCategoryAndAssociations(id);
+		
+		assertThat(actual).isEqualTo(3);
+		verify(carRepository, times(1)).deleteAllByCategoryId(id);
+		verify(categoryService, times(1)).delete(id);
+	}
 
-		verify(carRepository, times(1)).findByCategory_Id(anyLong());
-		verify(carRepository, times(1)).delete(any(Car.class));
-		verify(categoryService, times(1)).delete(anyLong());
+	@Test
+	void updateCars_ValidPatch_UpdatesMatchingCarsInBulk() {
+
+		PatchCarDTO patch = new PatchCarDTO(null, null, "Sedan", 2020);
+		CategoryDTO categoryDto = new CategoryDTO(3L, "Sedan");
+		Category category = new Category(3L, "Sedan");
+
+		when(categoryService.findByNameOrSaveNew("Sedan")).thenReturn(categoryDto);
+		when(categoryMapper.dtoToCategory(categoryDto)).thenReturn(category);
+		when(carRepository.updateMatching(any(), isNull(), isNull(), eq(category), eq(Year.of(2020)))).thenReturn(5);
+
+		CarBulkResultDTO actual = carService.updateCars(null, "Model_Name", null, null, patch, false);
+
+		assertThat(actual.getAffected()).isEqualTo(5);
+		assertThat(actual.isDryRun()).isFalse();
+		verify(makeService, never()).findByNameOrSaveNew(anyString());
+		verify(catalogVersion, times(1)).bump();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void updateCars_DryRun_CountsMatchingCarsWithoutWriting() {
+
+		PatchCarDTO patch = new PatchCarDTO("Make_Name", null, null, null);
+
+		when(carRepository.count(any(Specification.class))).thenReturn(7L);
+
+		CarBulkResultDTO actual = carService.updateCars(null, null, null, 2020, patch, true);
+
+		assertThat(actual.getAffected()).isEqualTo(7);
+		assertThat(actual.isDryRun()).isTrue();
+		verify(makeService, never()).findByNameOrSaveNew(anyString());
+		verify(carRepository, never()).updateMatching(any(), any(), any(), any(), any());
+		verify(catalogVersion, never()).bump();
 	}
 
+	@Test
+	void updateCars_NoFilter_ThrowsException() {
+
+		PatchCarDTO patch = new PatchCarDTO(null, null, "Sedan", null);
+
+		assertThatThrownBy(() -> carService.updateCars("", null, null, null, patch, false))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(carRepository, never()).updateMatching(any(), any(), any(), any(), any());
+	}
 
 	@Test
-	void generateObjectId_ValidValue_CalledMethodAndReturnsExpected() {
+	void updateCars_EmptyPatch_ThrowsException() {
 
-		String expected = "ABCDF";
+		assertThatThrownBy(() -> carService.updateCars(null, null, null, 2020, new PatchCarDTO(), false))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(carRepository, never()).updateMatching(any(), any(), any(), any(), any());
+	}
 
-		try (MockedStatic<NanoIdUtils> mockedStatic = mockStatic(NanoIdUtils.class)) {
-			mockedStatic.when(() -> NanoIdUtils.randomNanoId(any(Random.class), any(char[].class), anyInt()))
-					.thenReturn("ABCDE")
-					.thenReturn("ABCDF");
-			when(carRepository.existsByObjectId(anyString())).thenReturn(true)
-															 .thenReturn(false);
+	@Test
+	void deleteCars_ValidFilter_DeletesMatchingCarsInBulk() {
+
+		when(carRepository.deleteMatching(any())).thenReturn(4);
+
+		CarBulkResultDTO actual = carService.deleteCars(null, null, null, 2020, false);
+
+		assertThat(actual.getAffected()).isEqualTo(4);
+		verify(carRepository, never()).findAll(any(Specification.class));
+		verify(catalogVersion, times(1)).bump();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void deleteCars_DryRun_CountsMatchingCarsWithoutWriting() {
+
+		when(carRepository.count(any(Specification.class))).thenReturn(4L);
+
+		CarBulkResultDTO actual = carService.deleteCars("Make_Name", null, null, null, true);
+
+		assertThat(actual.getAffected()).isEqualTo(4);
+		assertThat(actual.isDryRun()).isTrue();
+		verify(carRepository, never()).deleteMatching(any());
+		verify(catalogVersion, never()).bump();
+	}
+
+	@Test
+	void deleteCars_NoFilter_ThrowsException() {
+
+		assertThatThrownBy(() -> carService.deleteCars(null, null, null, null, false))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(carRepository, never()).deleteMatching(any());
+	}
 
-			String actual = carService.generateObjectId();
+	private void loadThroughListingCache() {
 
-			assertThat(actual).isEqualTo(expected);
-			verify(carRepository, times(2)).existsByObjectId(anyString());
-		}
+		when(listingCache.get(any(), any(), any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(6).get());
 	}
 }
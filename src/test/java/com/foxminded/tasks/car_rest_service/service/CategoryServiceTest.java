@@ -2,6 +2,7 @@ package com.foxminded.tasks.car_rest_service.service;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
@@ -12,16 +13,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import com.foxminded.tasks.car_rest_service.dto.category.CategoryDTO;
 import com.foxminded.tasks.car_rest_service.dto.category.UpsertCategoryDTO;
 import com.foxminded.tasks.car_rest_service.entity.Category;
 import com.foxminded.tasks.car_rest_service.mapper.CategoryMapper;
 import com.foxminded.tasks.car_rest_service.repository.CategoryRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
 class CategoryServiceTest {
@@ -31,6 +37,16 @@ class CategoryServiceTest {
 	
 	@Mock
 	CategoryMapper mapper;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Mock
+	CountEstimator countEstimator;
+
+	@Mock
+	DictionaryCache dictionaryCache;
+
 	
 	@InjectMocks
 	CategoryService service;
@@ -49,39 +65,18 @@ class CategoryServiceTest {
 	}
 
 	@Test
-	void findByNameOrSaveNew_CategoryExists_CalledMethodAndReturnsExpected() {
-		
-		String name = "Category_Name";
-		Category category = new Category(1L, "Category_Name");
-		CategoryDTO expected = new CategoryDTO(1L, "Category_Name");
-		
-		when(repository.findByName(anyString())).thenReturn(Optional.of(category));
-		when(mapper.categoryToDto(any(Category.class))).thenReturn(expected);
-		
-		CategoryDTO actual = service.findByNameOrSaveNew(name);
-		
-		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(mapper, times(1)).categoryToDto(any(Category.class));
-	}
-	
-	@Test
-	void findByNameOrSaveNew_CategoryNotExists_CalledMethodAndReturnsExpected() {
+	void findByNameOrSaveNew_ValidName_ResolvesNormalizedNameThroughCache() {
 		
-		String name = "Category_Name";
-		Category category = new Category(1L, "Category_Name");
-		CategoryDTO expected = new CategoryDTO(1L, "Category_Name");
+		String name = "Name";
+		CategoryDTO expected = new CategoryDTO(1L, "Name", 3L);
 		
-		when(repository.findByName(anyString())).thenReturn(Optional.empty());
-		when(repository.save(any(Category.class))).thenReturn(category);
-		when(mapper.categoryToDto(any(Category.class))).thenReturn(expected);
+		when(dictionaryCache.resolve(eq(Dictionary.CATEGORY), eq(name), any())).thenReturn(1L);
+		when(repository.findVersionById(1L)).thenReturn(Optional.of(3L));
 		
-		CategoryDTO actual = service.findByNameOrSaveNew(name);
+		CategoryDTO actual = service.findByNameOrSaveNew(" Name ");
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(repository, times(1)).save(any(Category.class));
-		verify(mapper, times(1)).categoryToDto(any(Category.class));
+		verify(repository, never()).save(any(Category.class));
 	}
 	
 	@Test
@@ -142,35 +137,63 @@ class CategoryServiceTest {
 		CategoryDTO expected = new CategoryDTO(1L, "Category_Name");
 		
 		when(repository.findById(anyLong())).thenReturn(Optional.of(category));
-		when(repository.save(any(Category.class))).thenReturn(category);
+		when(repository.saveAndFlush(any(Category.class))).thenReturn(category);
 		when(mapper.categoryToDto(any(Category.class))).thenReturn(expected);
 		
 		CategoryDTO actual = service.updateCategory(id, updateDto);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findById(anyLong());
-		verify(repository, times(1)).save(any(Category.class));
+		verify(repository, times(1)).saveAndFlush(any(Category.class));
 		verify(mapper, times(1)).categoryToDto(any(Category.class));
 	}
-	
+
+	@Test
+	void updateCategory_NameTakenConcurrently_ThrowsExceptionWithoutCaching() {
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(new Category(1L, "Old_Name")));
+		when(repository.saveAndFlush(any(Category.class)))
+				.thenThrow(new DataIntegrityViolationException("category_name_uindex"));
+
+		assertThatThrownBy(() -> service.updateCategory(1L, new UpsertCategoryDTO("Name")))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(dictionaryCache, never()).put(any(), anyString(), anyLong());
+	}
+
+	@Test
+	void updateCategory_NameTaken_ThrowsExceptionWithoutWriting() {
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(new Category(1L, "Old_Name")));
+		when(repository.existsByName("Name")).thenReturn(true);
+
+		assertThatThrownBy(() -> service.updateCategory(1L, new UpsertCategoryDTO("Name")))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(repository, never()).saveAndFlush(any(Category.class));
+	}
+
 	@Test
-	void delete_ValidId_CalledMethods() {
+	void delete_ValidId_DeletesWithOneStatement() {
 		
 		Long id = 1L;
-		CategoryDTO categoryDto = new CategoryDTO(1L, "Name");
-		Category category = new Category(1L, "Name");
 		
-		when(repository.findById(anyLong())).thenReturn(Optional.of(category));
-		when(mapper.categoryToDto(any(Category.class))).thenReturn(categoryDto);
-		when(mapper.dtoToCategory(any(CategoryDTO.class))).thenReturn(category);
-		doNothing().when(repository).delete(any(Category.class));
+		when(repository.deleteOneById(anyLong())).thenReturn(1);
 		
 		service.delete(id);
 		
-		verify(repository, times(1)).findById(anyLong());
-		verify(mapper, times(1)).categoryToDto(any(Category.class));
-		verify(mapper, times(1)).dtoToCategory(any(CategoryDTO.class));
-		verify(repository, times(1)).delete(any(Category.class));
+		verify(repository, times(1)).deleteOneById(id);
+		verify(repository, never()).findById(anyLong());
+		verify(dictionaryCache, times(1)).invalidateId(Dictionary.CATEGORY, id);
+	}
+	
+	@Test
+	void delete_InvalidId_ThrowsException() {
+		
+		when(repository.deleteOneById(anyLong())).thenReturn(0);
+		
+		assertThatThrownBy(() -> service.delete(1L)).isInstanceOf(EntityNotFoundException.class);
+		verify(dictionaryCache, never()).invalidateId(any(), anyLong());
 	}
 
 	@Test
@@ -186,7 +209,7 @@ class CategoryServiceTest {
 		when(repository.findAll(any(Specification.class), eq(pageable))).thenReturn(page);
 		when(mapper.categoryToDto(any(Category.class))).thenReturn(categoryDto);
 		
-		Page<CategoryDTO> actual = service.filterCategories(name, pageable);
+		Slice<CategoryDTO> actual = service.filterCategories(name, pageable, CountMode.EXACT);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findAll(any(Specification.class), eq(pageable));
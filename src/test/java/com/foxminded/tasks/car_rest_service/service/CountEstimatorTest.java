@@ -0,0 +1,103 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class CountEstimatorTest {
+
+	CountEstimator countEstimator;
+
+	CatalogVersion catalogVersion = new CatalogVersion();
+
+	@Mock
+	JdbcTemplate jdbcTemplate;
+
+	Pageable pageable = PageRequest.of(0, 2);
+
+	@BeforeEach
+	void setUp() {
+
+		catalogVersion.setSynced(true);
+		countEstimator = new CountEstimator(jdbcTemplate, catalogVersion);
+	}
+
+	@Test
+	void estimatedPage_NoFilter_UsesPlannerStatistics() {
+
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("car_service.car"))).thenReturn(5000L);
+
+		Page<String> actual = countEstimator.estimatedPage(new SliceImpl<>(List.of("a", "b"), pageable, true),
+				pageable, "car", Arrays.asList(null, null), () -> fail("exact count is not expected"));
+
+		assertThat(actual.getTotalElements()).isEqualTo(5000);
+	}
+
+	@Test
+	void estimatedPage_TableNeverAnalyzed_FallsBackToExactCount() {
+
+		when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("car_service.car"))).thenReturn(-1L);
+
+		Page<String> actual = countEstimator.estimatedPage(new SliceImpl<>(List.of("a", "b"), pageable, true),
+				pageable, "car", Arrays.asList(null, null), () -> 42);
+
+		assertThat(actual.getTotalElements()).isEqualTo(42);
+	}
+
+	@Test
+	void estimatedPage_Filter_ReusesCountUntilCatalogChanges() {
+
+		AtomicInteger counted = new AtomicInteger();
+		SliceImpl<String> slice = new SliceImpl<>(List.of("a", "b"), pageable, true);
+
+		countEstimator.estimatedPage(slice, pageable, "car", List.of("Audi"), () -> counted.incrementAndGet() * 10);
+		Page<String> cached = countEstimator.estimatedPage(slice, pageable, "car", List.of("Audi"),
+				() -> counted.incrementAndGet() * 10);
+		catalogVersion.bump();
+		Page<String> refreshed = countEstimator.estimatedPage(slice, pageable, "car", List.of("Audi"),
+				() -> counted.incrementAndGet() * 10);
+
+		assertThat(cached.getTotalElements()).isEqualTo(10);
+		assertThat(refreshed.getTotalElements()).isEqualTo(20);
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void estimatedPage_ValuesThatJoinAlike_CountSeparately() {
+
+		SliceImpl<String> slice = new SliceImpl<>(List.of("a", "b"), pageable, true);
+
+		Page<String> first = countEstimator.estimatedPage(slice, pageable, "car", Arrays.asList("a&model=b", null),
+				() -> 10);
+		Page<String> second = countEstimator.estimatedPage(slice, pageable, "car", Arrays.asList("a", "b"), () -> 20);
+
+		assertThat(first.getTotalElements()).isEqualTo(10);
+		assertThat(second.getTotalElements()).isEqualTo(20);
+	}
+
+	@Test
+	void estimatedPage_EstimateBelowSeenRows_ReportsSeenRows() {
+
+		Page<String> actual = countEstimator.estimatedPage(new SliceImpl<>(List.of("a", "b"), pageable, true),
+				pageable, "car", List.of("Audi"), () -> 1);
+
+		assertThat(actual.getTotalElements()).isEqualTo(3);
+		assertThat(actual.hasNext()).isTrue();
+	}
+}
@@ -0,0 +1,161 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.StringReader;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportReportDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.repository.CarRepository;
+import com.foxminded.tasks.car_rest_service.repository.CategoryRepository;
+import com.foxminded.tasks.car_rest_service.repository.MakeRepository;
+import com.foxminded.tasks.car_rest_service.repository.ModelRepository;
+
+@ExtendWith(MockitoExtension.class)
+class DataImportServiceTest {
+
+	DataImportService dataImportService;
+
+	@Mock
+	CarRepository carRepository;
+
+	@Mock
+	MakeRepository makeRepository;
+
+	@Mock
+	ModelRepository modelRepository;
+
+	@Mock
+	CategoryRepository categoryRepository;
+
+	@Mock
+	CarImportPipeline carImportPipeline;
+
+	@Mock
+	TaskExecutor importExecutor;
+
+	@Mock
+	ImportCoordinator importCoordinator;
+
+	@BeforeEach
+	void setUp() {
+
+		dataImportService = new DataImportService(carRepository, makeRepository, modelRepository,
+				categoryRepository, carImportPipeline, importExecutor, importCoordinator, false, 10);
+	}
+
+	@Test
+	void initData_ImportCompletedByAnotherNode_SkipsImport() {
+
+		ImportJob job = new ImportJob();
+		job.setId(DataImportService.INITIAL_IMPORT_JOB);
+		job.setState(ImportState.COMPLETED);
+		job.setRowsImported(10);
+
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(false);
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(job));
+
+		dataImportService.initData();
+
+		assertThat(dataImportService.getProgress().getState()).isEqualTo(ImportState.COMPLETED);
+		assertThat(dataImportService.getProgress().getRowsImported()).isEqualTo(10);
+		verify(carRepository, never()).count();
+		verify(importCoordinator, never()).release(anyString(), any(), any(ImportState.class), any());
+	}
+
+	@Test
+	void initData_ImportRunningOnAnotherNode_WaitsForIt() {
+
+		ImportJob running = new ImportJob();
+		running.setState(ImportState.IMPORTING);
+		ImportJob completed = new ImportJob();
+		completed.setState(ImportState.COMPLETED);
+
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(false);
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(running))
+													.thenReturn(Optional.of(completed));
+
+		dataImportService.initData();
+
+		assertThat(dataImportService.getProgress().getState()).isEqualTo(ImportState.COMPLETED);
+		verify(importCoordinator, times(2)).findJob(anyString());
+	}
+
+	@Test
+	void initData_InterruptedWhileWaiting_ReportsFailed() {
+
+		ImportJob running = new ImportJob();
+		running.setState(ImportState.IMPORTING);
+
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(false);
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(running));
+
+		Thread.currentThread().interrupt();
+
+		try {
+			dataImportService.initData();
+
+		} finally {
+			assertThat(Thread.interrupted()).isTrue();
+		}
+
+		assertThat(dataImportService.getProgress().getState()).isEqualTo(ImportState.FAILED);
+		assertThat(dataImportService.getProgress().getError()).contains(DataImportService.INITIAL_IMPORT_JOB);
+		verify(importCoordinator, never()).release(anyString(), any(), any(ImportState.class), any());
+	}
+
+	@Test
+	void initData_DatabaseNotEmpty_ReleasesJobAsSkipped() {
+
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(true);
+		when(carRepository.count()).thenReturn(5L);
+
+		dataImportService.initData();
+
+		assertThat(dataImportService.getProgress().getState()).isEqualTo(ImportState.SKIPPED);
+		verify(importCoordinator, never()).resume(anyString(), anyString(), any(ImportProgress.class));
+		verify(importCoordinator, times(1)).release(eq(DataImportService.INITIAL_IMPORT_JOB), any(ImportProgress.class),
+				eq(ImportState.SKIPPED), isNull());
+	}
+
+	@Test
+	void initData_LaterChunkCommittedBeforeCrash_ReplaysFromCheckpoint() throws Exception {
+
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(true);
+		when(importCoordinator.wasStarted(DataImportService.INITIAL_IMPORT_JOB)).thenReturn(true);
+
+		dataImportService.initData();
+
+		assertThat(dataImportService.getProgress().getState()).isEqualTo(ImportState.COMPLETED);
+		verify(importCoordinator, times(1)).resume(eq(DataImportService.INITIAL_IMPORT_JOB), anyString(),
+				any(ImportProgress.class));
+		verify(carImportPipeline, times(1)).run(any(), any(ImportProgress.class), any());
+		verify(carRepository, never()).count();
+		verify(importCoordinator, times(1)).release(eq(DataImportService.INITIAL_IMPORT_JOB), any(ImportProgress.class),
+				eq(ImportState.COMPLETED), isNull());
+	}
+
+	@Test
+	void importDataFromCsv_Reader_DelegatesToPipeline() throws Exception {
+
+		StringReader reader = new StringReader("objectId,Make,Year,Model,Category\n");
+		ImportReportDTO expected = new ImportReportDTO(0, 0, 0, 0);
+
+		when(carImportPipeline.run(eq(reader), any(ImportProgress.class), any())).thenReturn(expected);
+
+		ImportReportDTO actual = dataImportService.importDataFromCsv(reader);
+
+		assertThat(actual).isSameAs(expected);
+	}
+}
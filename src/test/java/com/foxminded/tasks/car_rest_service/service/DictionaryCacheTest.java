@@ -0,0 +1,133 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DictionaryCacheTest {
+
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	DictionaryCache dictionaryCache = new DictionaryCache(meterRegistry, 100);
+
+	AtomicLong loads = new AtomicLong();
+
+	@Test
+	void resolve_SameNormalizedName_LoadsOnceAndReportsHit() {
+
+		Long first = dictionaryCache.resolve(Dictionary.MAKE, "Audi", name -> loads.incrementAndGet());
+		Long second = dictionaryCache.resolve(Dictionary.MAKE, " Audi ", name -> loads.incrementAndGet());
+
+		assertThat(first).isEqualTo(1L);
+		assertThat(second).isEqualTo(1L);
+		assertThat(loads).hasValue(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "make-ids").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "make-ids").tag("result", "miss")
+				.functionCounter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void resolve_InTransactionThatRollsBack_DoesNotCacheLoadedId() {
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			Long id = dictionaryCache.resolve(Dictionary.MAKE, "Audi", name -> loads.incrementAndGet());
+
+			assertThat(id).isEqualTo(1L);
+			assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+			TransactionSynchronizationManager.getSynchronizations().forEach(
+					synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+	}
+
+	@Test
+	void resolve_InTransactionThatCommits_CachesLoadedIdAfterCommit() {
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			dictionaryCache.resolve(Dictionary.MAKE, "Audi", name -> loads.incrementAndGet());
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi")))
+				.containsExactly(Map.entry("Audi", 1L));
+	}
+
+	@Test
+	void put_InTransactionThatRollsBack_DoesNotCacheId() {
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			dictionaryCache.put(Dictionary.MAKE, "Audi", 1L);
+			TransactionSynchronizationManager.getSynchronizations().forEach(
+					synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi"))).isEmpty();
+	}
+
+	@Test
+	void resolve_SameNameInOtherDictionary_LoadsSeparately() {
+
+		dictionaryCache.resolve(Dictionary.MAKE, "Mini", name -> loads.incrementAndGet());
+		Long modelId = dictionaryCache.resolve(Dictionary.MODEL, "Mini", name -> loads.incrementAndGet());
+
+		assertThat(modelId).isEqualTo(2L);
+	}
+
+	@Test
+	void invalidate_CachedName_LoadsAgainOnNextResolve() {
+
+		dictionaryCache.resolve(Dictionary.CATEGORY, "SUV", name -> loads.incrementAndGet());
+		dictionaryCache.invalidate(Dictionary.CATEGORY, "SUV");
+		Long reloaded = dictionaryCache.resolve(Dictionary.CATEGORY, "SUV", name -> loads.incrementAndGet());
+
+		assertThat(reloaded).isEqualTo(2L);
+	}
+
+	@Test
+	void invalidateId_CachedId_EvictsEveryNameMappedToIt() {
+
+		dictionaryCache.putAll(Dictionary.MAKE, Map.of("Audi", 1L, "BMW", 2L));
+		dictionaryCache.invalidateId(Dictionary.MAKE, 1L);
+
+		Map<String, Long> actual = dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi", "BMW"));
+
+		assertThat(actual).containsExactly(Map.entry("BMW", 2L));
+	}
+
+	@Test
+	void getAllPresent_PartlyCachedNames_ReturnsOnlyCachedIds() {
+
+		dictionaryCache.putAll(Dictionary.MAKE, Map.of("Audi", 1L, "BMW", 2L));
+
+		Map<String, Long> actual = dictionaryCache.getAllPresent(Dictionary.MAKE, List.of("Audi", "Kia"));
+
+		assertThat(actual).containsExactly(Map.entry("Audi", 1L));
+	}
+}
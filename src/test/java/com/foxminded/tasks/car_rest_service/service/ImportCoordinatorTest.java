@@ -0,0 +1,164 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.repository.ImportJobRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ImportCoordinatorTest {
+
+	ImportCoordinator importCoordinator;
+
+	@Mock
+	ImportJobRepository importJobRepository;
+
+	@BeforeEach
+	void setUp() {
+
+		importCoordinator = new ImportCoordinator(importJobRepository, 60);
+	}
+
+	@Test
+	void tryAcquire_LeaseFree_ReturnsTrue() {
+
+		when(importJobRepository.acquireLease(anyString(), anyString(), anyLong())).thenReturn(1);
+
+		boolean actual = importCoordinator.tryAcquire("job");
+
+		assertThat(actual).isTrue();
+		verify(importJobRepository, times(1)).createIfAbsent("job", "APPEND");
+		verify(importJobRepository, times(1)).acquireLease("job", importCoordinator.getNodeId(), 60);
+	}
+
+	@Test
+	void tryAcquire_LeaseHeldByAnotherNode_ReturnsFalse() {
+
+		when(importJobRepository.acquireLease(anyString(), anyString(), anyLong())).thenReturn(0);
+
+		assertThat(importCoordinator.tryAcquire("job")).isFalse();
+	}
+
+	@Test
+	void renew_LeaseLost_ThrowsException() {
+
+		ImportProgress progress = new ImportProgress();
+
+		when(importJobRepository.renewLease(anyString(), anyString(), anyLong(), anyLong(), anyLong(), anyLong(),
+				anyLong())).thenReturn(0);
+
+		assertThatThrownBy(() -> importCoordinator.renew("job", progress)).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void wasStarted_SourceRecordedWithoutCheckpoint_ReturnsTrue() {
+
+		ImportJob job = new ImportJob();
+		job.setState(ImportState.FAILED);
+		job.setSource("file.csv:100:abc");
+
+		when(importJobRepository.findById("job")).thenReturn(Optional.of(job));
+
+		assertThat(importCoordinator.wasStarted("job")).isTrue();
+	}
+
+	@Test
+	void wasStarted_NoSourceRecorded_ReturnsFalse() {
+
+		ImportJob job = new ImportJob();
+		job.setState(ImportState.PENDING);
+
+		when(importJobRepository.findById("job")).thenReturn(Optional.of(job));
+
+		assertThat(importCoordinator.wasStarted("job")).isFalse();
+	}
+
+	@Test
+	void resume_SameSourceWithCheckpoint_RestoresProgress() {
+
+		ImportJob job = new ImportJob();
+		job.setCheckpoint(2000);
+		job.setSource("file.csv:100:abc");
+		job.setRowsImported(1990);
+		job.setRowsRejected(10);
+		ImportProgress progress = new ImportProgress();
+
+		when(importJobRepository.findById("job")).thenReturn(Optional.of(job));
+
+		long actual = importCoordinator.resume("job", "file.csv:100:abc", progress);
+
+		assertThat(actual).isEqualTo(2000);
+		assertThat(progress.getRowsImported()).isEqualTo(1990);
+		assertThat(progress.getRowsRejected()).isEqualTo(10);
+		verify(importJobRepository, never()).resetCheckpoint(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	void resume_DifferentSource_ResetsCheckpoint() {
+
+		ImportJob job = new ImportJob();
+		job.setCheckpoint(2000);
+		job.setSource("file.csv:100:abc");
+		ImportProgress progress = new ImportProgress();
+
+		when(importJobRepository.findById("job")).thenReturn(Optional.of(job));
+
+		long actual = importCoordinator.resume("job", "file.csv:200:def", progress);
+
+		assertThat(actual).isZero();
+		verify(importJobRepository, times(1)).resetCheckpoint("job", importCoordinator.getNodeId(), "file.csv:200:def");
+	}
+
+	@Test
+	void create_NewJob_LeasesItToThisNode() {
+
+		importCoordinator.create("job", ImportMode.SYNC);
+
+		verify(importJobRepository, times(1)).createLeased("job", "SYNC", importCoordinator.getNodeId(), 60);
+	}
+
+	@Test
+	void extendLeases_NoJobs_SkipsUpdate() {
+
+		importCoordinator.extendLeases(List.of());
+
+		verify(importJobRepository, never()).extendLeases(anyCollection(), anyString(), anyLong());
+	}
+
+	@Test
+	void release_ValidValue_CalledMethod() {
+
+		ImportProgress progress = new ImportProgress();
+		progress.addImported(8);
+		progress.addRejected(2);
+
+		importCoordinator.release("job", progress, ImportState.COMPLETED, null);
+
+		verify(importJobRepository, times(1)).releaseLease("job", importCoordinator.getNodeId(), "COMPLETED", null, 8, 2,
+				0, 0, 0);
+	}
+
+	@Test
+	void release_LongError_TruncatesToColumnLength() {
+
+		String error = "x".repeat(ImportCoordinator.MAX_ERROR_LENGTH + 100);
+
+		importCoordinator.release("job", new ImportProgress(), ImportState.FAILED, error);
+
+		verify(importJobRepository, times(1)).releaseLease("job", importCoordinator.getNodeId(), "FAILED",
+				error.substring(0, ImportCoordinator.MAX_ERROR_LENGTH), 0, 0, 0, 0, 0);
+	}
+}
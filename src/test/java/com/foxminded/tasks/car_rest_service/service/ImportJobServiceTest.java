@@ -0,0 +1,234 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import com.foxminded.tasks.car_rest_service.dto.importing.ImportJobDTO;
+import com.foxminded.tasks.car_rest_service.entity.ImportJob;
+import com.foxminded.tasks.car_rest_service.entity.ImportMode;
+import com.foxminded.tasks.car_rest_service.entity.ImportState;
+import com.foxminded.tasks.car_rest_service.mapper.ImportJobMapper;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceTest {
+
+	private static final String CSV = "objectId,Make,Year,Model,Category\nA1,Audi,2020,Q3,SUV\n";
+
+	ImportJobService service;
+
+	@Mock
+	DataImportService dataImportService;
+
+	@Mock
+	ImportCoordinator importCoordinator;
+
+	@Mock
+	TaskExecutor uploadImportExecutor;
+
+	@Mock
+	ImportJobMapper mapper;
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() {
+
+		service = new ImportJobService(dataImportService, importCoordinator, uploadImportExecutor, mapper,
+				DataSize.ofBytes(CSV.length()));
+	}
+
+	@Test
+	void submit_ValidStream_CreatesJobAndSchedulesImport() throws Exception {
+
+		ImportJob job = new ImportJob();
+		ImportJobDTO expected = new ImportJobDTO("id", ImportState.PENDING, ImportMode.APPEND, 0, 0, 0, 0, 0, 0, null,
+				null, null);
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(job));
+		when(mapper.importJobToDto(job)).thenReturn(expected);
+
+		ImportJobDTO actual = service.submit(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)),
+				ImportMode.APPEND, false);
+
+		assertThat(actual).isSameAs(expected);
+		verify(importCoordinator, times(1)).create(anyString(), eq(ImportMode.APPEND));
+		verify(uploadImportExecutor, times(1)).execute(any(Runnable.class));
+	}
+
+	@Test
+	void submit_StreamOverLimit_ThrowsExceptionWithoutCreatingJob() {
+
+		byte[] csv = (CSV + "A2,Audi,2021,Q5,SUV\n").getBytes(StandardCharsets.UTF_8);
+
+		assertThatThrownBy(() -> service.submit(new ByteArrayInputStream(csv), ImportMode.APPEND, false))
+				.isInstanceOf(MaxUploadSizeExceededException.class);
+		verify(importCoordinator, never()).create(anyString(), any());
+	}
+
+	@Test
+	void submit_NegativeLimit_AcceptsAnySize() throws Exception {
+
+		service = new ImportJobService(dataImportService, importCoordinator, uploadImportExecutor, mapper,
+				DataSize.ofBytes(-1));
+		byte[] csv = (CSV + "A2,Audi,2021,Q5,SUV\n").getBytes(StandardCharsets.UTF_8);
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(new ImportJob()));
+
+		service.submit(new ByteArrayInputStream(csv), ImportMode.APPEND, false);
+
+		verify(importCoordinator, times(1)).create(anyString(), eq(ImportMode.APPEND));
+		verify(uploadImportExecutor, times(1)).execute(any(Runnable.class));
+	}
+
+	@Test
+	void submit_MultipartFile_ImportsFileContent() throws Exception {
+
+		ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+		StringBuilder content = new StringBuilder();
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(new ImportJob()));
+		when(importCoordinator.tryAcquire(anyString())).thenReturn(true);
+		when(dataImportService.importDataFromCsv(any(Reader.class), any(ImportProgress.class), any()))
+				.thenAnswer(invocation -> {
+					Reader reader = invocation.getArgument(0);
+					StringWriter writer = new StringWriter();
+					reader.transferTo(writer);
+					content.append(writer);
+					return null;
+				});
+
+		service.submit(new MockMultipartFile("file", "cars.csv", "text/csv", CSV.getBytes(StandardCharsets.UTF_8)),
+				ImportMode.APPEND, false);
+		verify(uploadImportExecutor).execute(job.capture());
+		job.getValue().run();
+
+		assertThat(content.toString()).isEqualTo(CSV);
+	}
+
+	@Test
+	void heartbeat_JobQueued_ExtendsItsLeaseAndFailsExpiredJobs() throws Exception {
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(new ImportJob()));
+
+		service.submit(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), ImportMode.APPEND, false);
+		service.heartbeat();
+
+		verify(importCoordinator, times(1)).extendLeases(argThat(ids -> ids.size() == 1));
+		verify(importCoordinator, times(1)).failExpired(DataImportService.INITIAL_IMPORT_JOB);
+	}
+
+	@Test
+	void heartbeat_JobFinished_NoLongerExtendsItsLease() throws Exception {
+
+		ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.of(new ImportJob()));
+
+		service.submit(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), ImportMode.APPEND, false);
+		verify(uploadImportExecutor).execute(job.capture());
+		job.getValue().run();
+		service.heartbeat();
+
+		verify(importCoordinator, times(1)).extendLeases(argThat(ids -> ids.isEmpty()));
+	}
+
+	@Test
+	void submit_DeleteMissingInAppendMode_ThrowsException() {
+
+		assertThatThrownBy(() -> service.submit(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)),
+				ImportMode.APPEND, true)).isInstanceOf(IllegalArgumentException.class);
+		verify(importCoordinator, never()).create(anyString(), any());
+	}
+
+	@Test
+	void findById_JobNotExists_ThrowsException() {
+
+		when(importCoordinator.findJob(anyString())).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> service.findById("id")).isInstanceOf(EntityNotFoundException.class);
+	}
+
+	@Test
+	void runJob_GzipFile_ImportsDecompressedCsvAndDeletesFile() throws Exception {
+
+		Path file = tempDir.resolve("cars.csv.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+			out.write(CSV.getBytes(StandardCharsets.UTF_8));
+		}
+		StringBuilder content = new StringBuilder();
+
+		when(importCoordinator.tryAcquire("id")).thenReturn(true);
+		when(dataImportService.importDataFromCsv(any(Reader.class), any(ImportProgress.class), any()))
+				.thenAnswer(invocation -> {
+					Reader reader = invocation.getArgument(0);
+					StringWriter writer = new StringWriter();
+					reader.transferTo(writer);
+					content.append(writer);
+					return null;
+				});
+
+		service.runJob("id", file, ImportMode.APPEND, false);
+
+		assertThat(content.toString()).isEqualTo(CSV);
+		assertThat(file).doesNotExist();
+		verify(importCoordinator, times(1)).release(eq("id"), any(ImportProgress.class), eq(ImportState.COMPLETED),
+				isNull());
+	}
+
+	@Test
+	void runJob_ImportFails_ReleasesJobAsFailed() throws Exception {
+
+		Path file = Files.writeString(tempDir.resolve("cars.csv"), CSV);
+
+		when(importCoordinator.tryAcquire("id")).thenReturn(true);
+		when(dataImportService.importDataFromCsv(any(Reader.class), any(ImportProgress.class), any()))
+				.thenThrow(new IllegalStateException("Connection refused"));
+
+		service.runJob("id", file, ImportMode.APPEND, false);
+
+		assertThat(file).doesNotExist();
+		verify(importCoordinator, times(1)).release(eq("id"), any(ImportProgress.class), eq(ImportState.FAILED),
+				eq("Connection refused"));
+	}
+
+	@Test
+	void runJob_SyncMode_SyncsFileInsteadOfAppending() throws Exception {
+
+		Path file = Files.writeString(tempDir.resolve("cars.csv"), CSV);
+
+		when(importCoordinator.tryAcquire("id")).thenReturn(true);
+
+		service.runJob("id", file, ImportMode.SYNC, true);
+
+		verify(dataImportService, times(1)).syncFromCsv(anyString(), any(Reader.class), any(ImportProgress.class), eq(true), any());
+		verify(dataImportService, never()).importDataFromCsv(any(Reader.class), any(ImportProgress.class), any());
+		verify(importCoordinator, times(1)).release(eq("id"), any(ImportProgress.class), eq(ImportState.COMPLETED),
+				isNull());
+	}
+}
@@ -0,0 +1,112 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.foxminded.tasks.car_rest_service.dto.car.CarListItemDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ListingCacheTest {
+
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	CatalogVersion catalogVersion = new CatalogVersion();
+
+	ListingCache listingCache = new ListingCache(meterRegistry, catalogVersion, 100);
+
+	Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Order.asc("id")));
+
+	AtomicLong loads = new AtomicLong();
+
+	@BeforeEach
+	void setUp() {
+
+		catalogVersion.setSynced(true);
+	}
+
+	@Test
+	void get_SameListing_LoadsOnceAndReportsHit() {
+
+		Slice<CarListItemDTO> first = listingCache.get("Audi", null, null, 2020, pageable, CountMode.EXACT,
+				this::load);
+		Slice<CarListItemDTO> second = listingCache.get("Audi", "", null, 2020, pageable, CountMode.EXACT,
+				this::load);
+
+		assertThat(second).isSameAs(first);
+		assertThat(loads).hasValue(1);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "car-listings").tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("cache.size").tag("cache", "car-listings").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void get_OtherPageOrCountMode_LoadsSeparately() {
+
+		listingCache.get("Audi", null, null, null, pageable, CountMode.EXACT, this::load);
+		listingCache.get("Audi", null, null, null, pageable.next(), CountMode.EXACT, this::load);
+		listingCache.get("Audi", null, null, null, pageable, CountMode.NONE, this::load);
+
+		assertThat(loads).hasValue(3);
+	}
+
+	@Test
+	void get_CatalogNotSynced_LoadsEveryTime() {
+
+		catalogVersion.setSynced(false);
+
+		listingCache.get("Audi", null, null, null, pageable, CountMode.EXACT, this::load);
+		listingCache.get("Audi", null, null, null, pageable, CountMode.EXACT, this::load);
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void get_AfterCatalogVersionBump_LoadsAgain() {
+
+		listingCache.get(null, null, "SUV", null, pageable, CountMode.EXACT, this::load);
+		catalogVersion.bump();
+		listingCache.get(null, null, "SUV", null, pageable, CountMode.EXACT, this::load);
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void get_ListingCachedBeforeWriteCommits_LoadsAgainAfterCommit() {
+
+		TransactionSynchronizationManager.initSynchronization();
+
+		try {
+			catalogVersion.bump();
+			listingCache.get(null, null, null, 2020, pageable, CountMode.EXACT, this::load);
+
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		listingCache.get(null, null, null, 2020, pageable, CountMode.EXACT, this::load);
+
+		assertThat(loads).hasValue(2);
+	}
+
+	private Slice<CarListItemDTO> load() {
+
+		loads.incrementAndGet();
+		return new SliceImpl<>(List.of(new CarListItemDTO("Audi", "Q3", "SUV", 2020)), pageable, false);
+	}
+}
@@ -5,6 +5,8 @@ import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
@@ -15,10 +17,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
@@ -26,6 +31,9 @@ import com.foxminded.tasks.car_rest_service.dto.make.UpsertMakeDTO;
 import com.foxminded.tasks.car_rest_service.entity.Make;
 import com.foxminded.tasks.car_rest_service.mapper.MakeMapper;
 import com.foxminded.tasks.car_rest_service.repository.MakeRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
 class MakeServiceTest {
@@ -35,6 +43,16 @@ class MakeServiceTest {
 	
 	@Mock
 	MakeMapper mapper;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Mock
+	CountEstimator countEstimator;
+
+	@Mock
+	DictionaryCache dictionaryCache;
+
 	
 	@InjectMocks
 	MakeService service;
@@ -53,39 +71,18 @@ class MakeServiceTest {
 	}
 
 	@Test
-	void findByNameOrSaveNew_MakeExists_CalledMethodAndReturnsExpected() {
-		
-		String name = "Name";
-		Make make = new Make(1L, "Name");
-		MakeDTO expected = new MakeDTO(1L, "Name");
-		
-		when(repository.findByName(anyString())).thenReturn(Optional.of(make));
-		when(mapper.makeToDto(any(Make.class))).thenReturn(expected);
-		
-		MakeDTO actual = service.findByNameOrSaveNew(name);
-		
-		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(mapper, times(1)).makeToDto(any(Make.class));
-	}
-	
-	@Test
-	void findByNameOrSaveNew_MakeNotExists_CalledMethodAndReturnsExpected() {
+	void findByNameOrSaveNew_ValidName_ResolvesNormalizedNameThroughCache() {
 		
 		String name = "Name";
-		Make make = new Make(1L, "Name");
-		MakeDTO expected = new MakeDTO(1L, "Name");
+		MakeDTO expected = new MakeDTO(1L, "Name", 3L);
 		
-		when(repository.findByName(anyString())).thenReturn(Optional.empty());
-		when(repository.save(any(Make.class))).thenReturn(make);
-		when(mapper.makeToDto(any(Make.class))).thenReturn(expected);
+		when(dictionaryCache.resolve(eq(Dictionary.MAKE), eq(name), any())).thenReturn(1L);
+		when(repository.findVersionById(1L)).thenReturn(Optional.of(3L));
 		
-		MakeDTO actual = service.findByNameOrSaveNew(name);
+		MakeDTO actual = service.findByNameOrSaveNew(" Name ");
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(repository, times(1)).save(any(Make.class));
-		verify(mapper, times(1)).makeToDto(any(Make.class));
+		verify(repository, never()).save(any(Make.class));
 	}
 	
 	@Test
@@ -124,6 +121,19 @@ class MakeServiceTest {
 		verify(mapper, times(1)).makeToDto(any(Make.class));
 	}
 	
+	@Test
+	void createMake_PaddedName_ChecksAndSavesNormalizedName() {
+
+		when(repository.existsByName(anyString())).thenReturn(false);
+		when(repository.save(any(Make.class))).thenReturn(new Make(1L, "Name"));
+
+		service.createMake(new UpsertMakeDTO(" Name "));
+
+		verify(repository, times(1)).existsByName("Name");
+		verify(repository, times(1)).save(argThat(make -> make.getName().equals("Name")));
+		verify(dictionaryCache, times(1)).put(Dictionary.MAKE, "Name", 1L);
+	}
+
 	@Test
 	void createMake_InvalidValue_CalledMethodAndReturnsExpected() {
 
@@ -141,40 +151,85 @@ class MakeServiceTest {
 	void updateMake_ValidMake_CalledMethodsAndReturnsExpected() {
 		
 		Long id = 1L;
-		Make make = new Make(1L, "Name");
+		Make make = new Make(1L, "Old_Name");
 		UpsertMakeDTO updateDto = new UpsertMakeDTO("Name");
 		MakeDTO expected = new MakeDTO(1L, "Make_Name");
 		
 		when(repository.findById(anyLong())).thenReturn(Optional.of(make));
-		when(repository.save(any(Make.class))).thenReturn(make);
+		when(repository.saveAndFlush(any(Make.class))).thenReturn(make);
 		when(mapper.makeToDto(any(Make.class))).thenReturn(expected);
 		
-		MakeDTO actual = service.updateMake(id, updateDto);
+		MakeDTO actual = service.updateMake(id, updateDto, null);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findById(anyLong());
-		verify(repository, times(1)).save(any(Make.class));
+		verify(repository, times(1)).saveAndFlush(any(Make.class));
 		verify(mapper, times(1)).makeToDto(any(Make.class));
+		verify(dictionaryCache, times(1)).invalidate(Dictionary.MAKE, "Old_Name");
+		verify(dictionaryCache, times(1)).put(Dictionary.MAKE, "Name", 1L);
+	}
+
+	@Test
+	void updateMake_NameTakenConcurrently_ThrowsExceptionWithoutCaching() {
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(new Make(1L, "Old_Name")));
+		when(repository.saveAndFlush(any(Make.class)))
+				.thenThrow(new DataIntegrityViolationException("make_name_uindex"));
+
+		assertThatThrownBy(() -> service.updateMake(1L, new UpsertMakeDTO("Name"), null))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(dictionaryCache, never()).put(any(), anyString(), anyLong());
+	}
+
+	@Test
+	void updateMake_NameTaken_ThrowsExceptionWithoutWriting() {
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(new Make(1L, "Old_Name")));
+		when(repository.existsByName("Name")).thenReturn(true);
+
+		assertThatThrownBy(() -> service.updateMake(1L, new UpsertMakeDTO("Name"), null))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(repository, never()).saveAndFlush(any(Make.class));
+		verify(dictionaryCache, never()).invalidate(any(), any());
 	}
 	
 	@Test
-	void delete_ValidId_CalledMethods() {
+	void updateMake_StaleVersion_ThrowsExceptionWithoutWriting() {
+
+		Make make = new Make(1L, "Old_Name");
+		make.setVersion(2);
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(make));
+
+		assertThatThrownBy(() -> service.updateMake(1L, new UpsertMakeDTO("Name"), 1L))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+		verify(repository, never()).saveAndFlush(any(Make.class));
+		verify(dictionaryCache, never()).invalidate(any(), anyString());
+	}
+
+	@Test
+	void delete_ValidId_DeletesWithOneStatement() {
 		
 		Long id = 1L;
-		MakeDTO makeDto = new MakeDTO(1L, "Name");
-		Make make = new Make(1L, "Name");
 		
-		when(repository.findById(anyLong())).thenReturn(Optional.of(make));
-		when(mapper.makeToDto(any(Make.class))).thenReturn(makeDto);
-		when(mapper.dtoToMake(any(MakeDTO.class))).thenReturn(make);
-		doNothing().when(repository).delete(any(Make.class));
+		when(repository.deleteOneById(anyLong())).thenReturn(1);
 		
 		service.delete(id);
 		
-		verify(repository, times(1)).findById(anyLong());
-		verify(mapper, times(1)).makeToDto(any(Make.class));
-		verify(mapper, times(1)).dtoToMake(any(MakeDTO.class));
-		verify(repository, times(1)).delete(any(Make.class));
+		verify(repository, times(1)).deleteOneById(id);
+		verify(repository, never()).findById(anyLong());
+		verify(dictionaryCache, times(1)).invalidateId(Dictionary.MAKE, id);
+	}
+	
+	@Test
+	void delete_InvalidId_ThrowsException() {
+		
+		when(repository.deleteOneById(anyLong())).thenReturn(0);
+		
+		assertThatThrownBy(() -> service.delete(1L)).isInstanceOf(EntityNotFoundException.class);
+		verify(dictionaryCache, never()).invalidateId(any(), anyLong());
 	}
 
 	@Test
@@ -190,7 +245,7 @@ class MakeServiceTest {
 		when(repository.findAll(any(Specification.class), eq(pageable))).thenReturn(page);
 		when(mapper.makeToDto(any(Make.class))).thenReturn(makeDto);
 		
-		Page<MakeDTO> actual = service.filterMakes(name, pageable);
+		Slice<MakeDTO> actual = service.filterMakes(name, pageable, CountMode.EXACT);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findAll(any(Specification.class), eq(pageable));
@@ -13,10 +13,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 
 import com.foxminded.tasks.car_rest_service.dto.make.MakeDTO;
@@ -26,6 +28,9 @@ import com.foxminded.tasks.car_rest_service.entity.Make;
 import com.foxminded.tasks.car_rest_service.entity.Model;
 import com.foxminded.tasks.car_rest_service.mapper.ModelMapper;
 import com.foxminded.tasks.car_rest_service.repository.ModelRepository;
+import com.foxminded.tasks.car_rest_service.service.DictionaryCache.Dictionary;
+
+import jakarta.persistence.EntityNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
 class ModelServiceTest {
@@ -35,6 +40,16 @@ class ModelServiceTest {
 	
 	@Mock
 	ModelMapper mapper;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Mock
+	CountEstimator countEstimator;
+
+	@Mock
+	DictionaryCache dictionaryCache;
+
 	
 	@InjectMocks
 	ModelService service;
@@ -53,39 +68,18 @@ class ModelServiceTest {
 	}
 
 	@Test
-	void findByNameOrSaveNew_ModelExists_CalledMethodAndReturnsExpected() {
+	void findByNameOrSaveNew_ValidName_ResolvesNormalizedNameThroughCache() {
 		
 		String name = "Name";
-		Model model = new Model(1L, "Name");
-		ModelDTO expected = new ModelDTO(1L, "Name");
-		
-		when(repository.findByName(anyString())).thenReturn(Optional.of(model));
-		when(mapper.modelToDto(any(Model.class))).thenReturn(expected);
-		
-		ModelDTO actual = service.findByNameOrSaveNew(name);
-		
-		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(mapper, times(1)).modelToDto(any(Model.class));
-	}
-	
-	@Test
-	void findByNameOrSaveNew_ModelNotExists_CalledMethodAndReturnsExpected() {
-		
-		String name = "Name";
-		Model model = new Model(1L, "Name");
-		ModelDTO expected = new ModelDTO(1L, "Name");
+		ModelDTO expected = new ModelDTO(1L, "Name", 3L);
 		
-		when(repository.findByName(anyString())).thenReturn(Optional.empty());
-		when(repository.save(any(Model.class))).thenReturn(model);
-		when(mapper.modelToDto(any(Model.class))).thenReturn(expected);
+		when(dictionaryCache.resolve(eq(Dictionary.MODEL), eq(name), any())).thenReturn(1L);
+		when(repository.findVersionById(1L)).thenReturn(Optional.of(3L));
 		
-		ModelDTO actual = service.findByNameOrSaveNew(name);
+		ModelDTO actual = service.findByNameOrSaveNew(" Name ");
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
-		verify(repository, times(1)).findByName(anyString());
-		verify(repository, times(1)).save(any(Model.class));
-		verify(mapper, times(1)).modelToDto(any(Model.class));
+		verify(repository, never()).save(any(Model.class));
 	}
 	
 	@Test
@@ -146,35 +140,51 @@ class ModelServiceTest {
 		ModelDTO expected = new ModelDTO(1L, "Make_Name");
 		
 		when(repository.findById(anyLong())).thenReturn(Optional.of(model));
-		when(repository.save(any(Model.class))).thenReturn(model);
+		when(repository.saveAndFlush(any(Model.class))).thenReturn(model);
 		when(mapper.modelToDto(any(Model.class))).thenReturn(expected);
 		
 		ModelDTO actual = service.updateModel(id, updateDto);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findById(anyLong());
-		verify(repository, times(1)).save(any(Model.class));
+		verify(repository, times(1)).saveAndFlush(any(Model.class));
 		verify(mapper, times(1)).modelToDto(any(Model.class));
 	}
+
+	@Test
+	void updateModel_NameTakenConcurrently_ThrowsExceptionWithoutCaching() {
+
+		when(repository.findById(anyLong())).thenReturn(Optional.of(new Model(1L, "Old_Name")));
+		when(repository.saveAndFlush(any(Model.class)))
+				.thenThrow(new DataIntegrityViolationException("model_name_uindex"));
+
+		assertThatThrownBy(() -> service.updateModel(1L, new UpsertModelDTO("Name")))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		verify(dictionaryCache, never()).put(any(), anyString(), anyLong());
+	}
 	
 	@Test
-	void delete_ValidId_CalledMethods() {
+	void delete_ValidId_DeletesWithOneStatement() {
 		
 		Long id = 1L;
-		ModelDTO modelDto = new ModelDTO(1L, "Name");
-		Model model = new Model(1L, "Name");
 		
-		when(repository.findById(anyLong())).thenReturn(Optional.of(model));
-		when(mapper.modelToDto(any(Model.class))).thenReturn(modelDto);
-		when(mapper.dtoToModel(any(ModelDTO.class))).thenReturn(model);
-		doNothing().when(repository).delete(any(Model.class));
+		when(repository.deleteOneById(anyLong())).thenReturn(1);
 		
 		service.delete(id);
 		
-		verify(repository, times(1)).findById(anyLong());
-		verify(mapper, times(1)).modelToDto(any(Model.class));
-		verify(mapper, times(1)).dtoToModel(any(ModelDTO.class));
-		verify(repository, times(1)).delete(any(Model.class));
+		verify(repository, times(1)).deleteOneById(id);
+		verify(repository, never()).findById(anyLong());
+		verify(dictionaryCache, times(1)).invalidateId(Dictionary.MODEL, id);
+	}
+	
+	@Test
+	void delete_InvalidId_ThrowsException() {
+		
+		when(repository.deleteOneById(anyLong())).thenReturn(0);
+		
+		assertThatThrownBy(() -> service.delete(1L)).isInstanceOf(EntityNotFoundException.class);
+		verify(dictionaryCache, never()).invalidateId(any(), anyLong());
 	}
 
 	@Test
@@ -190,7 +200,7 @@ class ModelServiceTest {
 		when(repository.findAll(any(Specification.class), eq(pageable))).thenReturn(page);
 		when(mapper.modelToDto(any(Model.class))).thenReturn(modelDto);
 		
-		Page<ModelDTO> actual = service.filterModels(name, pageable);
+		Slice<ModelDTO> actual = service.filterModels(name, pageable, CountMode.EXACT);
 		
 		assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
 		verify(repository, times(1)).findAll(any(Specification.class), eq(pageable));
@@ -0,0 +1,225 @@
+package com.foxminded.tasks.car_rest_service.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.foxminded.tasks.car_rest_service.exception.ObjectIdUnavailableException;
+import com.foxminded.tasks.car_rest_service.repository.ObjectIdNodeRepository;
+
+class ObjectIdGeneratorTest {
+
+	Logger logger = LoggerFactory.getLogger(ObjectIdGeneratorTest.class);
+
+	@Test
+	void next_ValidNode_ReturnsFixedWidthBase62Id() {
+
+		String actual = new ObjectIdGenerator(7).next();
+
+		assertThat(actual).hasSize(ObjectIdGenerator.LENGTH).matches("[0-9A-Za-z]+");
+	}
+
+	@Test
+	void next_SequentialCalls_ReturnsIncreasingIds() {
+
+		ObjectIdGenerator generator = new ObjectIdGenerator(7);
+		List<String> ids = new ArrayList<>();
+
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(generator.next());
+		}
+
+		assertThat(ids).isSorted().doesNotHaveDuplicates();
+	}
+
+	@Test
+	void next_SequenceExhaustedWithinOneMillisecond_BorrowsNextMillisecond() {
+
+		ObjectIdGenerator generator = new ObjectIdGenerator(1, () -> ObjectIdGenerator.EPOCH_MILLIS + 1000);
+		int perMillisecond = 1 << ObjectIdGenerator.SEQUENCE_BITS;
+		long first = generator.nextLong();
+		long last = first;
+
+		for (int i = 1; i <= perMillisecond; i++) {
+			last = generator.nextLong();
+		}
+
+		assertThat(timestamp(first)).isEqualTo(1000);
+		assertThat(timestamp(last)).isEqualTo(1001);
+		assertThat(last).isGreaterThan(first);
+	}
+
+	@Test
+	void next_ClockMovesBack_KeepsIdsIncreasing() {
+
+		AtomicLong clock = new AtomicLong(ObjectIdGenerator.EPOCH_MILLIS + 5000);
+		ObjectIdGenerator generator = new ObjectIdGenerator(1, clock::get);
+
+		long before = generator.nextLong();
+		clock.addAndGet(-2000);
+		long after = generator.nextLong();
+
+		assertThat(after).isGreaterThan(before);
+	}
+
+	@Test
+	void next_DifferentNodesAtSameInstant_ReturnDifferentIds() {
+
+		ObjectIdGenerator first = new ObjectIdGenerator(1, () -> ObjectIdGenerator.EPOCH_MILLIS);
+		ObjectIdGenerator second = new ObjectIdGenerator(2, () -> ObjectIdGenerator.EPOCH_MILLIS);
+
+		assertThat(first.next()).isNotEqualTo(second.next());
+	}
+
+	@Test
+	void constructor_NodeIdOutOfRange_ThrowsException() {
+
+		assertThatThrownBy(() -> new ObjectIdGenerator(ObjectIdGenerator.MAX_NODE_ID + 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void constructor_NoNodeIdConfigured_LeasesNodeIdFromDatabase() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		when(repository.lease(anyString(), eq(60L), eq(ObjectIdGenerator.MAX_NODE_ID)))
+				.thenReturn(Optional.empty(), Optional.of(42L));
+
+		ObjectIdGenerator generator = new ObjectIdGenerator(repository, -1, 60, System::currentTimeMillis);
+
+		assertThat(generator.getNodeId()).isEqualTo(42);
+		assertThat(generator.next()).hasSize(ObjectIdGenerator.LENGTH);
+	}
+
+	@Test
+	void constructor_NoNodeIdFree_ThrowsException() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		when(repository.lease(anyString(), anyLong(), anyLong())).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> new ObjectIdGenerator(repository, -1, 60, System::currentTimeMillis))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void next_LeaseNotRenewedInTime_ThrowsException() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		when(repository.lease(anyString(), anyLong(), anyLong())).thenReturn(Optional.of(1L));
+		AtomicLong clock = new AtomicLong(ObjectIdGenerator.EPOCH_MILLIS);
+		ObjectIdGenerator generator = new ObjectIdGenerator(repository, -1, 60, clock::get);
+
+		clock.addAndGet(59_000);
+		generator.next();
+		clock.addAndGet(2_000);
+
+		assertThatThrownBy(generator::next).isInstanceOf(ObjectIdUnavailableException.class);
+	}
+
+	@Test
+	void renewLease_LeaseTakenOver_LeasesFreshNodeId() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		when(repository.lease(anyString(), anyLong(), anyLong())).thenReturn(Optional.of(1L), Optional.of(2L));
+		when(repository.renew(eq(1L), anyString(), eq(60L))).thenReturn(0);
+		ObjectIdGenerator generator = new ObjectIdGenerator(repository, -1, 60, System::currentTimeMillis);
+
+		generator.renewLease();
+
+		assertThat(generator.getNodeId()).isEqualTo(2);
+		assertThat(generator.next()).hasSize(ObjectIdGenerator.LENGTH);
+	}
+
+	@Test
+	void renewLease_LeaseTakenOverAndNoNodeIdFree_FailsUntilOneIsFree() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		Optional<Long> none = Optional.empty();
+		when(repository.lease(anyString(), anyLong(), anyLong()))
+				.thenReturn(Optional.of(1L), none, none, none, none, none, Optional.of(3L));
+		when(repository.renew(eq(1L), anyString(), eq(60L))).thenReturn(0);
+		ObjectIdGenerator generator = new ObjectIdGenerator(repository, -1, 60, System::currentTimeMillis);
+
+		generator.renewLease();
+
+		assertThatThrownBy(generator::next).isInstanceOf(ObjectIdUnavailableException.class);
+
+		generator.renewLease();
+
+		assertThat(generator.getNodeId()).isEqualTo(3);
+		assertThat(generator.next()).hasSize(ObjectIdGenerator.LENGTH);
+	}
+
+	@Test
+	void renewLease_ConfiguredNodeId_DoesNotTouchDatabase() {
+
+		ObjectIdNodeRepository repository = mock(ObjectIdNodeRepository.class);
+		ObjectIdGenerator generator = new ObjectIdGenerator(repository, 5, 60, System::currentTimeMillis);
+
+		generator.renewLease();
+
+		verifyNoInteractions(repository);
+		assertThat(generator.getNodeId()).isEqualTo(5);
+	}
+
+	@Test
+	void next_ManyThreads_ReturnsUniqueIdsAndReportsThroughput() throws Exception {
+
+		int threads = 8;
+		int perThread = 100_000;
+		ObjectIdGenerator generator = new ObjectIdGenerator(3);
+		Set<String> ids = ConcurrentHashMap.newKeySet(threads * perThread);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		try {
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					String[] generated = new String[perThread];
+					for (int i = 0; i < perThread; i++) {
+						generated[i] = generator.next();
+					}
+					ids.addAll(List.of(generated));
+					return null;
+				}));
+			}
+
+			long startedAt = System.nanoTime();
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(1, TimeUnit.MINUTES);
+			}
+			long elapsedNanos = System.nanoTime() - startedAt;
+
+			logger.info("Generated {} objectIds on {} threads at {} ids/s.", threads * perThread, threads,
+					Math.round(threads * perThread * 1e9 / elapsedNanos));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(ids).hasSize(threads * perThread);
+	}
+
+	private static long timestamp(long id) {
+
+		return id >>> (ObjectIdGenerator.NODE_BITS + ObjectIdGenerator.SEQUENCE_BITS);
+	}
+}